@@ -0,0 +1,145 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.protocol.HTTP;
+
+/**
+ * 响应体解码：按字节读入复用的缓冲区，有Content-Length时一次分配到位，最后只做一次字符集解码
+ *
+ * <p>
+ * 缓冲区由{@link BufferPool}复用，超过{@link #MAX_POOLED_BUFFER}的缓冲区用完即丢弃。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+class BodyDecoder {
+	static final int MAX_POOLED_BUFFER = 256 * 1024;
+	private static final int DEFAULT_BUFFER = 8 * 1024;
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+	private static final BufferPool<byte[]> POOL = BufferPool.ofBytes(MAX_POOLED_BUFFER);
+
+	private BodyDecoder() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * 读取整个流并解码为字符串，不关闭流
+	 *
+	 * @param in
+	 *            输入流
+	 * @param contentLength
+	 *            长度提示，未知时为-1
+	 * @param charset
+	 *            字符集
+	 * @return
+	 * @throws IOException
+	 */
+	static String decode(InputStream in, long contentLength, Charset charset) throws IOException {
+		return read(in, contentLength, buffer -> new String(buffer.array(), 0, buffer.limit(), charset));
+	}
+
+	/**
+	 * 读取整个流为字节数组，不关闭流
+	 */
+	static byte[] toByteArray(InputStream in, long contentLength) throws IOException {
+		// 未入池且长度恰好的缓冲区直接返回，省去一次复制
+		return read(in, contentLength,
+				buffer -> buffer.array().length == buffer.limit() && !POOL.isPoolable(buffer.array().length)
+						? buffer.array() : Arrays.copyOf(buffer.array(), buffer.limit()));
+	}
+
+	/**
+	 * 读取整个流并把内容以ByteBuffer视图交给reader，视图仅在reader执行期间有效，不能保留引用
+	 */
+	static <T> T read(InputStream in, long contentLength, Function<ByteBuffer, T> reader) throws IOException {
+		if (contentLength > MAX_ARRAY_SIZE) {
+			throw new IOException("response body too large: " + contentLength);
+		}
+		byte[] buffer = POOL.acquire(Math.max(DEFAULT_BUFFER, (int) contentLength));
+		try {
+			int length = 0;
+			while (true) {
+				if (length == buffer.length) {
+					// 缓冲区恰好读满(通常是Content-Length准确)时先确认是否已到结尾，避免无谓扩容
+					int b = in.read();
+					if (b == -1) {
+						break;
+					}
+					buffer = grow(buffer, length + 1);
+					buffer[length++] = (byte) b;
+				}
+				int count = in.read(buffer, length, buffer.length - length);
+				if (count == -1) {
+					break;
+				}
+				length += count;
+			}
+			return reader.apply(ByteBuffer.wrap(buffer, 0, length).slice());
+		} finally {
+			POOL.release(buffer);
+		}
+	}
+
+	/**
+	 * 与EntityUtils.toString(HttpEntity, String)相同的字符集规则：Content-Type声明的字符集，
+	 * 其次是该MIME类型的默认字符集，最后是defaultCharset
+	 *
+	 * @return 实体为null或没有内容时返回null
+	 */
+	static String toString(HttpEntity entity, String defaultCharset) throws IOException {
+		if (entity == null) {
+			return null;
+		}
+		InputStream in = entity.getContent();
+		if (in == null) {
+			return null;
+		}
+		try {
+			Charset charset = null;
+			ContentType contentType = ContentType.get(entity);
+			if (contentType != null) {
+				charset = contentType.getCharset();
+				if (charset == null) {
+					ContentType defaultContentType = ContentType.getByMimeType(contentType.getMimeType());
+					charset = defaultContentType == null ? null : defaultContentType.getCharset();
+				}
+			}
+			if (charset == null) {
+				charset = defaultCharset == null ? HTTP.DEF_CONTENT_CHARSET : forName(defaultCharset);
+			}
+			return decode(in, entity.getContentLength(), charset);
+		} finally {
+			in.close();
+		}
+	}
+
+	static Charset forName(String charset) throws UnsupportedEncodingException {
+		try {
+			return Charset.forName(charset);
+		} catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+			throw new UnsupportedEncodingException(charset);
+		}
+	}
+
+	private static byte[] grow(byte[] buffer, int minCapacity) throws IOException {
+		if (minCapacity > MAX_ARRAY_SIZE) {
+			throw new IOException("response body too large");
+		}
+		int capacity = (int) Math.min(Math.max((long) buffer.length << 1, minCapacity), MAX_ARRAY_SIZE);
+		byte[] grown = Arrays.copyOf(buffer, capacity);
+		POOL.release(buffer);
+		return grown;
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+
+/**
+ * 流式响应处理器，由{@link HttpUtil#doGetStream(String, java.util.Map, BodyHandler, int, int)}在连接有效期内回调，
+ * 回调返回后连接自动归还连接池，调用方无需也不能在回调外使用响应流
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@FunctionalInterface
+public interface BodyHandler<T> {
+
+	/**
+	 * 处理响应体
+	 *
+	 * @param body
+	 *            响应流，无需关闭
+	 * @param contentLength
+	 *            响应体长度，未知时为-1
+	 * @return 处理结果
+	 * @throws IOException
+	 */
+	T handle(InputStream body, long contentLength) throws IOException;
+
+	/**
+	 * 读取整个响应体为字节数组，读取时使用复用的缓冲区，有Content-Length时按长度一次分配
+	 *
+	 * @return 响应体字节
+	 */
+	static BodyHandler<byte[]> ofByteArray() {
+		return BodyDecoder::toByteArray;
+	}
+
+	/**
+	 * 读取整个响应体并按指定字符集解码，只做一次解码
+	 *
+	 * @param charset
+	 *            字符集
+	 * @return 响应体字符串
+	 */
+	static BodyHandler<String> ofString(Charset charset) {
+		return (body, contentLength) -> BodyDecoder.decode(body, contentLength, charset);
+	}
+
+	/**
+	 * 读取整个响应体到复用的缓冲区，以只读ByteBuffer视图交给reader处理，不复制数据
+	 *
+	 * @param reader
+	 *            视图处理函数，视图仅在函数执行期间有效，不能保留引用
+	 * @return reader的返回值
+	 */
+	static <R> BodyHandler<R> ofByteBuffer(Function<ByteBuffer, R> reader) {
+		return (body, contentLength) -> BodyDecoder.read(body, contentLength,
+				buffer -> reader.apply(buffer.asReadOnlyBuffer()));
+	}
+
+	/**
+	 * 把响应体写入输出流，不关闭输出流
+	 *
+	 * @param out
+	 *            输出流
+	 * @return 写入的字节数
+	 */
+	static BodyHandler<Long> ofOutputStream(OutputStream out) {
+		return (body, contentLength) -> {
+			byte[] buffer = new byte[8192];
+			long total = 0;
+			int count;
+			while ((count = body.read(buffer)) != -1) {
+				out.write(buffer, 0, count);
+				total += count;
+			}
+			out.flush();
+			return total;
+		};
+	}
+
+	/**
+	 * 通过直接缓冲区把响应体写入通道，不关闭通道
+	 *
+	 * @param channel
+	 *            目标通道
+	 * @return 写入的字节数
+	 */
+	static BodyHandler<Long> ofChannel(WritableByteChannel channel) {
+		return (body, contentLength) -> {
+			ReadableByteChannel source = Channels.newChannel(body);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+			long total = 0;
+			while (source.read(buffer) != -1) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					total += channel.write(buffer);
+				}
+				buffer.clear();
+			}
+			return total;
+		};
+	}
+
+	/**
+	 * 把响应体写入文件，文件已存在时覆盖
+	 *
+	 * @param file
+	 *            目标文件
+	 * @return 写入的字节数
+	 */
+	static BodyHandler<Long> ofFile(Path file) {
+		return (body, contentLength) -> {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				ReadableByteChannel source = Channels.newChannel(body);
+				long position = 0;
+				long count;
+				// 由FileChannel直接从源通道读取写入文件，不经过调用方缓冲区
+				while ((count = channel.transferFrom(source, position, 1024 * 1024)) > 0) {
+					position += count;
+				}
+				return position;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.cs.mobile.common.utils.net;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * 按槽位无锁复用的数组缓冲区池，{@link BodyDecoder}和{@link QueryEncoder}共用同一实现
+ *
+ * <p>
+ * 从当前线程对应的槽位开始查找足够大的缓冲区，没有时新建，不阻塞，虚拟线程下同样有效；
+ * 超过入池上限的缓冲区用完即丢弃，避免偶发的大缓冲区长期占用内存。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+final class BufferPool<T> {
+	private final AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(
+			Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+	private final IntFunction<T> allocator;
+	private final ToIntFunction<T> length;
+	private final int maxPooledSize;
+
+	private BufferPool(IntFunction<T> allocator, ToIntFunction<T> length, int maxPooledSize) {
+		this.allocator = allocator;
+		this.length = length;
+		this.maxPooledSize = maxPooledSize;
+	}
+
+	static BufferPool<byte[]> ofBytes(int maxPooledSize) {
+		return new BufferPool<>(byte[]::new, buffer -> buffer.length, maxPooledSize);
+	}
+
+	static BufferPool<char[]> ofChars(int maxPooledSize) {
+		return new BufferPool<>(char[]::new, buffer -> buffer.length, maxPooledSize);
+	}
+
+	/**
+	 * 取出长度不小于size的缓冲区，池中没有时新建长度为size的缓冲区
+	 */
+	T acquire(int size) {
+		if (size > maxPooledSize) {
+			return allocator.apply(size);
+		}
+		int start = slot();
+		for (int i = 0; i < slots.length(); i++) {
+			int index = (start + i) % slots.length();
+			T buffer = slots.get(index);
+			if (buffer != null && length.applyAsInt(buffer) >= size && slots.compareAndSet(index, buffer, null)) {
+				return buffer;
+			}
+		}
+		return allocator.apply(size);
+	}
+
+	/**
+	 * 归还缓冲区，归还后调用方不能再使用
+	 */
+	void release(T buffer) {
+		int size = length.applyAsInt(buffer);
+		if (!isPoolable(size)) {
+			return;
+		}
+		int start = slot();
+		for (int i = 0; i < slots.length(); i++) {
+			int index = (start + i) % slots.length();
+			T current = slots.get(index);
+			// 空槽直接放入；槽位已满时替换更小的缓冲区，使池中逐渐保留常用的大小
+			if ((current == null || length.applyAsInt(current) < size) && slots.compareAndSet(index, current, buffer)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 该长度的缓冲区归还时是否入池
+	 */
+	boolean isPoolable(int size) {
+		return size <= maxPooledSize;
+	}
+
+	private int slot() {
+		return (int) (Thread.currentThread().getId() % slots.length());
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.cs.mobile.common.utils.net;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按上游主机或URL前缀的舱壁，限制同时在途的请求数，通过{@link HttpUtil#setBulkhead(Bulkhead)}启用
+ *
+ * <pre>
+ * HttpUtil.setBulkhead(new Bulkhead()
+ * 		.limit("api.partner.com", 20)
+ * 		.limit("https://api.partner.com/v2/reports", 2));
+ * </pre>
+ *
+ * <p>
+ * 与{@link ConcurrencyLimiter}不同，舱壁的上限是固定的，用于隔离慢上游，避免它占满连接池和请求线程。
+ * 舱壁已满时请求立即以{@link UpstreamRejectedException}失败。规则的匹配方式见{@link UpstreamRules}，
+ * 没有匹配规则的请求不限制。
+ *
+ * <p>
+ * 每条规则是一个CAS维护的计数信号量，不会超发，没有锁。在途按收到响应头计算。规则需在启用前声明。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class Bulkhead implements UpstreamGuard {
+	public static final String REJECT_REASON = "bulkhead";
+
+	private final UpstreamRules<Compartment> compartments = new UpstreamRules<>();
+
+	/**
+	 * 声明一条舱壁规则
+	 *
+	 * @param target
+	 *            主机或URL前缀
+	 * @param maxConcurrentCalls
+	 *            最大在途请求数
+	 * @return
+	 */
+	public Bulkhead limit(String target, int maxConcurrentCalls) {
+		if (maxConcurrentCalls < 1) {
+			throw new IllegalArgumentException("invalid bulkhead size: " + maxConcurrentCalls);
+		}
+		compartments.put(target, new Compartment(maxConcurrentCalls));
+		return this;
+	}
+
+	/**
+	 * 某条规则当前的在途请求数
+	 *
+	 * @param target
+	 *            声明规则时的主机或URL前缀
+	 * @return 没有该规则时返回-1
+	 */
+	public int getInFlight(String target) {
+		Compartment compartment = compartments.get(target);
+		return compartment == null ? -1 : compartment.inFlight.get();
+	}
+
+	@Override
+	public void acquire(String host, URI uri) throws UpstreamRejectedException {
+		Compartment compartment = compartments.match(host, uri);
+		if (compartment == null) {
+			return;
+		}
+		if (!compartment.tryAcquire()) {
+			HttpMetrics.recordRejection(host, REJECT_REASON);
+			throw new UpstreamRejectedException(host, REJECT_REASON);
+		}
+		HttpMetrics.recordPermitGranted(host, REJECT_REASON, 0);
+	}
+
+	@Override
+	public void release(String host, URI uri, int statusCode, Throwable error, long latencyNanos) {
+		Compartment compartment = compartments.match(host, uri);
+		if (compartment != null) {
+			compartment.inFlight.decrementAndGet();
+		}
+	}
+
+	private static class Compartment {
+		private final int maxConcurrentCalls;
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		Compartment(int maxConcurrentCalls) {
+			this.maxConcurrentCalls = maxConcurrentCalls;
+		}
+
+		boolean tryAcquire() {
+			int current;
+			do {
+				current = inFlight.get();
+				if (current >= maxConcurrentCalls) {
+					return false;
+				}
+			} while (!inFlight.compareAndSet(current, current + 1));
+			return true;
+		}
+	}
+
+}
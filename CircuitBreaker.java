@@ -0,0 +1,266 @@
+package com.cs.mobile.common.utils.net;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按上游主机熔断，通过{@link HttpUtil#setCircuitBreaker(CircuitBreaker)}启用
+ *
+ * <p>
+ * 关闭状态下按滑动时间窗口(默认10个1秒的桶)统计失败率和慢调用率，任一超过阈值且调用数不少于最小调用数时打开，
+ * 打开期间请求立即以{@link UpstreamRejectedException}失败；经过openMillis后进入半开状态，放行少量探测请求，
+ * 全部成功则关闭，任一失败或慢调用则重新打开。异常和5xx响应计为失败，连接池等待超时和本地中止的请求(对冲落败、批量超时)不计入。
+ *
+ * <p>
+ * 计数使用LongAdder分段累加，状态用CAS切换，放行检查只读一个volatile字段。桶切换时与之并发的少量计数可能丢失，
+ * 对比例统计影响可以忽略。耗时按收到响应头计算。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@Slf4j
+public class CircuitBreaker implements UpstreamGuard {
+	public static final String REJECT_REASON = "circuit-open";
+
+	/** 熔断器状态 */
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final double failureRateThreshold;
+	private final long slowCallNanos;
+	private final double slowCallRateThreshold;
+	private final long openNanos;
+	private final ConcurrentHashMap<String, HostCircuit> circuits = new ConcurrentHashMap<>();
+	private volatile int windowSeconds = 10;
+	private volatile int minimumCalls = 20;
+	private volatile int halfOpenCalls = 5;
+
+	/**
+	 * @param failureRateThreshold
+	 *            失败率阈值，0到1之间
+	 * @param slowCallMillis
+	 *            耗时超过该值(毫秒)为慢调用
+	 * @param slowCallRateThreshold
+	 *            慢调用率阈值，0到1之间，大于等于1表示不按慢调用熔断
+	 * @param openMillis
+	 *            打开状态持续时间(毫秒)，之后进入半开状态
+	 */
+	public CircuitBreaker(double failureRateThreshold, long slowCallMillis, double slowCallRateThreshold,
+			long openMillis) {
+		this.failureRateThreshold = failureRateThreshold;
+		this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+	}
+
+	/**
+	 * 设置统计窗口，需在启用前设置
+	 *
+	 * @param seconds
+	 *            窗口长度(秒)，默认10
+	 * @param minimumCalls
+	 *            窗口内调用数达到该值才计算比率，默认20
+	 * @return
+	 */
+	public CircuitBreaker setWindow(int seconds, int minimumCalls) {
+		this.windowSeconds = Math.max(1, seconds);
+		this.minimumCalls = Math.max(1, minimumCalls);
+		return this;
+	}
+
+	/**
+	 * 设置半开状态放行的探测请求数，默认5
+	 */
+	public CircuitBreaker setHalfOpenCalls(int calls) {
+		this.halfOpenCalls = Math.max(1, calls);
+		return this;
+	}
+
+	/**
+	 * 获取某个上游主机的熔断状态
+	 *
+	 * @param host
+	 *            主机，带非默认端口时形如host:port
+	 * @return 没有请求过该主机时为CLOSED
+	 */
+	public State getState(String host) {
+		HostCircuit circuit = circuits.get(host);
+		return circuit == null ? State.CLOSED : State.values()[circuit.state.get()];
+	}
+
+	@Override
+	public void acquire(String host, URI uri) throws UpstreamRejectedException {
+		if (!circuit(host).tryAcquire()) {
+			HttpMetrics.recordRejection(host, REJECT_REASON);
+			throw new UpstreamRejectedException(host, REJECT_REASON);
+		}
+	}
+
+	@Override
+	public void release(String host, URI uri, int statusCode, Throwable error, long latencyNanos) {
+		HostCircuit circuit = circuit(host);
+		if (error instanceof UpstreamRejectedException || error instanceof ConnectionPoolTimeoutException
+				|| error instanceof RequestCancelledException) {
+			circuit.ignore();
+			return;
+		}
+		boolean failed = error != null || statusCode >= 500;
+		circuit.record(failed, latencyNanos >= slowCallNanos);
+	}
+
+	private HostCircuit circuit(String host) {
+		HostCircuit circuit = circuits.get(host);
+		if (circuit == null) {
+			circuit = circuits.computeIfAbsent(host, key -> new HostCircuit(key, windowSeconds));
+		}
+		return circuit;
+	}
+
+	private class HostCircuit {
+		private final AtomicInteger state = new AtomicInteger(State.CLOSED.ordinal());
+		private final AtomicInteger halfOpenPermits = new AtomicInteger();
+		private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+		private final String host;
+		private final Bucket[] buckets;
+		private volatile long openedAt;
+
+		HostCircuit(String host, int windowSeconds) {
+			this.host = host;
+			buckets = new Bucket[windowSeconds];
+			for (int i = 0; i < windowSeconds; i++) {
+				buckets[i] = new Bucket();
+			}
+		}
+
+		boolean tryAcquire() {
+			int current = state.get();
+			if (current == State.CLOSED.ordinal()) {
+				return true;
+			}
+			if (current == State.OPEN.ordinal()) {
+				if (System.nanoTime() - openedAt < openNanos) {
+					return false;
+				}
+				// 只有切换成功的线程设置探测名额，并发切换不会放行多于halfOpenCalls个请求
+				if (state.compareAndSet(State.OPEN.ordinal(), State.HALF_OPEN.ordinal())) {
+					halfOpenSuccesses.set(0);
+					halfOpenPermits.set(halfOpenCalls - 1);
+					log.info("circuit half-open, probing upstream {}", host);
+					return true;
+				}
+			}
+			return halfOpenPermits.getAndDecrement() > 0;
+		}
+
+		/**
+		 * 请求没有发出，归还半开状态的探测名额
+		 */
+		void ignore() {
+			if (state.get() == State.HALF_OPEN.ordinal()) {
+				halfOpenPermits.incrementAndGet();
+			}
+		}
+
+		void record(boolean failed, boolean slow) {
+			int current = state.get();
+			if (current == State.HALF_OPEN.ordinal()) {
+				if (failed || slow) {
+					trip(State.HALF_OPEN);
+				} else if (halfOpenSuccesses.incrementAndGet() >= halfOpenCalls) {
+					for (Bucket bucket : buckets) {
+						bucket.reset();
+					}
+					if (state.compareAndSet(State.HALF_OPEN.ordinal(), State.CLOSED.ordinal())) {
+						log.info("circuit closed, upstream {} recovered", host);
+					}
+				}
+				return;
+			}
+			long epoch = System.nanoTime() / BUCKET_NANOS;
+			Bucket bucket = buckets[(int) Math.floorMod(epoch, (long) buckets.length)];
+			bucket.roll(epoch);
+			bucket.calls.increment();
+			if (failed) {
+				bucket.failures.increment();
+			}
+			if (slow) {
+				bucket.slowCalls.increment();
+			}
+			// 只有失败或慢调用才可能触发熔断，成功调用不必汇总窗口
+			if (current == State.CLOSED.ordinal() && (failed || slow)) {
+				evaluate(epoch);
+			}
+		}
+
+		private void evaluate(long epoch) {
+			long calls = 0;
+			long failures = 0;
+			long slowCalls = 0;
+			for (Bucket bucket : buckets) {
+				if (epoch - bucket.epoch < buckets.length) {
+					calls += bucket.calls.sum();
+					failures += bucket.failures.sum();
+					slowCalls += bucket.slowCalls.sum();
+				}
+			}
+			if (calls < minimumCalls) {
+				return;
+			}
+			if ((double) failures / calls >= failureRateThreshold
+					|| (slowCallRateThreshold < 1 && (double) slowCalls / calls >= slowCallRateThreshold)) {
+				trip(State.CLOSED);
+			}
+		}
+
+		private void trip(State expected) {
+			// 先写打开时间再切换状态，其他线程看到OPEN时打开时间已是最新
+			openedAt = System.nanoTime();
+			halfOpenPermits.set(0);
+			if (state.compareAndSet(expected.ordinal(), State.OPEN.ordinal())) {
+				log.error("circuit open for upstream {}, rejecting calls for {}ms", host,
+						TimeUnit.NANOSECONDS.toMillis(openNanos));
+			}
+		}
+	}
+
+	private static class Bucket {
+		private static final AtomicLongFieldUpdater<Bucket> EPOCH = AtomicLongFieldUpdater.newUpdater(Bucket.class,
+				"epoch");
+
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final LongAdder slowCalls = new LongAdder();
+		private volatile long epoch = Long.MIN_VALUE / 2;
+
+		/**
+		 * 桶对应的秒数变化时由一个线程清零
+		 */
+		void roll(long current) {
+			long previous = epoch;
+			if (previous != current && EPOCH.compareAndSet(this, previous, current)) {
+				calls.reset();
+				failures.reset();
+				slowCalls.reset();
+			}
+		}
+
+		void reset() {
+			epoch = Long.MIN_VALUE / 2;
+			calls.reset();
+			failures.reset();
+			slowCalls.reset();
+		}
+	}
+
+}
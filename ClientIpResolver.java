@@ -0,0 +1,543 @@
+package com.cs.mobile.common.utils.net;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 根据可信代理网段解析请求的客户端IP
+ *
+ * <p>
+ * 只有直接连接的地址(request.getRemoteAddr())属于可信代理时才读取转发头，依次使用X-Forwarded-For、
+ * Forwarded(RFC 7239的for参数)、X-Real-IP。转发链从右向左逐跳检查，跳过可信代理，第一个不可信的地址就是客户端；
+ * 遇到无法解析的值(例如unknown、混淆标识)时停止，返回它右边最后一个可信代理；所有跳都可信时返回最左边的地址。
+ * 客户端自己伪造的X-Forwarded-For位于链的左侧，不会被采用。同名转发头有多行时按RFC 7230 3.2.2视为按顺序逗号连接的一个列表，
+ * 从最后一行的最右边开始检查。
+ *
+ * <p>
+ * 可信代理网段保存在IPv4和IPv6两棵二进制前缀树中。默认信任回环、私有网络、链路本地和100.64.0.0/10(云负载均衡常用)，
+ * 可通过系统属性http.trustedProxies(逗号分隔的CIDR)替换。转发头在原字符串上解析，不创建子串；
+ * 地址规范化为点分十进制或RFC 5952格式(IPv4映射地址按IPv4，::1按127.0.0.1)，规范化的字符串按地址缓存，
+ * 命中缓存时整个解析过程不分配内存。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class ClientIpResolver {
+	private static final String[] DEFAULT_TRUSTED_PROXIES = { "127.0.0.0/8", "10.0.0.0/8", "172.16.0.0/12",
+			"192.168.0.0/16", "100.64.0.0/10", "169.254.0.0/16", "::1/128", "fc00::/7", "fe80::/10" };
+	private static final ClientIpResolver DEFAULT = new ClientIpResolver(defaultTrustedProxies());
+	private static final ThreadLocal<Address> SCRATCH = ThreadLocal.withInitial(Address::new);
+	private static final int CACHE_BITS = 12;
+
+	private final PrefixTrie trustedV4 = new PrefixTrie(32);
+	private final PrefixTrie trustedV6 = new PrefixTrie(128);
+	private final Normalized[] cache = new Normalized[1 << CACHE_BITS];
+
+	/**
+	 * @param trustedProxies
+	 *            可信代理的地址或CIDR网段，例如10.0.0.0/8、2400:3200::/32
+	 */
+	public ClientIpResolver(String... trustedProxies) {
+		Address address = new Address();
+		for (String cidr : trustedProxies) {
+			String value = cidr.trim();
+			int slash = value.indexOf('/');
+			int end = slash < 0 ? value.length() : slash;
+			if (!parse(value, 0, end, address)) {
+				throw new IllegalArgumentException("invalid trusted proxy: " + cidr);
+			}
+			int width = address.v4 ? 32 : 128;
+			int prefixLength;
+			try {
+				prefixLength = slash < 0 ? width : Integer.parseInt(value.substring(slash + 1));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("invalid trusted proxy: " + cidr);
+			}
+			if (address.v4 && value.lastIndexOf(':', end) >= 0) {
+				// IPv4映射地址的网段，例如::ffff:10.0.0.0/104
+				prefixLength -= 96;
+			}
+			if (prefixLength < 0 || prefixLength > width) {
+				throw new IllegalArgumentException("invalid trusted proxy: " + cidr);
+			}
+			(address.v4 ? trustedV4 : trustedV6).add(address.hi, address.lo, prefixLength);
+		}
+	}
+
+	/**
+	 * {@link HttpUtil#getRemoteHost(HttpServletRequest)}默认使用的实例
+	 */
+	public static ClientIpResolver getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * 解析请求的客户端IP
+	 *
+	 * @param request
+	 * @return 规范化的地址；直接连接的地址无法解析时原样返回
+	 */
+	public String resolve(HttpServletRequest request) {
+		String remoteAddr = request.getRemoteAddr();
+		Address address = SCRATCH.get();
+		if (remoteAddr == null || !parse(remoteAddr, 0, remoteAddr.length(), address)) {
+			return remoteAddr;
+		}
+		if (!isTrusted(address)) {
+			return normalize(address);
+		}
+		String ip = walk(address, request.getHeaders("X-Forwarded-For"), false);
+		if (ip == null) {
+			ip = walk(address, request.getHeaders("Forwarded"), true);
+		}
+		return ip != null ? ip : resolveRealIp(address, request.getHeader("X-Real-IP"));
+	}
+
+	/**
+	 * 按直接连接的地址和转发头解析客户端IP，转发头可以为null；同名头有多行时以逗号连接后传入
+	 *
+	 * @see #resolve(HttpServletRequest)
+	 */
+	public String resolve(String remoteAddr, String forwardedFor, String forwarded, String realIp) {
+		Address address = SCRATCH.get();
+		if (remoteAddr == null || !parse(remoteAddr, 0, remoteAddr.length(), address)) {
+			return remoteAddr;
+		}
+		if (!isTrusted(address)) {
+			return normalize(address);
+		}
+		return resolveForwarded(address, forwardedFor, forwarded, realIp);
+	}
+
+	/**
+	 * 地址是否属于可信代理
+	 */
+	public boolean isTrusted(String ip) {
+		Address address = SCRATCH.get();
+		return ip != null && parse(ip, 0, ip.length(), address) && isTrusted(address);
+	}
+
+	/**
+	 * 规范化地址
+	 *
+	 * @return 无法解析时返回null
+	 */
+	public String normalize(String ip) {
+		Address address = SCRATCH.get();
+		return ip != null && parse(ip, 0, ip.length(), address) ? normalize(address) : null;
+	}
+
+	/**
+	 * address为可信的直接连接地址
+	 */
+	private String resolveForwarded(Address address, String forwardedFor, String forwarded, String realIp) {
+		if (forwardedFor != null && !forwardedFor.isEmpty()) {
+			return walk(address, forwardedFor, false);
+		}
+		if (forwarded != null && !forwarded.isEmpty()) {
+			return walk(address, forwarded, true);
+		}
+		return resolveRealIp(address, realIp);
+	}
+
+	private String resolveRealIp(Address address, String realIp) {
+		if (realIp != null && !realIp.isEmpty()) {
+			address.save();
+			if (!parseHop(realIp, 0, realIp.length(), address)) {
+				address.restore();
+			}
+		}
+		return normalize(address);
+	}
+
+	/**
+	 * 从右向左检查转发链，address开始时为可信的直接连接地址，结束时为客户端地址
+	 */
+	private String walk(Address address, String header, boolean forwarded) {
+		walkLine(address, header, forwarded);
+		return normalize(address);
+	}
+
+	/**
+	 * 从最后一行向前检查多行的转发头，只有一行(通常情况)时不复制
+	 *
+	 * @return 没有非空的行时返回null
+	 */
+	private String walk(Address address, Enumeration<String> lines, boolean forwarded) {
+		if (lines == null || !lines.hasMoreElements()) {
+			return null;
+		}
+		String first = lines.nextElement();
+		if (!lines.hasMoreElements()) {
+			return first == null || first.isEmpty() ? null : walk(address, first, forwarded);
+		}
+		List<String> all = new ArrayList<>(4);
+		all.add(first);
+		while (lines.hasMoreElements()) {
+			all.add(lines.nextElement());
+		}
+		boolean found = false;
+		for (int i = all.size() - 1; i >= 0; i--) {
+			String line = all.get(i);
+			if (line == null || line.isEmpty()) {
+				continue;
+			}
+			found = true;
+			if (!walkLine(address, line, forwarded)) {
+				break;
+			}
+		}
+		return found ? normalize(address) : null;
+	}
+
+	/**
+	 * 从右向左检查一行转发头
+	 *
+	 * @return 这一行的所有跳都可信时返回true，需要继续检查前一行
+	 */
+	private boolean walkLine(Address address, String header, boolean forwarded) {
+		int end = header.length();
+		while (end > 0) {
+			int comma = header.lastIndexOf(',', end - 1);
+			int start = skipSpaces(header, comma + 1, end);
+			int stop = trimSpaces(header, start, end);
+			end = comma;
+			if (start == stop) {
+				continue;
+			}
+			address.save();
+			boolean valid = forwarded ? parseForwardedFor(header, start, stop, address)
+					: parseHop(header, start, stop, address);
+			if (!valid) {
+				address.restore();
+				return false;
+			}
+			if (!isTrusted(address)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isTrusted(Address address) {
+		return address.v4 ? trustedV4.contains(address.hi, 0) : trustedV6.contains(address.hi, address.lo);
+	}
+
+	/**
+	 * 按地址缓存规范化的字符串，缓存按地址散列直接映射，冲突时覆盖
+	 */
+	private String normalize(Address address) {
+		long mixed = (address.hi ^ Long.rotateLeft(address.lo, 17) ^ (address.v4 ? 1 : 0)) * 0x9E3779B97F4A7C15L;
+		int index = (int) (mixed >>> (64 - CACHE_BITS));
+		Normalized cached = cache[index];
+		if (cached != null && cached.hi == address.hi && cached.lo == address.lo && cached.v4 == address.v4) {
+			return cached.text;
+		}
+		String text = format(address);
+		cache[index] = new Normalized(address.hi, address.lo, address.v4, text);
+		return text;
+	}
+
+	/**
+	 * Forwarded头的一个元素中的for参数，值可以带引号
+	 */
+	private static boolean parseForwardedFor(String header, int start, int end, Address address) {
+		int pair = start;
+		while (pair < end) {
+			int next = header.indexOf(';', pair);
+			if (next < 0 || next > end) {
+				next = end;
+			}
+			int from = skipSpaces(header, pair, next);
+			if (next - from > 4 && header.regionMatches(true, from, "for=", 0, 4)) {
+				from = skipSpaces(header, from + 4, next);
+				int to = trimSpaces(header, from, next);
+				if (to - from >= 2 && header.charAt(from) == '"' && header.charAt(to - 1) == '"') {
+					from++;
+					to--;
+				}
+				return parseHop(header, from, to, address);
+			}
+			pair = next + 1;
+		}
+		return false;
+	}
+
+	/**
+	 * 转发链中的一跳：IPv4、IPv6、[IPv6]，可以带端口
+	 */
+	private static boolean parseHop(String s, int start, int end, Address address) {
+		start = skipSpaces(s, start, end);
+		end = trimSpaces(s, start, end);
+		if (start < end && s.charAt(start) == '[') {
+			int close = s.indexOf(']', start);
+			if (close < 0 || close >= end || close + 1 < end && s.charAt(close + 1) != ':') {
+				return false;
+			}
+			return parseV6(s, start + 1, close, address);
+		}
+		int colon = s.indexOf(':', start);
+		if (colon < 0 || colon >= end) {
+			return parseV4(s, start, end, address);
+		}
+		int second = s.indexOf(':', colon + 1);
+		if (second < 0 || second >= end) {
+			// IPv4:端口
+			return parseV4(s, start, colon, address);
+		}
+		return parseV6(s, start, end, address);
+	}
+
+	/**
+	 * 解析单个地址，不带端口和方括号
+	 */
+	private static boolean parse(String s, int start, int end, Address address) {
+		int colon = s.indexOf(':', start);
+		return colon >= 0 && colon < end ? parseV6(s, start, end, address) : parseV4(s, start, end, address);
+	}
+
+	private static boolean parseV4(String s, int start, int end, Address address) {
+		long value = parseV4Bits(s, start, end);
+		if (value < 0) {
+			return false;
+		}
+		address.set(value << 32, 0, true);
+		return true;
+	}
+
+	/**
+	 * @return 32位地址，格式错误时返回-1
+	 */
+	private static long parseV4Bits(String s, int start, int end) {
+		long value = 0;
+		int octets = 0;
+		int i = start;
+		while (octets < 4) {
+			int octet = 0;
+			int digits = 0;
+			while (i < end && digits < 4) {
+				char c = s.charAt(i);
+				if (c < '0' || c > '9') {
+					break;
+				}
+				octet = octet * 10 + (c - '0');
+				digits++;
+				i++;
+			}
+			if (digits == 0 || digits > 3 || octet > 255) {
+				return -1;
+			}
+			value = value << 8 | octet;
+			octets++;
+			if (octets < 4) {
+				if (i >= end || s.charAt(i) != '.') {
+					return -1;
+				}
+				i++;
+			}
+		}
+		return i == end ? value : -1;
+	}
+
+	private static boolean parseV6(String s, int start, int end, Address address) {
+		int zone = s.indexOf('%', start);
+		if (zone >= 0 && zone < end) {
+			end = zone;
+		}
+		int[] groups = address.groups;
+		int count = 0;
+		int gap = -1;
+		int i = start;
+		if (end - start >= 2 && s.charAt(i) == ':' && s.charAt(i + 1) == ':') {
+			gap = 0;
+			i += 2;
+		} else if (i < end && s.charAt(i) == ':') {
+			return false;
+		}
+		while (i < end) {
+			int value = 0;
+			int digits = 0;
+			int j = i;
+			while (j < end && digits < 5) {
+				int hex = hex(s.charAt(j));
+				if (hex < 0) {
+					break;
+				}
+				value = value << 4 | hex;
+				digits++;
+				j++;
+			}
+			if (j < end && s.charAt(j) == '.') {
+				// 末尾内嵌的IPv4
+				long v4 = count <= 6 ? parseV4Bits(s, i, end) : -1;
+				if (v4 < 0) {
+					return false;
+				}
+				groups[count++] = (int) (v4 >>> 16);
+				groups[count++] = (int) (v4 & 0xffff);
+				break;
+			}
+			if (digits == 0 || digits > 4 || count == 8) {
+				return false;
+			}
+			groups[count++] = value;
+			if (j == end) {
+				break;
+			}
+			if (s.charAt(j) != ':' || ++j == end) {
+				return false;
+			}
+			if (s.charAt(j) == ':') {
+				if (gap >= 0) {
+					return false;
+				}
+				gap = count;
+				j++;
+			}
+			i = j;
+		}
+		if (gap < 0 ? count != 8 : count > 7) {
+			return false;
+		}
+		long hi = 0;
+		long lo = 0;
+		int zeros = 8 - count;
+		for (int k = 0; k < 8; k++) {
+			long group = gap < 0 || k < gap ? groups[k] : k < gap + zeros ? 0 : groups[k - zeros];
+			if (k < 4) {
+				hi = hi << 16 | group;
+			} else {
+				lo = lo << 16 | group;
+			}
+		}
+		if (hi == 0 && lo >>> 32 == 0xffffL) {
+			// IPv4映射地址
+			address.set((lo & 0xffffffffL) << 32, 0, true);
+		} else {
+			address.set(hi, lo, false);
+		}
+		return true;
+	}
+
+	private static int hex(char c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		char lower = (char) (c | 0x20);
+		return lower >= 'a' && lower <= 'f' ? lower - 'a' + 10 : -1;
+	}
+
+	private static String format(Address address) {
+		StringBuilder text = new StringBuilder(39);
+		if (address.v4) {
+			long value = address.hi >>> 32;
+			return text.append(value >>> 24).append('.').append(value >>> 16 & 0xff).append('.')
+					.append(value >>> 8 & 0xff).append('.').append(value & 0xff).toString();
+		}
+		if (address.hi == 0 && address.lo == 1) {
+			// 与原实现一致，IPv6回环地址按IPv4返回
+			return "127.0.0.1";
+		}
+		// RFC 5952：最长的一段(至少两组)连续0压缩为::，长度相同时取第一段
+		int bestStart = -1;
+		int bestLength = 1;
+		for (int k = 0; k < 8;) {
+			if (group(address, k) != 0) {
+				k++;
+				continue;
+			}
+			int run = k;
+			while (run < 8 && group(address, run) == 0) {
+				run++;
+			}
+			if (run - k > bestLength) {
+				bestStart = k;
+				bestLength = run - k;
+			}
+			k = run;
+		}
+		for (int k = 0; k < 8; k++) {
+			if (k == bestStart) {
+				text.append("::");
+				k += bestLength - 1;
+				continue;
+			}
+			if (text.length() > 0 && text.charAt(text.length() - 1) != ':') {
+				text.append(':');
+			}
+			text.append(Integer.toHexString(group(address, k)));
+		}
+		return text.toString();
+	}
+
+	private static int group(Address address, int index) {
+		long half = index < 4 ? address.hi : address.lo;
+		return (int) (half >>> (48 - (index & 3) * 16)) & 0xffff;
+	}
+
+	private static int skipSpaces(String s, int start, int end) {
+		while (start < end && (s.charAt(start) == ' ' || s.charAt(start) == '\t')) {
+			start++;
+		}
+		return start;
+	}
+
+	private static int trimSpaces(String s, int start, int end) {
+		while (end > start && (s.charAt(end - 1) == ' ' || s.charAt(end - 1) == '\t')) {
+			end--;
+		}
+		return end;
+	}
+
+	private static String[] defaultTrustedProxies() {
+		String configured = System.getProperty("http.trustedProxies");
+		return configured == null || configured.trim().isEmpty() ? DEFAULT_TRUSTED_PROXIES : configured.split(",");
+	}
+
+	/**
+	 * 每个线程复用的解析结果，save/restore保存上一跳以便遇到无法解析的值时退回
+	 */
+	private static class Address {
+		private final int[] groups = new int[8];
+		private long hi;
+		private long lo;
+		private boolean v4;
+		private long savedHi;
+		private long savedLo;
+		private boolean savedV4;
+
+		void set(long hi, long lo, boolean v4) {
+			this.hi = hi;
+			this.lo = lo;
+			this.v4 = v4;
+		}
+
+		void save() {
+			savedHi = hi;
+			savedLo = lo;
+			savedV4 = v4;
+		}
+
+		void restore() {
+			set(savedHi, savedLo, savedV4);
+		}
+	}
+
+	private static class Normalized {
+		private final long hi;
+		private final long lo;
+		private final boolean v4;
+		private final String text;
+
+		Normalized(long hi, long lo, boolean v4, String text) {
+			this.hi = hi;
+			this.lo = lo;
+			this.v4 = v4;
+			this.text = text;
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+package com.cs.mobile.common.utils.net;
+
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+/**
+ * 按上游主机自适应调整的并发上限，通过{@link HttpUtil#setConcurrencyLimiter(ConcurrencyLimiter)}启用
+ *
+ * <p>
+ * 超过上限的请求立即以{@link UpstreamRejectedException}失败而不是排队等待。上限按梯度算法调整：
+ * 以长期平均耗时乘以容忍系数与本次耗时之比作为梯度(0.5到1之间)，新上限为当前上限乘以梯度再加上排队余量sqrt(上限)，
+ * 耗时上升时收缩、平稳时缓慢增长；超时、429和503视为丢弃信号，上限按乘性因子立即下降(AIMD)。
+ * 在途请求数不到上限一半时不增长，避免低负载时上限无意义地膨胀。
+ *
+ * <p>
+ * 在途计数和上限都用原子变量维护，放行检查是一次原子自增和一次volatile读。耗时按收到响应头计算。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class ConcurrencyLimiter implements UpstreamGuard {
+	public static final String REJECT_REASON = "concurrency-limit";
+
+	/** 长期平均耗时的平滑窗口(样本数) */
+	private static final int LONG_WINDOW = 600;
+	private static final double TOLERANCE = 1.5;
+	private static final double SMOOTHING = 0.2;
+	private static final double BACKOFF_RATIO = 0.9;
+
+	private final int initialLimit;
+	private final int minLimit;
+	private final int maxLimit;
+	private final ConcurrentHashMap<String, HostLimit> limits = new ConcurrentHashMap<>();
+
+	/**
+	 * @param initialLimit
+	 *            初始并发上限
+	 * @param minLimit
+	 *            并发上限的最小值
+	 * @param maxLimit
+	 *            并发上限的最大值
+	 */
+	public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+		if (minLimit < 1 || minLimit > maxLimit) {
+			throw new IllegalArgumentException("invalid limit range: " + minLimit + "-" + maxLimit);
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.initialLimit = Math.min(Math.max(initialLimit, minLimit), maxLimit);
+	}
+
+	/**
+	 * 某个上游主机当前的并发上限
+	 *
+	 * @param host
+	 *            主机，带非默认端口时形如host:port
+	 * @return 没有请求过该主机时为初始上限
+	 */
+	public int getLimit(String host) {
+		HostLimit limit = limits.get(host);
+		return limit == null ? initialLimit : (int) limit.limit();
+	}
+
+	/**
+	 * 某个上游主机当前的在途请求数
+	 */
+	public int getInFlight(String host) {
+		HostLimit limit = limits.get(host);
+		return limit == null ? 0 : limit.inFlight.get();
+	}
+
+	@Override
+	public void acquire(String host, URI uri) throws UpstreamRejectedException {
+		HostLimit limit = hostLimit(host);
+		if (limit.inFlight.incrementAndGet() > (int) limit.limit()) {
+			limit.inFlight.decrementAndGet();
+			HttpMetrics.recordRejection(host, REJECT_REASON);
+			throw new UpstreamRejectedException(host, REJECT_REASON);
+		}
+	}
+
+	@Override
+	public void release(String host, URI uri, int statusCode, Throwable error, long latencyNanos) {
+		HostLimit limit = hostLimit(host);
+		int inFlight = limit.inFlight.getAndDecrement();
+		if (error instanceof UpstreamRejectedException || error instanceof ConnectionPoolTimeoutException
+				|| error instanceof RequestCancelledException) {
+			return;
+		}
+		boolean dropped = statusCode == 429 || statusCode == 503 || error instanceof SocketTimeoutException
+				|| error instanceof ConnectTimeoutException;
+		if (dropped) {
+			limit.update(current -> current * BACKOFF_RATIO);
+		} else if (error == null) {
+			limit.sample(latencyNanos, inFlight);
+		}
+	}
+
+	private HostLimit hostLimit(String host) {
+		HostLimit limit = limits.get(host);
+		if (limit == null) {
+			limit = limits.computeIfAbsent(host, key -> new HostLimit(initialLimit));
+		}
+		return limit;
+	}
+
+	private class HostLimit {
+		private final AtomicInteger inFlight = new AtomicInteger();
+		/** 上限以double的位模式存放，CAS更新 */
+		private final AtomicLong limitBits;
+		/** 长期平均耗时(纳秒)，并发更新时后写覆盖先写，对平滑平均值没有影响 */
+		private volatile double longRtt;
+
+		HostLimit(int initialLimit) {
+			this.limitBits = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+		}
+
+		double limit() {
+			return Double.longBitsToDouble(limitBits.get());
+		}
+
+		void sample(long rttNanos, int inFlight) {
+			double rtt = Math.max(1, rttNanos);
+			double previous = longRtt;
+			double average = previous == 0 ? rtt : previous + (rtt - previous) / LONG_WINDOW;
+			// 耗时持续回落时长期平均跟随下降，避免旧的高耗时让梯度一直为1
+			if (average > rtt * 2) {
+				average = (average + rtt) / 2;
+			}
+			longRtt = average;
+
+			if (inFlight < limit() / 2) {
+				return;
+			}
+			double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * average / rtt));
+			update(current -> {
+				double target = current * gradient + Math.sqrt(current);
+				return current * (1 - SMOOTHING) + target * SMOOTHING;
+			});
+		}
+
+		void update(DoubleUnaryOperator function) {
+			long previousBits;
+			double next;
+			do {
+				previousBits = limitBits.get();
+				double proposed = function.applyAsDouble(Double.longBitsToDouble(previousBits));
+				next = Math.min(maxLimit, Math.max(minLimit, proposed));
+				if (Double.doubleToRawLongBits(next) == previousBits) {
+					return;
+				}
+			} while (!limitBits.compareAndSet(previousBits, Double.doubleToRawLongBits(next)));
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.cs.mobile.common.utils.net;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.http.client.CookieStore;
+import org.apache.http.cookie.Cookie;
+
+/**
+ * 会话的cookie存储，按名称、域和路径唯一，可被并发请求同时读写
+ *
+ * <p>
+ * 域、路径、Secure和过期时间的匹配由HttpClient按RFC 6265规则在发送请求时完成；
+ * 收到已过期的同名cookie(服务端删除cookie)时移除原cookie。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+final class CookieJar implements CookieStore {
+	private final ConcurrentHashMap<String, Cookie> cookies = new ConcurrentHashMap<>();
+
+	@Override
+	public void addCookie(Cookie cookie) {
+		if (cookie == null) {
+			return;
+		}
+		String key = key(cookie);
+		if (cookie.isExpired(new Date())) {
+			cookies.remove(key);
+		} else {
+			cookies.put(key, cookie);
+		}
+	}
+
+	@Override
+	public List<Cookie> getCookies() {
+		return new ArrayList<>(cookies.values());
+	}
+
+	@Override
+	public boolean clearExpired(Date date) {
+		return cookies.values().removeIf(cookie -> cookie.isExpired(date));
+	}
+
+	@Override
+	public void clear() {
+		cookies.clear();
+	}
+
+	boolean isEmpty() {
+		return cookies.isEmpty();
+	}
+
+	private static String key(Cookie cookie) {
+		String domain = cookie.getDomain() == null ? "" : cookie.getDomain().toLowerCase(Locale.ROOT);
+		String path = cookie.getPath() == null ? "/" : cookie.getPath();
+		return cookie.getName() + ';' + domain + ';' + path;
+	}
+
+	@Override
+	public String toString() {
+		return cookies.values().toString();
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.cs.mobile.common.utils.net;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+/**
+ * 共享连接池(同步和异步)使用的DNS缓存，按TTL过期
+ *
+ * <p>
+ * TTL通过系统属性http.dns.ttl配置(毫秒)，默认60000。过期后由一个线程重新解析，解析期间其他线程继续使用旧地址，
+ * 新建连接不会因为并发解析同一主机而排队；解析失败时抛出UnknownHostException，下一次调用再重试。
+ * 启动时可通过{@link HttpWarmup}预先解析。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class DnsCache implements DnsResolver {
+	private static final DnsCache INSTANCE = new DnsCache(Long.getLong("http.dns.ttl", 60000L),
+			SystemDefaultDnsResolver.INSTANCE);
+
+	private final long ttlNanos;
+	private final DnsResolver delegate;
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * @param ttlMillis
+	 *            缓存时间(毫秒)
+	 * @param delegate
+	 *            实际的解析器
+	 */
+	public DnsCache(long ttlMillis, DnsResolver delegate) {
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		this.delegate = delegate;
+	}
+
+	/**
+	 * 共享连接池使用的实例
+	 *
+	 * @return
+	 */
+	public static DnsCache getInstance() {
+		return INSTANCE;
+	}
+
+	@Override
+	public InetAddress[] resolve(String host) throws UnknownHostException {
+		String key = host.toLowerCase(Locale.ROOT);
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return refresh(key).clone();
+		}
+		if (System.nanoTime() - entry.expiresAt >= 0 && entry.refreshing.compareAndSet(false, true)) {
+			try {
+				return refresh(key).clone();
+			} finally {
+				entry.refreshing.set(false);
+			}
+		}
+		return entry.addresses.clone();
+	}
+
+	/**
+	 * 立即重新解析并缓存
+	 *
+	 * @param host
+	 *            主机名
+	 * @return 解析到的地址
+	 * @throws UnknownHostException
+	 */
+	public InetAddress[] refresh(String host) throws UnknownHostException {
+		InetAddress[] addresses = delegate.resolve(host);
+		entries.put(host.toLowerCase(Locale.ROOT), new Entry(addresses, System.nanoTime() + ttlNanos));
+		return addresses;
+	}
+
+	/**
+	 * 清除某个主机的缓存，例如上游切换了地址
+	 *
+	 * @param host
+	 *            主机名
+	 */
+	public void invalidate(String host) {
+		entries.remove(host.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * 清除所有缓存
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	private static class Entry {
+		private final InetAddress[] addresses;
+		private final long expiresAt;
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		Entry(InetAddress[] addresses, long expiresAt) {
+			this.addresses = addresses;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
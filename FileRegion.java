@@ -0,0 +1,132 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 待上传文件中的一段，发送时才读取，不把文件读入堆内存
+ *
+ * <p>
+ * HttpClient的连接只提供OutputStream，无法用sendfile把文件直接交给套接字；这里按位置把文件读入一个64KB缓冲区后整块写出
+ * (大于连接缓冲区的写入直接落到套接字)，内存占用与文件大小无关。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+final class FileRegion {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Path file;
+	private final FileChannel channel;
+	private final long position;
+	private final long count;
+
+	/**
+	 * 整个文件，每次发送时打开
+	 */
+	FileRegion(Path file) throws IOException {
+		this.file = file;
+		this.channel = null;
+		this.position = 0;
+		this.count = Files.size(file);
+	}
+
+	/**
+	 * 调用方打开的通道中的一段，按位置读取，不改变通道的位置，也不关闭通道
+	 */
+	FileRegion(FileChannel channel, long position, long count) throws IOException {
+		if (position < 0 || count < 0 || position + count > channel.size()) {
+			throw new IllegalArgumentException(
+					"invalid file region: position " + position + ", count " + count + ", size " + channel.size());
+		}
+		this.file = null;
+		this.channel = channel;
+		this.position = position;
+		this.count = count;
+	}
+
+	long count() {
+		return count;
+	}
+
+	void writeTo(OutputStream out) throws IOException {
+		if (channel != null) {
+			transfer(channel, out);
+			return;
+		}
+		try (FileChannel opened = FileChannel.open(file, StandardOpenOption.READ)) {
+			transfer(opened, out);
+		}
+	}
+
+	/**
+	 * 以输入流读取，供只接受输入流的传输层使用
+	 */
+	InputStream openStream() throws IOException {
+		FileChannel source = channel != null ? channel : FileChannel.open(file, StandardOpenOption.READ);
+		return new RegionInputStream(source, channel == null);
+	}
+
+	private void transfer(FileChannel source, OutputStream out) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long offset = position;
+		long remaining = count;
+		ByteBuffer view = ByteBuffer.wrap(buffer);
+		while (remaining > 0) {
+			view.clear().limit((int) Math.min(buffer.length, remaining));
+			int read = source.read(view, offset);
+			if (read < 0) {
+				throw new EOFException("file truncated during upload, " + remaining + " bytes missing");
+			}
+			out.write(buffer, 0, read);
+			offset += read;
+			remaining -= read;
+		}
+	}
+
+	private class RegionInputStream extends InputStream {
+		private final FileChannel source;
+		private final boolean closeSource;
+		private long offset = position;
+
+		RegionInputStream(FileChannel source, boolean closeSource) {
+			this.source = source;
+			this.closeSource = closeSource;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] one = new byte[1];
+			return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			long remaining = position + count - offset;
+			if (remaining <= 0) {
+				return -1;
+			}
+			int read = source.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), offset);
+			if (read < 0) {
+				throw new EOFException("file truncated during upload, " + remaining + " bytes missing");
+			}
+			offset += read;
+			return read;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closeSource) {
+				source.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,591 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.ProtocolException;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.CircularRedirectException;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.RedirectException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于JDK HttpClient的HTTP/2传输层：https通过ALPN协商h2，http通过Upgrade: h2c升级，
+ * 对端不支持时自动回落到HTTP/1.1
+ *
+ * <p>
+ * 同一主机的并发请求在每个客户端的一条连接上多路复用，connectionsPerHost个客户端轮流使用，
+ * 把请求分散到少量连接上，避免单连接的流控窗口和队头阻塞成为瓶颈。连接建立前同时到达的请求可能各自建连，
+ * 高并发场景宜先串行发送connectionsPerHost个请求预热。需要JDK 11及以上。
+ *
+ * <p>
+ * GET、HEAD请求与共享连接池一样跟随重定向。带有当前JDK客户端不允许设置的请求头(JDK 11中的Referer、Origin等)的请求
+ * 不由本传输层发送，仍走共享连接池，保证请求头不会被丢弃。
+ *
+ * <pre>
+ * HttpUtil.setTransport(new Http2Transport("api.example.com"));
+ * </pre>
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@Slf4j
+public class Http2Transport implements HttpTransport {
+	private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+	private static final ProtocolVersion HTTP_1_1 = new ProtocolVersion("HTTP", 1, 1);
+	private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+	private static final long MAX_BUFFERED_BODY = 64 * 1024;
+
+	/** 由JDK客户端自行生成的请求头，以及HTTP/2中不允许的连接级请求头，调用方设置的值被忽略 */
+	private static final Set<String> CONNECTION_HEADERS = new HashSet<>(Arrays.asList("connection", "content-length",
+			"expect", "host", "keep-alive", "proxy-connection", "te", "transfer-encoding", "upgrade"));
+	/** 当前JDK客户端不允许设置的端到端请求头(JDK 11不允许，JDK 12起允许)，带有这些请求头的请求交给共享连接池 */
+	private static final Set<String> UNSENDABLE_HEADERS = unsendableHeaders("date", "from", "origin", "referer", "via",
+			"warning");
+	private static final Set<String> WARNED_HEADERS = ConcurrentHashMap.newKeySet();
+
+	private final Set<String> hosts;
+	private final HttpClient[] clients;
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * 使用JDK默认TLS配置，每个主机一条连接
+	 *
+	 * @param hosts
+	 *            使用HTTP/2的主机，带非默认端口时形如host:port
+	 */
+	public Http2Transport(String... hosts) {
+		this(Arrays.asList(hosts), null, 1, (int) DEFAULT_CONNECT_TIMEOUT.toMillis());
+	}
+
+	/**
+	 * @param hosts
+	 *            使用HTTP/2的主机，带非默认端口时形如host:port；为空时所有主机都使用HTTP/2
+	 * @param sslContext
+	 *            TLS上下文，为null时使用JDK默认配置
+	 * @param connectionsPerHost
+	 *            每个主机的连接数
+	 * @param connectTimeout
+	 *            连接超时(毫秒)
+	 */
+	public Http2Transport(Collection<String> hosts, SSLContext sslContext, int connectionsPerHost,
+			int connectTimeout) {
+		if (connectionsPerHost < 1) {
+			throw new IllegalArgumentException("connectionsPerHost must be positive: " + connectionsPerHost);
+		}
+		this.hosts = hosts == null ? Collections.emptySet() : new HashSet<>(hosts);
+		this.clients = new HttpClient[connectionsPerHost];
+		for (int i = 0; i < connectionsPerHost; i++) {
+			HttpClient.Builder builder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2)
+					.followRedirects(HttpClient.Redirect.NEVER)
+					.connectTimeout(connectTimeout > 0 ? Duration.ofMillis(connectTimeout) : DEFAULT_CONNECT_TIMEOUT);
+			if (sslContext != null) {
+				builder.sslContext(sslContext);
+			}
+			clients[i] = builder.build();
+		}
+	}
+
+	@Override
+	public boolean supports(URI uri) {
+		String scheme = uri.getScheme();
+		if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) {
+			return false;
+		}
+		return hosts.isEmpty() || hosts.contains(HttpMetrics.host(uri));
+	}
+
+	@Override
+	public boolean supports(HttpRequestBase request) {
+		if (!supports(request.getURI())) {
+			return false;
+		}
+		for (Header header : request.getAllHeaders()) {
+			String name = header.getName().toLowerCase(Locale.ROOT);
+			if (UNSENDABLE_HEADERS.contains(name)) {
+				if (WARNED_HEADERS.add(name)) {
+					log.warn("JDK HttpClient does not allow header {}, requests with it use the pooled client",
+							header.getName());
+				}
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 发送请求并等待响应头，GET、HEAD请求跟随重定向；{@link HttpRequestBase#abort()}取消尚未完成的请求，
+	 * 响应返回后中止则关闭响应流
+	 */
+	@Override
+	public CloseableHttpResponse execute(HttpRequestBase request) throws IOException {
+		URI uri = request.getURI();
+		java.net.http.HttpResponse<InputStream> response = send(request, toHttp2Request(request, uri));
+		Set<URI> redirectLocations = null;
+		URI location;
+		while ((location = redirectLocation(request, uri, response)) != null) {
+			response.body().close();
+			RequestConfig config = request.getConfig() == null ? RequestConfig.DEFAULT : request.getConfig();
+			if (redirectLocations == null) {
+				redirectLocations = new HashSet<>();
+			}
+			if (redirectLocations.size() >= config.getMaxRedirects()) {
+				throw new ClientProtocolException(
+						new RedirectException("Maximum redirects (" + config.getMaxRedirects() + ") exceeded"));
+			}
+			if (!redirectLocations.add(location) && !config.isCircularRedirectsAllowed()) {
+				throw new ClientProtocolException(
+						new CircularRedirectException("Circular redirect to '" + location + "'"));
+			}
+			uri = location;
+			response = send(request, toHttp2Request(request, uri));
+		}
+		InputStream body = response.body();
+		request.setCancellable(() -> {
+			try {
+				body.close();
+			} catch (IOException e) {
+				// 中止时忽略关闭异常
+			}
+			return true;
+		});
+		return toResponse(response);
+	}
+
+	private java.net.http.HttpResponse<InputStream> send(HttpRequestBase request, HttpRequest http2Request)
+			throws IOException {
+		if (request.isAborted()) {
+			throw new RequestAbortedException("Request aborted");
+		}
+		// 每个客户端各自持有到同一主机的一条HTTP/2连接，轮流使用
+		HttpClient client = clients[Math.floorMod(next.getAndIncrement(), clients.length)];
+		CompletableFuture<java.net.http.HttpResponse<InputStream>> future = client.sendAsync(http2Request,
+				BodyHandlers.ofInputStream());
+		// 已中止时立即取消
+		request.setCancellable(() -> future.cancel(true));
+		try {
+			HttpRequest.BodyPublisher body = http2Request.bodyPublisher().orElse(null);
+			if (body instanceof WriteOnlyBody) {
+				((WriteOnlyBody) body).write(future);
+			}
+			return future.get();
+		} catch (CancellationException e) {
+			RequestAbortedException aborted = new RequestAbortedException("Request aborted");
+			aborted.initCause(e);
+			throw aborted;
+		} catch (ExecutionException e) {
+			if (request.isAborted()) {
+				// 新版JDK取消时以IOException结束请求
+				RequestAbortedException aborted = new RequestAbortedException("Request aborted");
+				aborted.initCause(e.getCause());
+				throw aborted;
+			}
+			throw translate(e.getCause());
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			InterruptedIOException interrupted = new InterruptedIOException(e.getMessage());
+			interrupted.initCause(e);
+			throw interrupted;
+		}
+	}
+
+	/**
+	 * 与共享连接池的默认重定向策略一致：RequestConfig未禁用重定向时，GET、HEAD请求跟随301、302、303、307、308响应
+	 *
+	 * @return 重定向地址，不需要重定向时返回null
+	 */
+	private static URI redirectLocation(HttpRequestBase request, URI uri, java.net.http.HttpResponse<?> response)
+			throws IOException {
+		RequestConfig config = request.getConfig();
+		if (config != null && !config.isRedirectsEnabled()) {
+			return null;
+		}
+		if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+			return null;
+		}
+		switch (response.statusCode()) {
+		case 301:
+		case 302:
+		case 303:
+		case 307:
+		case 308:
+			break;
+		default:
+			return null;
+		}
+		String location = response.headers().firstValue("Location").orElse(null);
+		if (location == null) {
+			return null;
+		}
+		try {
+			return uri.resolve(new URI(location)).normalize();
+		} catch (URISyntaxException e) {
+			throw new ClientProtocolException(new ProtocolException("Invalid redirect URI: " + location, e));
+		}
+	}
+
+	/**
+	 * 检测当前JDK客户端不允许设置的请求头
+	 */
+	private static Set<String> unsendableHeaders(String... names) {
+		Set<String> unsendable = new HashSet<>();
+		HttpRequest.Builder builder = HttpRequest.newBuilder();
+		for (String name : names) {
+			try {
+				builder.header(name, "");
+			} catch (IllegalArgumentException e) {
+				unsendable.add(name);
+			}
+		}
+		return unsendable;
+	}
+
+	/**
+	 * 把JDK客户端的异常转换为与共享连接池一致的异常类型
+	 */
+	private static IOException translate(Throwable cause) {
+		if (cause instanceof HttpConnectTimeoutException) {
+			ConnectTimeoutException timeout = new ConnectTimeoutException(cause.getMessage());
+			timeout.initCause(cause);
+			return timeout;
+		}
+		if (cause instanceof HttpTimeoutException) {
+			SocketTimeoutException timeout = new SocketTimeoutException(cause.getMessage());
+			timeout.initCause(cause);
+			return timeout;
+		}
+		if (cause instanceof IOException) {
+			return (IOException) cause;
+		}
+		if (cause instanceof UncheckedIOException) {
+			return ((UncheckedIOException) cause).getCause();
+		}
+		return new IOException(cause);
+	}
+
+	private static HttpRequest toHttp2Request(HttpRequestBase request, URI uri) throws IOException {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+		RequestConfig config = request.getConfig();
+		if (config != null && config.getSocketTimeout() > 0) {
+			// JDK客户端只有整个请求的超时，用读取超时近似
+			builder.timeout(Duration.ofMillis(config.getSocketTimeout()));
+		}
+		for (Header header : request.getAllHeaders()) {
+			String name = header.getName().toLowerCase(Locale.ROOT);
+			// 不允许的端到端请求头只在绕过supports(HttpRequestBase)直接调用时出现
+			if (!CONNECTION_HEADERS.contains(name) && !UNSENDABLE_HEADERS.contains(name)) {
+				builder.header(header.getName(), header.getValue());
+			}
+		}
+		if (request.getFirstHeader("Accept-Encoding") == null) {
+			builder.header("Accept-Encoding", HttpCompression.ACCEPT_ENCODING);
+		}
+
+		HttpRequest.BodyPublisher body = BodyPublishers.noBody();
+		if (request instanceof HttpEntityEnclosingRequest) {
+			HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+			if (entity != null) {
+				if (entity.getContentType() != null && request.getFirstHeader("Content-Type") == null) {
+					builder.header("Content-Type", entity.getContentType().getValue());
+				}
+				if (entity.getContentEncoding() != null) {
+					builder.header("Content-Encoding", entity.getContentEncoding().getValue());
+				}
+				body = toBody(entity);
+			}
+		}
+		return builder.method(request.getMethod(), body).build();
+	}
+
+	/**
+	 * 小请求体一次读入；文件上传等大请求体从实体的输入流边读边发，不整体读入内存。
+	 * 只能写出、不能以输入流读取的实体(流式JSON数组、流式gzip)由发送线程写出，见{@link WriteOnlyBody}
+	 */
+	private static HttpRequest.BodyPublisher toBody(HttpEntity entity) throws IOException {
+		long length = entity.getContentLength();
+		if (entity.isRepeatable() && length >= 0 && length <= MAX_BUFFERED_BODY) {
+			return BodyPublishers.ofByteArray(EntityUtils.toByteArray(entity));
+		}
+		InputStream content;
+		try {
+			content = entity.getContent();
+		} catch (UnsupportedOperationException e) {
+			return new WriteOnlyBody(entity);
+		}
+		// 第一次订阅使用已打开的流，JDK重发请求时重新打开(仅可重复的实体)
+		AtomicBoolean opened = new AtomicBoolean();
+		HttpRequest.BodyPublisher publisher = BodyPublishers.ofInputStream(() -> {
+			if (opened.compareAndSet(false, true)) {
+				return content;
+			}
+			try {
+				return entity.getContent();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		return length < 0 ? publisher : BodyPublishers.fromPublisher(publisher, length);
+	}
+
+	private static CloseableHttpResponse toResponse(java.net.http.HttpResponse<InputStream> response)
+			throws IOException {
+		int statusCode = response.statusCode();
+		Http2Response result = new Http2Response(
+				response.version() == HttpClient.Version.HTTP_2 ? HTTP_2 : HTTP_1_1, statusCode, response.body());
+		String contentType = null;
+		String contentEncoding = null;
+		long contentLength = -1;
+		for (Map.Entry<String, List<String>> entry : response.headers().map().entrySet()) {
+			String name = entry.getKey();
+			if (name.startsWith(":")) {
+				continue;
+			}
+			for (String value : entry.getValue()) {
+				result.addHeader(name, value);
+			}
+			String lowerName = name.toLowerCase(Locale.ROOT);
+			String value = entry.getValue().isEmpty() ? null : entry.getValue().get(0);
+			if ("content-type".equals(lowerName)) {
+				contentType = value;
+			} else if ("content-encoding".equals(lowerName)) {
+				contentEncoding = value;
+			} else if ("content-length".equals(lowerName) && value != null) {
+				try {
+					contentLength = Long.parseLong(value.trim());
+				} catch (NumberFormatException e) {
+					contentLength = -1;
+				}
+			}
+		}
+
+		InputStream in = HttpCompression.decode(response.body(), contentEncoding);
+		boolean decoded = in != response.body() && contentEncoding != null;
+		InputStreamEntity entity = new InputStreamEntity(in, decoded ? -1 : contentLength);
+		if (contentType != null) {
+			entity.setContentType(contentType);
+		}
+		if (decoded) {
+			// 与ResponseContentEncoding一致，解压后去掉相关响应头
+			result.removeHeaders("Content-Encoding");
+			result.removeHeaders("Content-Length");
+			result.removeHeaders("Content-MD5");
+		} else if (contentEncoding != null) {
+			entity.setContentEncoding(contentEncoding);
+		}
+		result.setEntity(entity);
+		return result;
+	}
+
+	/**
+	 * 只能写出的请求体：请求发出后由发送线程调用{@link HttpEntity#writeTo(OutputStream)}，
+	 * 写出的数据按JDK客户端的需求逐块发布，需求不足时写出阻塞，内存占用不超过一个块。
+	 * 只能订阅一次，JDK客户端需要重发请求体时以异常结束
+	 */
+	private static final class WriteOnlyBody implements HttpRequest.BodyPublisher {
+		private static final int CHUNK_SIZE = 16 * 1024;
+
+		private final HttpEntity entity;
+		private Flow.Subscriber<? super ByteBuffer> subscriber;
+		private boolean subscribed;
+		private boolean closed;
+		private long demand;
+
+		WriteOnlyBody(HttpEntity entity) {
+			this.entity = entity;
+		}
+
+		@Override
+		public long contentLength() {
+			return entity.getContentLength();
+		}
+
+		@Override
+		public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+			boolean first;
+			synchronized (this) {
+				first = !subscribed;
+				subscribed = true;
+			}
+			if (!first) {
+				subscriber.onSubscribe(new Subscription(true));
+				subscriber.onError(new IOException("write-only request body cannot be replayed"));
+				return;
+			}
+			subscriber.onSubscribe(new Subscription(false));
+			synchronized (this) {
+				this.subscriber = subscriber;
+				notifyAll();
+			}
+		}
+
+		/**
+		 * 在发送线程写出请求体，响应提前结束(失败、取消或服务端不读请求体就响应)时停止写出
+		 */
+		void write(CompletableFuture<?> response) throws IOException, InterruptedException {
+			response.whenComplete((r, e) -> close());
+			Flow.Subscriber<? super ByteBuffer> target;
+			synchronized (this) {
+				while (subscriber == null && !closed) {
+					wait();
+				}
+				target = subscriber;
+			}
+			if (target == null) {
+				return;
+			}
+			try (OutputStream out = new BufferedOutputStream(new PublishingStream(target), CHUNK_SIZE)) {
+				entity.writeTo(out);
+			} catch (IOException | RuntimeException e) {
+				if (isClosed()) {
+					// 响应已结束，以响应的结果为准
+					return;
+				}
+				target.onError(e);
+				response.cancel(true);
+				throw e;
+			}
+			target.onComplete();
+		}
+
+		private synchronized void close() {
+			closed = true;
+			notifyAll();
+		}
+
+		private synchronized boolean isClosed() {
+			return closed;
+		}
+
+		/**
+		 * 等到有需求后取得一个块的发布权，请求体被取消时失败
+		 */
+		private synchronized void acquire() throws IOException {
+			while (demand == 0 && !closed) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("interrupted while writing request body");
+				}
+			}
+			if (closed) {
+				throw new IOException("request body cancelled");
+			}
+			demand--;
+		}
+
+		private class PublishingStream extends OutputStream {
+			private final Flow.Subscriber<? super ByteBuffer> target;
+
+			PublishingStream(Flow.Subscriber<? super ByteBuffer> target) {
+				this.target = target;
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				if (len == 0) {
+					return;
+				}
+				acquire();
+				// 订阅方可能异步读取，不能复用缓冲区
+				target.onNext(ByteBuffer.wrap(Arrays.copyOfRange(b, off, off + len)));
+			}
+		}
+
+		private class Subscription implements Flow.Subscription {
+			private final boolean empty;
+
+			Subscription(boolean empty) {
+				this.empty = empty;
+			}
+
+			@Override
+			public void request(long n) {
+				if (empty) {
+					return;
+				}
+				synchronized (WriteOnlyBody.this) {
+					demand = n <= 0 || demand + n < 0 ? Long.MAX_VALUE : demand + n;
+					WriteOnlyBody.this.notifyAll();
+				}
+			}
+
+			@Override
+			public void cancel() {
+				if (!empty) {
+					close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * 协商失败回落到HTTP/1.1时协议版本如实反映；关闭时关闭JDK响应流，未读完的流被取消，不影响同一连接上的其他请求
+	 */
+	private static class Http2Response extends BasicHttpResponse implements CloseableHttpResponse {
+		private final InputStream body;
+
+		Http2Response(ProtocolVersion version, int statusCode, InputStream body) {
+			super(version, statusCode, EnglishReasonPhraseCatalog.INSTANCE.getReason(statusCode, null));
+			this.body = body;
+		}
+
+		@Override
+		public void close() throws IOException {
+			body.close();
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+package com.cs.mobile.common.utils.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.methods.HttpRequestBase;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 批量请求并发执行器
+ *
+ * <p>
+ * JDK21及以上使用虚拟线程，每个请求一个线程；更早的JDK使用有界线程池，线程数由系统属性http.batch.threads配置，默认64。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@Slf4j
+class HttpBatchExecutor {
+	static final int DEFAULT_MAX_CONCURRENCY = Integer.getInteger("http.batch.maxConcurrency", 32);
+	private static final int POOL_THREADS = Integer.getInteger("http.batch.threads", 64);
+
+	private static final ExecutorService EXECUTOR = createExecutor("http-batch");
+
+	private HttpBatchExecutor() {
+		throw new UnsupportedOperationException();
+	}
+
+	static List<HttpResult> executeAll(List<HttpRequestSpec> specs, int maxConcurrency, long timeoutMillis) {
+		int size = specs.size();
+		long start = System.nanoTime();
+		long deadline = timeoutMillis > 0 ? start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : Long.MAX_VALUE;
+		Semaphore permits = new Semaphore(Math.max(1, maxConcurrency));
+		List<HttpRequestBase> requests = new ArrayList<>(size);
+		List<Future<HttpResult>> futures = new ArrayList<>(size);
+
+		for (int i = 0; i < size; i++) {
+			if (!tryAcquire(permits, deadline)) {
+				break;
+			}
+			HttpRequestSpec spec = specs.get(i);
+			// 提交前创建请求，截止时间到达时无论任务是否已开始执行都能中止
+			HttpRequestBase request;
+			try {
+				request = HttpUtil.newRequest(spec);
+			} catch (Exception e) {
+				permits.release();
+				log.error("http batch " + spec + " throw " + e.getClass().getSimpleName());
+				requests.add(null);
+				futures.add(CompletableFuture.completedFuture(HttpResult.failure(e, 0)));
+				continue;
+			}
+			requests.add(request);
+			futures.add(EXECUTOR.submit(() -> {
+				long begin = System.nanoTime();
+				try {
+					return HttpResult.success(HttpUtil.execute(request), elapsedMillis(begin));
+				} catch (Exception e) {
+					log.error("http batch " + spec + " throw " + e.getClass().getSimpleName());
+					return HttpResult.failure(e, elapsedMillis(begin));
+				} finally {
+					permits.release();
+				}
+			}));
+		}
+
+		List<HttpResult> results = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			if (i >= futures.size()) {
+				results.add(HttpResult.failure(new TimeoutException("http batch deadline exceeded before start"),
+						elapsedMillis(start)));
+				continue;
+			}
+			Future<HttpResult> future = futures.get(i);
+			try {
+				long remaining = deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+				results.add(future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS));
+			} catch (TimeoutException e) {
+				// 阻塞IO无法通过中断唤醒，需要直接中止底层请求
+				future.cancel(true);
+				HttpRequestBase request = requests.get(i);
+				if (request != null) {
+					request.abort();
+				}
+				results.add(HttpResult.failure(new TimeoutException("http batch deadline exceeded"),
+						elapsedMillis(start)));
+			} catch (ExecutionException e) {
+				results.add(HttpResult.failure(e.getCause(), elapsedMillis(start)));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				future.cancel(true);
+				results.add(HttpResult.failure(e, elapsedMillis(start)));
+			}
+		}
+		return results;
+	}
+
+	private static boolean tryAcquire(Semaphore permits, long deadline) {
+		try {
+			if (deadline == Long.MAX_VALUE) {
+				permits.acquire();
+				return true;
+			}
+			return permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static long elapsedMillis(long startNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * 创建请求执行线程池，不同用途各用一个实例，避免互相等待对方排队中的任务
+	 *
+	 * @param name
+	 *            线程名前缀
+	 */
+	static ExecutorService createExecutor(String name) {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (Exception | LinkageError e) {
+			log.info("virtual threads unavailable, {} uses a pool of {} threads", name, POOL_THREADS);
+		}
+		AtomicInteger counter = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_THREADS, POOL_THREADS, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+}
@@ -0,0 +1,310 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolException;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.RequestAcceptEncoding;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultRedirectStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HttpContext;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 共享的HTTP连接池客户端
+ *
+ * <p>
+ * 连接池参数可通过系统属性配置：
+ * <ul>
+ * <li>http.pool.maxTotal 连接池最大连接数，默认200</li>
+ * <li>http.pool.maxPerRoute 每个路由(目标主机)最大连接数，默认50</li>
+ * <li>http.pool.validateAfterInactivity 空闲多久后复用前需校验连接(毫秒)，默认2000</li>
+ * <li>http.pool.idleTimeout 空闲连接回收时间(毫秒)，默认30000</li>
+ * <li>http.async.ioThreads 异步客户端IO线程数，默认CPU核数</li>
+ * <li>http.dns.ttl DNS缓存时间(毫秒)，默认60000，见{@link DnsCache}</li>
+ * </ul>
+ * 异步客户端在第一次使用时才创建并启动。两个客户端都协商gzip/deflate并透明解压响应体。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@Slf4j
+public class HttpClientManager {
+	private static final int MAX_TOTAL = Integer.getInteger("http.pool.maxTotal", 200);
+	private static final int MAX_PER_ROUTE = Integer.getInteger("http.pool.maxPerRoute", 50);
+	private static final int VALIDATE_AFTER_INACTIVITY = Integer.getInteger("http.pool.validateAfterInactivity", 2000);
+	private static final long IDLE_TIMEOUT = Long.getLong("http.pool.idleTimeout", 30000L);
+	private static final int ASYNC_IO_THREADS = Integer.getInteger("http.async.ioThreads",
+			Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * 请求上下文属性，值为{@link Boolean#TRUE}时POST请求也跟随重定向(301/302/303改为GET)，与HttpURLConnection的默认行为一致；
+	 * 未设置时只有GET/HEAD跟随重定向
+	 */
+	static final String FOLLOW_POST_REDIRECTS = "http.redirect.follow-post";
+
+	private static final PoolingHttpClientConnectionManager CONNECTION_MANAGER;
+	private static final CloseableHttpClient HTTP_CLIENT;
+	private static volatile boolean asyncInitialized;
+
+	static {
+		// 与默认注册表相同的连接工厂，包装后统计新建连接数，见UpstreamMetrics#getConnectionReuseRate()
+		Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory> create()
+				.register("http", HttpMetrics.metered(PlainConnectionSocketFactory.getSocketFactory()))
+				.register("https", HttpMetrics.metered(SSLConnectionSocketFactory.getSocketFactory())).build();
+		CONNECTION_MANAGER = new PoolingHttpClientConnectionManager(socketFactoryRegistry, DnsCache.getInstance());
+		CONNECTION_MANAGER.setMaxTotal(MAX_TOTAL);
+		CONNECTION_MANAGER.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+		CONNECTION_MANAGER.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+
+		// 由HttpClient内置的后台线程定期回收过期和空闲连接
+		HTTP_CLIENT = HttpClients.custom().setConnectionManager(CONNECTION_MANAGER)
+				.setRedirectStrategy(new PostRedirectStrategy()).evictExpiredConnections()
+				.evictIdleConnections(IDLE_TIMEOUT, TimeUnit.MILLISECONDS).build();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(HttpClientManager::shutdown, "http-client-shutdown"));
+	}
+
+	private HttpClientManager() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * 获取共享的HTTP客户端，调用方不能关闭该客户端
+	 *
+	 * @return
+	 */
+	public static CloseableHttpClient getHttpClient() {
+		return HTTP_CLIENT;
+	}
+
+	/**
+	 * 获取共享的异步HTTP客户端，调用方不能关闭该客户端
+	 *
+	 * @return
+	 */
+	public static CloseableHttpAsyncClient getAsyncHttpClient() {
+		return AsyncClientHolder.ASYNC_HTTP_CLIENT;
+	}
+
+	/**
+	 * 获取连接池
+	 *
+	 * @return
+	 */
+	public static PoolingHttpClientConnectionManager getConnectionManager() {
+		return CONNECTION_MANAGER;
+	}
+
+	/**
+	 * 设置连接池最大连接数
+	 *
+	 * @param maxTotal
+	 */
+	public static void setMaxTotal(int maxTotal) {
+		CONNECTION_MANAGER.setMaxTotal(maxTotal);
+	}
+
+	/**
+	 * 设置每个路由默认最大连接数
+	 *
+	 * @param maxPerRoute
+	 */
+	public static void setDefaultMaxPerRoute(int maxPerRoute) {
+		CONNECTION_MANAGER.setDefaultMaxPerRoute(maxPerRoute);
+	}
+
+	/**
+	 * 单独设置某个目标主机的最大连接数
+	 *
+	 * @param host
+	 *            主机名
+	 * @param port
+	 *            端口
+	 * @param https
+	 *            是否https
+	 * @param maxPerRoute
+	 *            最大连接数
+	 */
+	public static void setMaxPerRoute(String host, int port, boolean https, int maxPerRoute) {
+		HttpHost target = new HttpHost(host, port, https ? "https" : "http");
+		CONNECTION_MANAGER.setMaxPerRoute(new HttpRoute(target, null, https), maxPerRoute);
+	}
+
+	/**
+	 * 预先建立到各目标主机的连接(https包括TLS握手)并放回连接池，见{@link HttpWarmup}
+	 *
+	 * @param targets
+	 *            目标主机，需带端口
+	 * @param count
+	 *            每个主机的连接数，超过该路由的最大连接数时按最大连接数
+	 * @param connectTimeout
+	 *            建立连接和等待连接池的超时(毫秒)
+	 * @param executor
+	 *            并行建立连接的线程池
+	 * @return 各主机在连接池中可用的连接数，包括池中原有的空闲连接
+	 */
+	static Map<HttpHost, Integer> preconnect(Collection<HttpHost> targets, int count, int connectTimeout,
+			ExecutorService executor) {
+		// 先全部借出再一起归还，否则后借的会复用刚归还的连接
+		Map<HttpHost, List<Future<HttpClientConnection>>> leases = new LinkedHashMap<>();
+		for (HttpHost target : targets) {
+			HttpRoute route = new HttpRoute(target, null, "https".equalsIgnoreCase(target.getSchemeName()));
+			int size = Math.min(count, CONNECTION_MANAGER.getMaxPerRoute(route));
+			List<Future<HttpClientConnection>> futures = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				futures.add(executor.submit(() -> lease(route, connectTimeout)));
+			}
+			leases.put(target, futures);
+		}
+		Map<HttpHost, Integer> result = new LinkedHashMap<>();
+		boolean interrupted = false;
+		for (Map.Entry<HttpHost, List<Future<HttpClientConnection>>> entry : leases.entrySet()) {
+			int opened = 0;
+			Throwable failure = null;
+			// 借出的连接必须归还，中断时也要等所有任务结束(最长connectTimeout)
+			for (int i = 0; i < entry.getValue().size();) {
+				try {
+					HttpClientConnection connection = entry.getValue().get(i).get();
+					CONNECTION_MANAGER.releaseConnection(connection, null, IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+					opened++;
+				} catch (InterruptedException e) {
+					interrupted = true;
+					continue;
+				} catch (ExecutionException e) {
+					failure = failure == null ? e.getCause() : failure;
+				}
+				i++;
+			}
+			if (failure != null) {
+				log.error("preconnect to {} opened {}/{} connections, first failure: {}", entry.getKey(), opened,
+						entry.getValue().size(), failure.toString());
+			}
+			result.put(entry.getKey(), opened);
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return result;
+	}
+
+	private static HttpClientConnection lease(HttpRoute route, int connectTimeout) throws Exception {
+		ConnectionRequest request = CONNECTION_MANAGER.requestConnection(route, null);
+		HttpClientConnection connection = request.get(connectTimeout, TimeUnit.MILLISECONDS);
+		if (connection.isOpen()) {
+			return connection;
+		}
+		try {
+			HttpClientContext context = HttpClientContext.create();
+			CONNECTION_MANAGER.connect(connection, route, connectTimeout, context);
+			CONNECTION_MANAGER.routeComplete(connection, route, context);
+			// 连接的输入输出流在第一次收发时才绑定，未绑定时连接池的空闲校验(isStale)会失败；空的flush只做绑定
+			connection.flush();
+			return connection;
+		} catch (IOException | RuntimeException e) {
+			CONNECTION_MANAGER.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+			throw e;
+		}
+	}
+
+	/**
+	 * 关闭连接池，应用停止时由shutdown hook自动调用
+	 */
+	public static void shutdown() {
+		try {
+			HTTP_CLIENT.close();
+		} catch (IOException e) {
+			log.error("http client close throw IOException", e);
+		}
+		if (asyncInitialized) {
+			try {
+				AsyncClientHolder.ASYNC_HTTP_CLIENT.close();
+			} catch (IOException e) {
+				log.error("http async client close throw IOException", e);
+			}
+		}
+	}
+
+	/**
+	 * 延迟初始化异步客户端，未使用异步接口时不启动IO线程
+	 */
+	private static class AsyncClientHolder {
+		private static final CloseableHttpAsyncClient ASYNC_HTTP_CLIENT = createAsyncHttpClient();
+
+		private static CloseableHttpAsyncClient createAsyncHttpClient() {
+			IOReactorConfig ioReactorConfig = IOReactorConfig.custom().setIoThreadCount(ASYNC_IO_THREADS)
+					.setSoKeepAlive(true).build();
+			PoolingNHttpClientConnectionManager connectionManager;
+			try {
+				// 与默认注册表相同的会话策略，只替换DNS解析
+				Registry<SchemeIOSessionStrategy> sessionStrategyRegistry = RegistryBuilder
+						.<SchemeIOSessionStrategy> create().register("http", NoopIOSessionStrategy.INSTANCE)
+						.register("https", SSLIOSessionStrategy.getDefaultStrategy()).build();
+				connectionManager = new PoolingNHttpClientConnectionManager(
+						new DefaultConnectingIOReactor(ioReactorConfig), null, sessionStrategyRegistry,
+						DnsCache.getInstance());
+			} catch (IOReactorException e) {
+				throw new IllegalStateException("create http async io reactor failed", e);
+			}
+			connectionManager.setMaxTotal(MAX_TOTAL);
+			connectionManager.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+
+			// 异步客户端默认不协商压缩；响应消费者会替换掉拦截器包装的实体，解压在HttpUtil收到完整响应后进行
+			CloseableHttpAsyncClient client = HttpAsyncClients.custom().setConnectionManager(connectionManager)
+					.addInterceptorLast(new RequestAcceptEncoding()).build();
+			client.start();
+			asyncInitialized = true;
+			return client;
+		}
+	}
+
+	/**
+	 * 按请求上下文的{@link #FOLLOW_POST_REDIRECTS}决定POST请求是否跟随重定向
+	 */
+	private static final class PostRedirectStrategy extends DefaultRedirectStrategy {
+
+		@Override
+		public boolean isRedirected(HttpRequest request, HttpResponse response, HttpContext context)
+				throws ProtocolException {
+			if (Boolean.TRUE.equals(context.getAttribute(FOLLOW_POST_REDIRECTS))) {
+				return LaxRedirectStrategy.INSTANCE.isRedirected(request, response, context);
+			}
+			return super.isRedirected(request, response, context);
+		}
+
+	}
+
+}
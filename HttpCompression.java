@@ -0,0 +1,194 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.entity.DeflateInputStream;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * HTTP内容压缩：响应体按Content-Encoding流式解压，请求体超过阈值时gzip压缩
+ *
+ * <p>
+ * 经由共享连接池的请求由HttpClient自动协商和解压；本类供{@link Http2Transport}的响应解压和请求体压缩使用。
+ * 请求体压缩默认关闭，通过系统属性http.compression.requestThreshold或
+ * {@link #setRequestCompressionThreshold(int)}设置阈值(字节)开启，需确认上游支持Content-Encoding: gzip的请求。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class HttpCompression {
+	/** 请求头Accept-Encoding的取值 */
+	public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	private static volatile int requestCompressionThreshold = Integer.getInteger("http.compression.requestThreshold",
+			-1);
+
+	private HttpCompression() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * 设置请求体压缩阈值，请求体字节数不小于该值时压缩
+	 *
+	 * @param threshold
+	 *            阈值(字节)，小于0表示不压缩
+	 */
+	public static void setRequestCompressionThreshold(int threshold) {
+		requestCompressionThreshold = threshold;
+	}
+
+	public static int getRequestCompressionThreshold() {
+		return requestCompressionThreshold;
+	}
+
+	/**
+	 * 根据Content-Encoding包装解压流，不支持或未压缩的编码原样返回
+	 *
+	 * @param in
+	 *            响应流
+	 * @param contentEncoding
+	 *            响应头Content-Encoding，可以为null
+	 * @return 解压后的流
+	 * @throws IOException
+	 */
+	public static InputStream decode(InputStream in, String contentEncoding) throws IOException {
+		if (in == null || contentEncoding == null) {
+			return in;
+		}
+		String encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+		boolean gzip = "gzip".equals(encoding) || "x-gzip".equals(encoding);
+		if (!gzip && !"deflate".equals(encoding)) {
+			return in;
+		}
+		// 204、HEAD等空响应体也可能带Content-Encoding，此时不能读取压缩头
+		PushbackInputStream pushback = new PushbackInputStream(in, 1);
+		int first = pushback.read();
+		if (first == -1) {
+			return pushback;
+		}
+		pushback.unread(first);
+		return gzip ? new GZIPInputStream(pushback, 8192) : new DeflateInputStream(pushback);
+	}
+
+	/**
+	 * 请求体达到压缩阈值时返回gzip压缩后的实体，否则返回原实体
+	 *
+	 * @param host
+	 *            上游主机，用于记录压缩率
+	 * @param entity
+	 *            可重复读取的请求体
+	 * @return
+	 * @throws IOException
+	 */
+	static HttpEntity compressRequest(String host, HttpEntity entity) throws IOException {
+		int threshold = requestCompressionThreshold;
+		long length = entity.getContentLength();
+		if (threshold < 0 || length < threshold || entity.getContentEncoding() != null || !entity.isRepeatable()) {
+			return entity;
+		}
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) Math.min(length / 4 + 64, Integer.MAX_VALUE));
+		try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, 8192)) {
+			entity.writeTo(gzip);
+		}
+		ByteArrayEntity compressed = new ByteArrayEntity(buffer.toByteArray());
+		compressed.setContentType(entity.getContentType());
+		compressed.setContentEncoding("gzip");
+		HttpMetrics.recordCompression(host, length, compressed.getContentLength());
+		EntityUtils.consume(entity);
+		return compressed;
+	}
+
+	/**
+	 * 长度未知的流式请求体无法与阈值比较，开启请求体压缩(阈值不小于0)时即在发送过程中gzip压缩，
+	 * 写完后记录压缩率
+	 *
+	 * @param host
+	 *            上游主机，用于记录压缩率
+	 * @param entity
+	 *            流式请求体
+	 * @return
+	 */
+	static HttpEntity compressStreaming(String host, HttpEntity entity) {
+		if (requestCompressionThreshold < 0 || entity.getContentEncoding() != null) {
+			return entity;
+		}
+		return new GzipStreamingEntity(host, entity);
+	}
+
+	private static class GzipStreamingEntity extends HttpEntityWrapper {
+		private static final Header CONTENT_ENCODING = new BasicHeader(HTTP.CONTENT_ENCODING, "gzip");
+
+		private final String host;
+
+		GzipStreamingEntity(String host, HttpEntity entity) {
+			super(entity);
+			this.host = host;
+		}
+
+		@Override
+		public Header getContentEncoding() {
+			return CONTENT_ENCODING;
+		}
+
+		@Override
+		public long getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public boolean isChunked() {
+			return true;
+		}
+
+		@Override
+		public InputStream getContent() {
+			throw new UnsupportedOperationException("streaming gzip entity can only be written");
+		}
+
+		@Override
+		public void writeTo(OutputStream out) throws IOException {
+			CountingOutputStream compressed = new CountingOutputStream(out);
+			GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192);
+			CountingOutputStream original = new CountingOutputStream(gzip);
+			wrappedEntity.writeTo(original);
+			// 只结束gzip流，不关闭连接的输出流
+			gzip.finish();
+			HttpMetrics.recordCompression(host, original.count, compressed.count);
+		}
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+
+}
@@ -0,0 +1,524 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 大文件下载：服务端支持Range时按块并发下载，写入预先分配好长度的临时文件，中断后可以从进度记录继续
+ *
+ * <pre>
+ * long size = new HttpDownload("https://export.example.com/orders.csv", Paths.get("/data/orders.csv"))
+ * 		.setParallelism(4)
+ * 		.run();
+ * </pre>
+ *
+ * <p>
+ * 下载过程：
+ * <ol>
+ * <li>以Range: bytes=0-0探测，响应206时从Content-Range得到总长度，同时记录ETag(没有时用Last-Modified)；
+ * 响应200说明不支持Range，直接从这个响应单流下载，不能续传；ETag和Last-Modified都没有时无法校验各块属于同一版本，
+ * 重新请求整个文件单流下载</li>
+ * <li>数据写入"目标文件.part"，按chunkSize(默认8MB)分块，parallelism个线程各自领取未完成的块，
+ * 每块一个Range请求，按位置写入文件；某块失败时在本块内重试retries次</li>
+ * <li>每完成一块，先把数据刷到磁盘，再在"目标文件.part.progress"中追加一条记录</li>
+ * <li>全部完成后临时文件改名为目标文件，删除进度记录</li>
+ * </ol>
+ * 再次执行同一下载时，如果进度记录中的地址、总长度、ETag和块大小与探测结果一致，只下载未完成的块；
+ * 否则从头下载。分块请求带If-Range，下载期间资源发生变化时服务端返回完整内容，下载失败并丢弃进度。
+ * 请求声明Accept-Encoding: identity，保证Range按原始字节计算。请求经过{@link HttpUtil}的上游保护、重试策略和指标。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@Slf4j
+public class HttpDownload {
+	private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+)");
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String PART_SUFFIX = ".part";
+	private static final String PROGRESS_SUFFIX = ".part.progress";
+
+	private final String url;
+	private final Path target;
+	private Map<String, String> headers;
+	private int parallelism = 4;
+	private long chunkSize = 8L * 1024 * 1024;
+	private int retries = 2;
+	private int connectTimeout = 3000;
+	private int socketTimeout = 30000;
+
+	/**
+	 * @param url
+	 *            下载地址
+	 * @param target
+	 *            目标文件，已存在时在下载完成后被替换
+	 */
+	public HttpDownload(String url, Path target) {
+		this.url = url;
+		this.target = target.toAbsolutePath();
+	}
+
+	/**
+	 * 设置附加请求头，例如鉴权
+	 */
+	public HttpDownload setHeaders(Map<String, String> headers) {
+		this.headers = headers;
+		return this;
+	}
+
+	/**
+	 * 设置并发下载的请求数，默认4
+	 */
+	public HttpDownload setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+		return this;
+	}
+
+	/**
+	 * 设置分块大小(字节)，默认8MB；续传以块为单位，中断时未完成的块重新下载
+	 */
+	public HttpDownload setChunkSize(long chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive");
+		}
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * 设置每块失败后的重试次数，默认2
+	 */
+	public HttpDownload setRetries(int retries) {
+		this.retries = Math.max(0, retries);
+		return this;
+	}
+
+	/**
+	 * 设置连接超时和读超时(毫秒)，默认3000和30000
+	 */
+	public HttpDownload setTimeout(int connectTimeout, int socketTimeout) {
+		this.connectTimeout = connectTimeout;
+		this.socketTimeout = socketTimeout;
+		return this;
+	}
+
+	/**
+	 * 执行下载
+	 *
+	 * @return 文件长度
+	 * @throws IOException
+	 *             下载失败；已完成的块保留在进度记录中，再次执行时继续
+	 */
+	public long run() throws IOException {
+		Path part = sibling(PART_SUFFIX);
+		Path progressFile = sibling(PROGRESS_SUFFIX);
+		long start = System.nanoTime();
+		long length;
+		HttpGet probe = newGet();
+		probe.setHeader("Range", "bytes=0-0");
+		try (CloseableHttpResponse response = HttpUtil.send(probe)) {
+			int status = response.getStatusLine().getStatusCode();
+			if (status == HttpStatus.SC_OK) {
+				// 不支持Range，直接使用探测请求的响应
+				Files.deleteIfExists(progressFile);
+				length = downloadSingle(response.getEntity(), part);
+				return finishSingle(part, progressFile, length, start);
+			}
+			if (status == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+				// 空文件没有可以请求的字节
+				drain(response.getEntity());
+				Files.deleteIfExists(progressFile);
+				Files.write(part, new byte[0]);
+				finish(part, progressFile);
+				return 0;
+			}
+			if (status != HttpStatus.SC_PARTIAL_CONTENT) {
+				probe.abort();
+				throw new IOException(status + ":" + response.getStatusLine().getReasonPhrase());
+			}
+			long[] range = contentRange(response);
+			length = range[2];
+			String validator = validator(response);
+			// 探测得到的一个字节不使用，读完响应体使连接归还连接池
+			drain(response.getEntity());
+			if (validator == null) {
+				// 没有校验值时无法用If-Range保证各块来自同一版本，也无法判断进度记录是否仍然有效
+				Files.deleteIfExists(progressFile);
+				length = fetchSingle(part);
+				return finishSingle(part, progressFile, length, start);
+			}
+			return downloadRanges(new Progress(url, length, validator, chunkSize), part, progressFile, start);
+		}
+	}
+
+	private long finishSingle(Path part, Path progressFile, long length, long start) throws IOException {
+		finish(part, progressFile);
+		log.info("downloaded {} in single stream, {} bytes in {}ms", url, length,
+				(System.nanoTime() - start) / 1000000);
+		return length;
+	}
+
+	private long downloadRanges(Progress progress, Path part, Path progressFile, long start) throws IOException {
+		BitSet done = progress.resume(progressFile, part);
+		int chunks = progress.chunks();
+		List<Integer> pending = new ArrayList<>();
+		for (int i = done.nextClearBit(0); i < chunks; i = done.nextClearBit(i + 1)) {
+			pending.add(i);
+		}
+		if (!pending.isEmpty()) {
+			log.info("downloading {}, {} bytes, {} of {} chunks pending", url, progress.length, pending.size(),
+					chunks);
+			try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+					FileChannel record = FileChannel.open(progressFile, StandardOpenOption.CREATE,
+							StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				if (channel.size() != progress.length) {
+					channel.truncate(progress.length);
+					if (channel.size() < progress.length) {
+						channel.write(ByteBuffer.wrap(new byte[1]), progress.length - 1);
+					}
+				}
+				fetchAll(progress, pending, channel, record);
+			} catch (ResourceChangedException e) {
+				Files.deleteIfExists(progressFile);
+				Files.deleteIfExists(part);
+				throw e;
+			}
+		}
+		finish(part, progressFile);
+		log.info("downloaded {} in {} ranges, {} bytes in {}ms", url, pending.size(), progress.length,
+				(System.nanoTime() - start) / 1000000);
+		return progress.length;
+	}
+
+	/**
+	 * parallelism个任务领取未完成的块，任一块最终失败时其余任务不再领取新块；
+	 * 被中断时中止所有进行中的请求并中断任务，不再写入即将关闭的文件
+	 */
+	private void fetchAll(Progress progress, List<Integer> pending, FileChannel channel, FileChannel record)
+			throws IOException {
+		AtomicInteger next = new AtomicInteger();
+		Set<HttpGet> inFlight = ConcurrentHashMap.newKeySet();
+		int workers = Math.min(parallelism, pending.size());
+		ExecutorService executor = HttpBatchExecutor.createExecutor("http-download");
+		List<Future<?>> futures = new ArrayList<>(workers);
+		IOException failure = null;
+		try {
+			for (int w = 0; w < workers; w++) {
+				futures.add(executor.submit(() -> {
+					int index;
+					while ((index = next.getAndIncrement()) < pending.size()) {
+						int chunk = pending.get(index);
+						fetchChunk(progress, chunk, channel, inFlight);
+						progress.markDone(chunk, channel, record);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					next.set(pending.size());
+					if (failure == null) {
+						failure = e.getCause() instanceof IOException ? (IOException) e.getCause()
+								: new IOException(e.getCause());
+					}
+				} catch (InterruptedException e) {
+					next.set(pending.size());
+					// 先中断任务再中止请求，中止之后才登记的请求由任务自己发现中断
+					executor.shutdownNow();
+					for (HttpGet request : inFlight) {
+						request.abort();
+					}
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("download interrupted");
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private void fetchChunk(Progress progress, int chunk, FileChannel channel, Set<HttpGet> inFlight)
+			throws IOException {
+		long from = chunk * progress.chunkSize;
+		long to = Math.min(from + progress.chunkSize, progress.length) - 1;
+		for (int attempt = 0;; attempt++) {
+			try {
+				fetchRange(progress, from, to, channel, inFlight);
+				return;
+			} catch (ResourceChangedException e) {
+				throw e;
+			} catch (IOException e) {
+				if (attempt >= retries || Thread.currentThread().isInterrupted()) {
+					throw e;
+				}
+				log.info("download {} range {}-{} failed, retry {}: {}", url, from, to, attempt + 1, e.toString());
+			}
+		}
+	}
+
+	private void fetchRange(Progress progress, long from, long to, FileChannel channel, Set<HttpGet> inFlight)
+			throws IOException {
+		HttpGet request = newGet();
+		request.setHeader("Range", "bytes=" + from + "-" + to);
+		request.setHeader("If-Range", progress.validator);
+		inFlight.add(request);
+		if (Thread.currentThread().isInterrupted()) {
+			inFlight.remove(request);
+			throw new InterruptedIOException("download interrupted");
+		}
+		try (CloseableHttpResponse response = HttpUtil.send(request)) {
+			int status = response.getStatusLine().getStatusCode();
+			if (status != HttpStatus.SC_PARTIAL_CONTENT) {
+				request.abort();
+				if (status == HttpStatus.SC_OK) {
+					throw new ResourceChangedException(url);
+				}
+				throw new IOException(status + ":" + response.getStatusLine().getReasonPhrase());
+			}
+			long[] range = contentRange(response);
+			if (range[0] != from || range[1] != to || range[2] != progress.length) {
+				request.abort();
+				throw new ResourceChangedException(url);
+			}
+			try (InputStream in = response.getEntity().getContent()) {
+				write(in, channel, from, to - from + 1);
+			} catch (IOException | RuntimeException e) {
+				request.abort();
+				throw e;
+			}
+		} finally {
+			inFlight.remove(request);
+		}
+	}
+
+	/**
+	 * 不带Range重新请求，单流下载整个文件
+	 */
+	private long fetchSingle(Path part) throws IOException {
+		HttpGet request = newGet();
+		try (CloseableHttpResponse response = HttpUtil.send(request)) {
+			int status = response.getStatusLine().getStatusCode();
+			if (status != HttpStatus.SC_OK) {
+				request.abort();
+				throw new IOException(status + ":" + response.getStatusLine().getReasonPhrase());
+			}
+			return downloadSingle(response.getEntity(), part);
+		} catch (IOException | RuntimeException e) {
+			request.abort();
+			throw e;
+		}
+	}
+
+	private long downloadSingle(HttpEntity entity, Path part) throws IOException {
+		try (InputStream in = entity.getContent();
+				FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+			long length = entity.getContentLength();
+			if (length >= 0) {
+				write(in, channel, 0, length);
+				return length;
+			}
+			return write(in, channel, 0, Long.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * 从position开始按位置写入，count为Long.MAX_VALUE时读到流结束
+	 *
+	 * @return 写入的字节数
+	 */
+	private static long write(InputStream in, FileChannel channel, long position, long count) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		ByteBuffer view = ByteBuffer.wrap(buffer);
+		long written = 0;
+		while (written < count) {
+			int read = in.read(buffer, 0, (int) Math.min(buffer.length, count - written));
+			if (read < 0) {
+				if (count == Long.MAX_VALUE) {
+					break;
+				}
+				throw new EOFException("premature end of range, " + (count - written) + " bytes missing");
+			}
+			view.clear().limit(read);
+			while (view.hasRemaining()) {
+				channel.write(view, position + written + view.position());
+			}
+			written += read;
+		}
+		return written;
+	}
+
+	private void finish(Path part, Path progressFile) throws IOException {
+		Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		Files.deleteIfExists(progressFile);
+	}
+
+	private HttpGet newGet() {
+		HttpGet request = new HttpGet(url);
+		request.setConfig(RequestConfig.custom().setConnectTimeout(connectTimeout).setSocketTimeout(socketTimeout)
+				.build());
+		if (headers != null) {
+			for (Entry<String, String> entry : headers.entrySet()) {
+				request.setHeader(entry.getKey(), entry.getValue());
+			}
+		}
+		// Range按原始字节计算，不接受压缩编码
+		request.setHeader("Accept-Encoding", "identity");
+		return request;
+	}
+
+	private Path sibling(String suffix) {
+		return Paths.get(target.toString() + suffix);
+	}
+
+	private static long[] contentRange(CloseableHttpResponse response) throws IOException {
+		Header header = response.getFirstHeader("Content-Range");
+		Matcher matcher = header == null ? null : CONTENT_RANGE.matcher(header.getValue());
+		if (matcher == null || !matcher.matches()) {
+			throw new IOException("invalid Content-Range: " + (header == null ? null : header.getValue()));
+		}
+		return new long[] { Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)),
+				Long.parseLong(matcher.group(3)) };
+	}
+
+	/**
+	 * 强校验的ETag，没有时用Last-Modified；弱ETag不能用于If-Range
+	 */
+	private static String validator(CloseableHttpResponse response) {
+		Header etag = response.getFirstHeader("ETag");
+		if (etag != null && !etag.getValue().startsWith("W/")) {
+			return etag.getValue();
+		}
+		Header lastModified = response.getFirstHeader("Last-Modified");
+		return lastModified == null ? null : lastModified.getValue();
+	}
+
+	private static void drain(HttpEntity entity) throws IOException {
+		if (entity != null) {
+			try (InputStream in = entity.getContent()) {
+				while (in.read() >= 0) {
+					// 丢弃
+				}
+			}
+		}
+	}
+
+	/**
+	 * 分块下载期间资源发生变化，已下载的数据不可用
+	 */
+	private static class ResourceChangedException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		ResourceChangedException(String url) {
+			super("resource changed during download: " + url);
+		}
+	}
+
+	/**
+	 * 进度记录：前四行为地址、总长度、校验值和块大小，之后每完成一块追加一行块序号
+	 */
+	private static class Progress {
+		private final String url;
+		private final long length;
+		private final String validator;
+		private final long chunkSize;
+
+		Progress(String url, long length, String validator, long chunkSize) {
+			this.url = url;
+			this.length = length;
+			this.validator = validator;
+			this.chunkSize = chunkSize;
+		}
+
+		int chunks() {
+			return (int) ((length + chunkSize - 1) / chunkSize);
+		}
+
+		/**
+		 * 读取与本次下载一致的进度记录，不一致或临时文件不存在时重新开始并写入记录头。
+		 * 只采用以换行结尾的记录，中断时写了一半的最后一条被忽略
+		 */
+		BitSet resume(Path progressFile, Path part) throws IOException {
+			BitSet done = new BitSet();
+			String header = header();
+			try {
+				if (Files.exists(part)) {
+					String content = new String(Files.readAllBytes(progressFile), StandardCharsets.UTF_8);
+					if (content.startsWith(header)) {
+						int end = content.lastIndexOf('\n') + 1;
+						for (int start = header.length(); start < end;) {
+							int newline = content.indexOf('\n', start);
+							try {
+								int chunk = Integer.parseInt(content.substring(start, newline));
+								if (chunk >= 0 && chunk < chunks()) {
+									done.set(chunk);
+								}
+							} catch (NumberFormatException e) {
+								// 损坏的记录，对应的块重新下载
+							}
+							start = newline + 1;
+						}
+						return done;
+					}
+				}
+			} catch (NoSuchFileException e) {
+				// 没有进度记录
+			}
+			Files.deleteIfExists(part);
+			Files.write(progressFile, header.getBytes(StandardCharsets.UTF_8));
+			return done;
+		}
+
+		/**
+		 * 块数据先刷到磁盘再记录完成，记录中的块在断电后也是完整的
+		 */
+		void markDone(int chunk, FileChannel channel, FileChannel record) throws IOException {
+			channel.force(false);
+			synchronized (record) {
+				record.write(ByteBuffer.wrap((chunk + "\n").getBytes(StandardCharsets.US_ASCII)));
+			}
+		}
+
+		private String header() {
+			return url + "\n" + length + "\n" + (validator == null ? "" : validator) + "\n" + chunkSize + "\n";
+		}
+	}
+
+}
@@ -0,0 +1,389 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * HTTP请求指标：按上游主机统计请求数、耗时分布、流量和各类超时，并提供连接池状态
+ *
+ * <p>
+ * 经由共享连接池发出的请求都会被统计，内置统计通过{@link #getUpstreamMetrics(String)}读取，
+ * 需要接入外部监控系统时注册{@link HttpMetricsListener}。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@Slf4j
+public class HttpMetrics {
+	private static final ConcurrentHashMap<String, UpstreamMetrics> UPSTREAMS = new ConcurrentHashMap<>();
+	private static final List<HttpMetricsListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+	private HttpMetrics() {
+		throw new UnsupportedOperationException();
+	}
+
+	public static void addListener(HttpMetricsListener listener) {
+		LISTENERS.add(listener);
+	}
+
+	public static void removeListener(HttpMetricsListener listener) {
+		LISTENERS.remove(listener);
+	}
+
+	/**
+	 * 获取某个上游主机的统计
+	 *
+	 * @param host
+	 *            主机，带非默认端口时形如host:port
+	 * @return 没有请求过该主机时返回null
+	 */
+	public static UpstreamMetrics getUpstreamMetrics(String host) {
+		return UPSTREAMS.get(host);
+	}
+
+	/**
+	 * 获取所有上游主机的统计
+	 *
+	 * @return
+	 */
+	public static Map<String, UpstreamMetrics> getUpstreamMetrics() {
+		return Collections.unmodifiableMap(UPSTREAMS);
+	}
+
+	/**
+	 * 连接池整体状态：已借出(leased)、等待中(pending)、空闲可用(available)和最大连接数
+	 *
+	 * @return
+	 */
+	public static PoolStats getPoolStats() {
+		return HttpClientManager.getConnectionManager().getTotalStats();
+	}
+
+	/**
+	 * 连接池中某个目标主机的状态
+	 *
+	 * @param host
+	 *            主机名
+	 * @param port
+	 *            端口
+	 * @param https
+	 *            是否https
+	 * @return
+	 */
+	public static PoolStats getPoolStats(String host, int port, boolean https) {
+		HttpHost target = new HttpHost(host, port, https ? "https" : "http");
+		return HttpClientManager.getConnectionManager().getStats(new HttpRoute(target, null, https));
+	}
+
+	/**
+	 * 包装响应体，在响应体读完或关闭时记录指标；没有响应体时立即记录
+	 */
+	static void instrument(HttpUriRequest request, HttpResponse response, long startNanos) {
+		String host = host(request.getURI());
+		String method = request.getMethod();
+		int statusCode = response.getStatusLine().getStatusCode();
+		long bytesOut = requestBytes(request);
+		HttpEntity entity = response.getEntity();
+		if (entity == null) {
+			recordResponse(host, method, statusCode, System.nanoTime() - startNanos, bytesOut, 0);
+		} else {
+			response.setEntity(new MeteredEntity(entity, host, method, statusCode, startNanos, bytesOut));
+		}
+	}
+
+	static void recordFailure(HttpUriRequest request, Throwable error, long startNanos) {
+		recordFailure(host(request.getURI()), request.getMethod(), error, System.nanoTime() - startNanos);
+	}
+
+	static void recordCompression(String host, long originalBytes, long compressedBytes) {
+		upstream(host).recordCompression(originalBytes, compressedBytes);
+		for (HttpMetricsListener listener : LISTENERS) {
+			try {
+				listener.onRequestCompressed(host, originalBytes, compressedBytes);
+			} catch (RuntimeException e) {
+				log.error("http metrics listener throw Exception", e);
+			}
+		}
+	}
+
+	static void recordRetry(String host, boolean hedged) {
+		upstream(host).recordRetry(hedged);
+		for (HttpMetricsListener listener : LISTENERS) {
+			try {
+				listener.onRetry(host, hedged);
+			} catch (RuntimeException e) {
+				log.error("http metrics listener throw Exception", e);
+			}
+		}
+	}
+
+	static void recordHedgeWin(String host) {
+		upstream(host).recordHedgeWin();
+	}
+
+	static void recordRetryBudgetExhausted(String host) {
+		upstream(host).recordRetryBudgetExhausted();
+	}
+
+	static void recordRejection(String host, String reason) {
+		upstream(host).recordRejection(reason);
+		for (HttpMetricsListener listener : LISTENERS) {
+			try {
+				listener.onRejected(host, reason);
+			} catch (RuntimeException e) {
+				log.error("http metrics listener throw Exception", e);
+			}
+		}
+	}
+
+	static void recordPermitGranted(String host, String limiter, long waitNanos) {
+		upstream(host).recordPermitGranted(limiter, waitNanos);
+		for (HttpMetricsListener listener : LISTENERS) {
+			try {
+				listener.onPermitGranted(host, limiter, waitNanos);
+			} catch (RuntimeException e) {
+				log.error("http metrics listener throw Exception", e);
+			}
+		}
+	}
+
+	/**
+	 * 包装连接工厂，统计连接池新建的连接
+	 */
+	static ConnectionSocketFactory metered(ConnectionSocketFactory delegate) {
+		return new MeteredSocketFactory(delegate);
+	}
+
+	static LayeredConnectionSocketFactory metered(LayeredConnectionSocketFactory delegate) {
+		return new MeteredLayeredSocketFactory(delegate);
+	}
+
+	private static void recordConnectionOpened(String host, long connectNanos) {
+		upstream(host).recordConnectionOpened(connectNanos);
+		for (HttpMetricsListener listener : LISTENERS) {
+			try {
+				listener.onConnectionOpened(host, connectNanos);
+			} catch (RuntimeException e) {
+				log.error("http metrics listener throw Exception", e);
+			}
+		}
+	}
+
+	private static void recordResponse(String host, String method, int statusCode, long latencyNanos, long bytesOut,
+			long bytesIn) {
+		upstream(host).recordResponse(method, statusCode, latencyNanos, bytesOut, bytesIn);
+		for (HttpMetricsListener listener : LISTENERS) {
+			try {
+				listener.onResponse(host, method, statusCode, latencyNanos, bytesOut, bytesIn);
+			} catch (RuntimeException e) {
+				log.error("http metrics listener throw Exception", e);
+			}
+		}
+	}
+
+	private static void recordFailure(String host, String method, Throwable error, long latencyNanos) {
+		upstream(host).recordFailure(method, error, latencyNanos);
+		for (HttpMetricsListener listener : LISTENERS) {
+			try {
+				listener.onFailure(host, method, error, latencyNanos);
+			} catch (RuntimeException e) {
+				log.error("http metrics listener throw Exception", e);
+			}
+		}
+	}
+
+	private static UpstreamMetrics upstream(String host) {
+		UpstreamMetrics metrics = UPSTREAMS.get(host);
+		if (metrics == null) {
+			metrics = UPSTREAMS.computeIfAbsent(host, UpstreamMetrics::new);
+		}
+		return metrics;
+	}
+
+	static String host(URI uri) {
+		HttpHost target = URIUtils.extractHost(uri);
+		return target == null ? String.valueOf(uri.getHost()) : host(target);
+	}
+
+	/**
+	 * 主机名，非默认端口时带上端口，使http://host和http://host:80统计到一起
+	 */
+	static String host(HttpHost target) {
+		int port = target.getPort();
+		String scheme = target.getSchemeName();
+		if (port == -1 || (port == 80 && "http".equalsIgnoreCase(scheme))
+				|| (port == 443 && "https".equalsIgnoreCase(scheme))) {
+			return target.getHostName();
+		}
+		return target.getHostName() + ":" + port;
+	}
+
+	private static long requestBytes(HttpRequest request) {
+		if (request instanceof HttpEntityEnclosingRequest) {
+			HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+			if (entity != null) {
+				return Math.max(entity.getContentLength(), 0);
+			}
+		}
+		return 0;
+	}
+
+	private static class MeteredSocketFactory implements ConnectionSocketFactory {
+		private final ConnectionSocketFactory delegate;
+
+		MeteredSocketFactory(ConnectionSocketFactory delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Socket createSocket(HttpContext context) throws IOException {
+			return delegate.createSocket(context);
+		}
+
+		@Override
+		public Socket connectSocket(int connectTimeout, Socket sock, HttpHost host, InetSocketAddress remoteAddress,
+				InetSocketAddress localAddress, HttpContext context) throws IOException {
+			long start = System.nanoTime();
+			Socket socket = delegate.connectSocket(connectTimeout, sock, host, remoteAddress, localAddress, context);
+			recordConnectionOpened(host(host), System.nanoTime() - start);
+			return socket;
+		}
+	}
+
+	private static class MeteredLayeredSocketFactory extends MeteredSocketFactory
+			implements LayeredConnectionSocketFactory {
+		private final LayeredConnectionSocketFactory delegate;
+
+		MeteredLayeredSocketFactory(LayeredConnectionSocketFactory delegate) {
+			super(delegate);
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+				throws IOException {
+			return delegate.createLayeredSocket(socket, target, port, context);
+		}
+	}
+
+	/**
+	 * 统计读取字节数的响应体，只记录一次
+	 */
+	private static class MeteredEntity extends HttpEntityWrapper {
+		private final String host;
+		private final String method;
+		private final int statusCode;
+		private final long startNanos;
+		private final long bytesOut;
+		private final AtomicBoolean recorded = new AtomicBoolean();
+		private long bytesIn;
+
+		MeteredEntity(HttpEntity entity, String host, String method, int statusCode, long startNanos,
+				long bytesOut) {
+			super(entity);
+			this.host = host;
+			this.method = method;
+			this.statusCode = statusCode;
+			this.startNanos = startNanos;
+			this.bytesOut = bytesOut;
+		}
+
+		@Override
+		public InputStream getContent() throws IOException {
+			return new FilterInputStream(super.getContent()) {
+				@Override
+				public int read() throws IOException {
+					try {
+						int b = in.read();
+						if (b == -1) {
+							complete();
+						} else {
+							bytesIn++;
+						}
+						return b;
+					} catch (IOException e) {
+						fail(e);
+						throw e;
+					}
+				}
+
+				@Override
+				public int read(byte[] buffer, int off, int len) throws IOException {
+					try {
+						int count = in.read(buffer, off, len);
+						if (count == -1) {
+							complete();
+						} else {
+							bytesIn += count;
+						}
+						return count;
+					} catch (IOException e) {
+						fail(e);
+						throw e;
+					}
+				}
+
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						complete();
+					}
+				}
+			};
+		}
+
+		@Override
+		public void writeTo(OutputStream out) throws IOException {
+			// 不委托给被包装实体，保证字节数经过统计
+			try (InputStream in = getContent()) {
+				byte[] buffer = new byte[8192];
+				int count;
+				while ((count = in.read(buffer)) != -1) {
+					out.write(buffer, 0, count);
+				}
+			}
+		}
+
+		private void fail(IOException e) {
+			if (recorded.compareAndSet(false, true)) {
+				recordFailure(host, method, e, System.nanoTime() - startNanos);
+			}
+		}
+
+		private void complete() {
+			if (recorded.compareAndSet(false, true)) {
+				recordResponse(host, method, statusCode, System.nanoTime() - startNanos, bytesOut, bytesIn);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.cs.mobile.common.utils.net;
+
+/**
+ * HTTP请求指标监听器，通过{@link HttpMetrics#addListener(HttpMetricsListener)}注册，
+ * 用于把指标转发到Micrometer、Prometheus等监控系统
+ *
+ * <p>
+ * 回调在请求线程(异步请求为IO线程)中同步执行，实现必须快速且不能抛出异常。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public interface HttpMetricsListener {
+
+	/**
+	 * 收到响应并读取完响应体(或响应流被关闭)
+	 *
+	 * @param host
+	 *            上游主机，带非默认端口时形如host:port
+	 * @param method
+	 *            请求方法
+	 * @param statusCode
+	 *            响应状态码
+	 * @param latencyNanos
+	 *            从发送请求到读完响应体的耗时(纳秒)
+	 * @param bytesOut
+	 *            请求体字节数，未知时为0
+	 * @param bytesIn
+	 *            响应体字节数(解压后)
+	 */
+	void onResponse(String host, String method, int statusCode, long latencyNanos, long bytesOut, long bytesIn);
+
+	/**
+	 * 请求失败，包括等待连接池、建立连接、读取响应各阶段的超时
+	 *
+	 * @param host
+	 *            上游主机
+	 * @param method
+	 *            请求方法
+	 * @param error
+	 *            异常
+	 * @param latencyNanos
+	 *            从发送请求到失败的耗时(纳秒)
+	 */
+	void onFailure(String host, String method, Throwable error, long latencyNanos);
+
+	/**
+	 * 连接池新建了一条到上游的连接(包括TLS握手)，与请求数对比可得到连接复用率
+	 *
+	 * @param host
+	 *            上游主机(经代理时为代理主机)
+	 * @param connectNanos
+	 *            建立连接的耗时(纳秒)
+	 */
+	default void onConnectionOpened(String host, long connectNanos) {
+	}
+
+	/**
+	 * 请求体被gzip压缩，见{@link HttpCompression#setRequestCompressionThreshold(int)}
+	 *
+	 * @param host
+	 *            上游主机
+	 * @param originalBytes
+	 *            压缩前字节数
+	 * @param compressedBytes
+	 *            压缩后字节数
+	 */
+	default void onRequestCompressed(String host, long originalBytes, long compressedBytes) {
+	}
+
+	/**
+	 * 按{@link RetryPolicy}发出了一次重试或对冲请求，每次尝试的结果另行通过onResponse/onFailure回调
+	 *
+	 * @param host
+	 *            上游主机
+	 * @param hedged
+	 *            是否为对冲请求
+	 */
+	default void onRetry(String host, boolean hedged) {
+	}
+
+	/**
+	 * 请求在发出前被本地拒绝，见{@link UpstreamRejectedException}
+	 *
+	 * @param host
+	 *            上游主机
+	 * @param reason
+	 *            拒绝原因，例如circuit-open、rate-limit、bulkhead、concurrency-limit
+	 */
+	default void onRejected(String host, String reason) {
+	}
+
+	/**
+	 * 请求取得了{@link RateLimiter}或{@link Bulkhead}的许可
+	 *
+	 * @param host
+	 *            上游主机
+	 * @param limiter
+	 *            rate-limit或bulkhead
+	 * @param waitNanos
+	 *            等待令牌的时间(纳秒)，不等待时为0
+	 */
+	default void onPermitGranted(String host, String limiter, long waitNanos) {
+	}
+
+}
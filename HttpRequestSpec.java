@@ -0,0 +1,74 @@
+package com.cs.mobile.common.utils.net;
+
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * 批量请求中单个请求的描述，语义与HttpUtil对应的doGet/doPost方法一致
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@Getter
+public class HttpRequestSpec {
+	private final String method;
+	private final String url;
+	private final Map<String, String> headers;
+	private final Map<String, String> params;
+	private final String charset;
+	private final int connectTimeout;
+	private final int socketTimeout;
+
+	private HttpRequestSpec(String method, String url, Map<String, String> headers, Map<String, String> params,
+			String charset, int connectTimeout, int socketTimeout) {
+		this.method = method;
+		this.url = url;
+		this.headers = headers;
+		this.params = params;
+		this.charset = charset;
+		this.connectTimeout = connectTimeout;
+		this.socketTimeout = socketTimeout;
+	}
+
+	/**
+	 * GET请求，同{@link HttpUtil#doGet(String, Map, Map, int, int)}
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param headers
+	 *            请求头
+	 * @param params
+	 *            请求参数
+	 * @return
+	 */
+	public static HttpRequestSpec get(String url, Map<String, String> headers, Map<String, String> params,
+			int connectTimeout, int socketTimeout) {
+		return new HttpRequestSpec("GET", url, headers, params, HttpUtil.DEFAULT_CHARSET, connectTimeout,
+				socketTimeout);
+	}
+
+	/**
+	 * 表单POST请求，同{@link HttpUtil#doPost(String, Map, Map, String, int, int)}
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param headers
+	 *            请求头
+	 * @param params
+	 *            请求参数
+	 * @param charset
+	 *            字符集
+	 * @return
+	 */
+	public static HttpRequestSpec post(String url, Map<String, String> headers, Map<String, String> params,
+			String charset, int connectTimeout, int readTimeout) {
+		return new HttpRequestSpec("POST", url, headers, params, charset, connectTimeout, readTimeout);
+	}
+
+	@Override
+	public String toString() {
+		return method + " " + url;
+	}
+
+}
@@ -0,0 +1,311 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.util.EntityUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * GET请求的进程内响应缓存，通过{@link HttpUtil#setResponseCache(HttpResponseCache)}启用
+ *
+ * <p>
+ * 缓存键由请求方法、完整URL、解码字符集和全部请求头组成。遵循以下HTTP缓存语义：
+ * <ul>
+ * <li>Cache-Control的max-age、no-cache、no-store，以及Expires</li>
+ * <li>过期后携带If-None-Match/If-Modified-Since进行条件请求，304时沿用缓存内容</li>
+ * <li>stale-while-revalidate时间窗内直接返回旧内容，同时在后台重新校验</li>
+ * </ul>
+ * 容量同时受条目数和占用字节数限制，超出时按LRU淘汰。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@Slf4j
+public class HttpResponseCache {
+	private static final ExecutorService REVALIDATOR = Executors.newFixedThreadPool(2, r -> {
+		Thread thread = new Thread(r, "http-cache-revalidate");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final int maxEntries;
+	private final long maxBytes;
+	private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalBytes;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder staleHitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder revalidationCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * @param maxEntries
+	 *            最大缓存条目数
+	 * @param maxBytes
+	 *            缓存内容占用的最大字节数(按字符串内存占用估算)
+	 */
+	public HttpResponseCache(int maxEntries, long maxBytes) {
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+	}
+
+	String get(HttpGet request, String charset) throws IOException {
+		String key = HttpUtil.requestKey(request, charset);
+		CacheEntry entry = lookup(key);
+		if (entry != null) {
+			long now = System.currentTimeMillis();
+			if (now < entry.freshUntil) {
+				hitCount.increment();
+				return entry.body;
+			}
+			if (now < entry.staleUntil) {
+				staleHitCount.increment();
+				if (entry.revalidating.compareAndSet(false, true)) {
+					REVALIDATOR.execute(() -> {
+						try {
+							fetch(key, request, charset, entry);
+						} catch (Exception e) {
+							log.error("http cache revalidate " + request.getURI() + " throw "
+									+ e.getClass().getSimpleName());
+						} finally {
+							entry.revalidating.set(false);
+						}
+					});
+				}
+				return entry.body;
+			}
+		}
+		missCount.increment();
+		return fetch(key, request, charset, entry);
+	}
+
+	private String fetch(String key, HttpGet request, String charset, CacheEntry cached) throws IOException {
+		// 原请求对象可能被其他线程使用，条件请求使用副本
+		HttpGet httpGet = new HttpGet(request.getURI());
+		httpGet.setHeaders(request.getAllHeaders());
+		httpGet.setConfig(request.getConfig());
+		if (cached != null) {
+			if (cached.etag != null) {
+				httpGet.setHeader("If-None-Match", cached.etag);
+			}
+			if (cached.lastModified != null) {
+				httpGet.setHeader("If-Modified-Since", cached.lastModified);
+			}
+		}
+
+		CloseableHttpResponse response = HttpUtil.send(httpGet);
+		try {
+			int status = response.getStatusLine().getStatusCode();
+			long now = System.currentTimeMillis();
+			if (status == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+				revalidationCount.increment();
+				CacheEntry refreshed = CacheEntry.create(key, cached.body, response, now, cached);
+				if (refreshed != null) {
+					store(key, refreshed);
+				} else {
+					remove(key);
+				}
+				return cached.body;
+			}
+
+			String body = BodyDecoder.toString(response.getEntity(), charset);
+			CacheEntry created = status == HttpStatus.SC_OK ? CacheEntry.create(key, body, response, now, null) : null;
+			if (created != null) {
+				store(key, created);
+			} else if (cached != null) {
+				remove(key);
+			}
+			return body;
+		} finally {
+			EntityUtils.consumeQuietly(response.getEntity());
+			response.close();
+		}
+	}
+
+	private synchronized CacheEntry lookup(String key) {
+		return entries.get(key);
+	}
+
+	private synchronized void store(String key, CacheEntry entry) {
+		if (entry.weight > maxBytes) {
+			remove(key);
+			return;
+		}
+		CacheEntry old = entries.put(key, entry);
+		if (old != null) {
+			totalBytes -= old.weight;
+		}
+		totalBytes += entry.weight;
+
+		Iterator<CacheEntry> eldest = entries.values().iterator();
+		while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+			totalBytes -= eldest.next().weight;
+			eldest.remove();
+			evictionCount.increment();
+		}
+	}
+
+	private synchronized void remove(String key) {
+		CacheEntry old = entries.remove(key);
+		if (old != null) {
+			totalBytes -= old.weight;
+		}
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		totalBytes = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/** 新鲜缓存命中次数 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/** stale-while-revalidate时间窗内返回旧内容的次数 */
+	public long getStaleHitCount() {
+		return staleHitCount.sum();
+	}
+
+	/** 未命中或缓存过期需要请求上游的次数 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/** 条件请求返回304的次数 */
+	public long getRevalidationCount() {
+		return revalidationCount.sum();
+	}
+
+	/** 因容量限制被淘汰的条目数 */
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "HttpResponseCache[size=" + size() + ", bytes=" + getTotalBytes() + ", hit=" + getHitCount()
+				+ ", staleHit=" + getStaleHitCount() + ", miss=" + getMissCount() + ", revalidation="
+				+ getRevalidationCount() + ", eviction=" + getEvictionCount() + "]";
+	}
+
+	private static class CacheEntry {
+		private final String body;
+		private final String etag;
+		private final String lastModified;
+		private final long freshUntil;
+		private final long staleUntil;
+		private final long weight;
+		private final AtomicBoolean revalidating = new AtomicBoolean();
+
+		private CacheEntry(String body, String etag, String lastModified, long freshUntil, long staleUntil,
+				long weight) {
+			this.body = body;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.freshUntil = freshUntil;
+			this.staleUntil = staleUntil;
+			this.weight = weight;
+		}
+
+		/**
+		 * 根据响应头计算新鲜度，不可缓存时返回null；304响应未携带的校验信息沿用原缓存
+		 */
+		static CacheEntry create(String key, String body, HttpResponse response, long now, CacheEntry previous) {
+			long maxAge = -1;
+			long staleWhileRevalidate = 0;
+			boolean noCache = false;
+			for (Header header : response.getHeaders("Cache-Control")) {
+				for (HeaderElement element : header.getElements()) {
+					String name = element.getName().toLowerCase(Locale.ROOT);
+					if ("no-store".equals(name)) {
+						return null;
+					} else if ("no-cache".equals(name)) {
+						noCache = true;
+					} else if ("max-age".equals(name)) {
+						maxAge = parseSeconds(element.getValue(), -1);
+					} else if ("stale-while-revalidate".equals(name)) {
+						staleWhileRevalidate = parseSeconds(element.getValue(), 0);
+					}
+				}
+			}
+			Header vary = response.getFirstHeader("Vary");
+			if (vary != null && "*".equals(vary.getValue().trim())) {
+				return null;
+			}
+
+			long freshness = 0;
+			if (noCache) {
+				staleWhileRevalidate = 0;
+			} else if (maxAge >= 0) {
+				freshness = maxAge * 1000;
+			} else {
+				Date expires = parseDate(response.getFirstHeader("Expires"));
+				if (expires != null) {
+					Date date = parseDate(response.getFirstHeader("Date"));
+					freshness = expires.getTime() - (date != null ? date.getTime() : now);
+				}
+			}
+
+			String etag = headerValue(response, "ETag", previous == null ? null : previous.etag);
+			String lastModified = headerValue(response, "Last-Modified",
+					previous == null ? null : previous.lastModified);
+			if (freshness <= 0 && etag == null && lastModified == null) {
+				return null;
+			}
+			long freshUntil = now + Math.max(0, freshness);
+			long weight = 2L * (key.length() + (body == null ? 0 : body.length()));
+			return new CacheEntry(body, etag, lastModified, freshUntil, freshUntil + staleWhileRevalidate * 1000,
+					weight);
+		}
+
+		private static long parseSeconds(String value, long defaultValue) {
+			if (value == null) {
+				return defaultValue;
+			}
+			try {
+				return Long.parseLong(value.trim());
+			} catch (NumberFormatException e) {
+				return defaultValue;
+			}
+		}
+
+		private static Date parseDate(Header header) {
+			return header == null ? null : DateUtils.parseDate(header.getValue());
+		}
+
+		private static String headerValue(HttpResponse response, String name, String defaultValue) {
+			Header header = response.getFirstHeader(name);
+			return header == null ? defaultValue : header.getValue();
+		}
+	}
+
+}
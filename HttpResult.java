@@ -0,0 +1,38 @@
+package com.cs.mobile.common.utils.net;
+
+import lombok.Getter;
+
+/**
+ * 批量请求中单个请求的执行结果
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@Getter
+public class HttpResult {
+	/** 响应内容，请求失败时为null */
+	private final String body;
+	/** 失败原因，请求成功时为null */
+	private final Throwable error;
+	/** 请求耗时(毫秒) */
+	private final long elapsedMillis;
+
+	private HttpResult(String body, Throwable error, long elapsedMillis) {
+		this.body = body;
+		this.error = error;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	static HttpResult success(String body, long elapsedMillis) {
+		return new HttpResult(body, null, elapsedMillis);
+	}
+
+	static HttpResult failure(Throwable error, long elapsedMillis) {
+		return new HttpResult(null, error, elapsedMillis);
+	}
+
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+}
@@ -0,0 +1,206 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.cookie.Cookie;
+
+/**
+ * 某个上游上某个账号的登录会话，由{@link HttpSessionStore}创建，可被多个线程同时使用
+ *
+ * <p>
+ * 会话内的请求经过{@link HttpUtil}的共享连接池、上游保护和指标，按RFC 6265规则携带匹配的cookie，
+ * 响应中的Set-Cookie(包括重定向过程中的)自动保存。请求始终走共享连接池，不经过{@link HttpTransport}。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class HttpSession {
+	private final HttpSessionStore store;
+	private final String upstream;
+	private final String account;
+	private final CookieJar cookieJar = new CookieJar();
+	private final AtomicLong generation = new AtomicLong();
+	private volatile boolean authenticated;
+	/** 上一次登录是否得到了cookie，没有cookie的会话(例如令牌鉴权)不按cookie过期重新登录 */
+	private volatile boolean loginCookies;
+	private volatile long loginAt;
+	private volatile Thread loginThread;
+
+	HttpSession(HttpSessionStore store, String upstream, String account) {
+		this.store = store;
+		this.upstream = upstream;
+		this.account = account;
+	}
+
+	public String getUpstream() {
+		return upstream;
+	}
+
+	public String getAccount() {
+		return account;
+	}
+
+	/**
+	 * 当前的cookie快照
+	 */
+	public List<Cookie> getCookies() {
+		return cookieJar.getCookies();
+	}
+
+	/**
+	 * 是否已登录
+	 */
+	public boolean isAuthenticated() {
+		return authenticated;
+	}
+
+	/**
+	 * 在会话中执行HTTP GET请求
+	 *
+	 * @return 响应内容
+	 * @throws IOException
+	 *             请求失败、登录失败或响应状态码大于等于400
+	 */
+	public String doGet(String url, Map<String, String> params, int connectTimeout, int socketTimeout)
+			throws IOException {
+		return execute(HttpUtil.newGet(url, null, params, connectTimeout, socketTimeout));
+	}
+
+	/**
+	 * 在会话中以UTF-8表单执行HTTP POST请求
+	 *
+	 * @param headers
+	 *            请求头，可以为null
+	 * @return 响应内容
+	 * @throws IOException
+	 *             请求失败、登录失败或响应状态码大于等于400
+	 */
+	public String doPost(String url, Map<String, String> headers, Map<String, String> params, int connectTimeout,
+			int socketTimeout) throws IOException {
+		String query = QueryEncoder.buildQuery(params, StandardCharsets.UTF_8);
+		return execute(HttpUtil.newPost(url, "application/x-www-form-urlencoded;charset=UTF-8", headers,
+				query == null ? new byte[0] : query.getBytes(StandardCharsets.UTF_8), connectTimeout, socketTimeout));
+	}
+
+	/**
+	 * 在会话中执行请求：需要时先登录，响应被判定为会话失效时重新登录并重发一次；登录过程中的请求直接发送
+	 *
+	 * @param request
+	 *            请求，请求体必须可重复发送
+	 * @return 响应内容
+	 * @throws IOException
+	 *             请求失败、登录失败或响应状态码大于等于400
+	 */
+	public String execute(HttpRequestBase request) throws IOException {
+		if (loginThread == Thread.currentThread()) {
+			return read(send(request));
+		}
+		long observed = ensureLogin();
+		CloseableHttpResponse response = send(request);
+		try {
+			if (!store.isExpired(response)) {
+				return HttpUtil.FORM_POST_HANDLER.handleResponse(response);
+			}
+		} finally {
+			HttpUtil.closeQuietly(response);
+		}
+		store.login(this, observed);
+		request.reset();
+		return read(send(request));
+	}
+
+	/**
+	 * 携带会话cookie发送请求，不登录也不做失效判定，调用方负责关闭响应；用于登录时读取响应头等场景
+	 */
+	public CloseableHttpResponse send(HttpRequestBase request) throws IOException {
+		RequestConfig config = request.getConfig();
+		if (config == null || config.getCookieSpec() == null) {
+			request.setConfig((config == null ? RequestConfig.custom() : RequestConfig.copy(config))
+					.setCookieSpec(CookieSpecs.STANDARD).build());
+		}
+		HttpClientContext context = HttpClientContext.create();
+		context.setCookieStore(cookieJar);
+		return HttpUtil.send(request, context);
+	}
+
+	/**
+	 * 清除cookie，下一次请求前重新登录
+	 */
+	public void invalidate() {
+		authenticated = false;
+		cookieJar.clear();
+	}
+
+	String getKey() {
+		return upstream + '\n' + account;
+	}
+
+	long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * 清空cookie后执行登录，只在{@link HttpSessionStore#login(HttpSession, long)}的单次执行中调用；
+	 * 登录期间会话为未登录状态，其他请求等待这次登录而不是带着空的cookie发出
+	 */
+	long login(HttpSessionStore.Authenticator authenticator) throws Exception {
+		authenticated = false;
+		cookieJar.clear();
+		loginThread = Thread.currentThread();
+		try {
+			authenticator.login(this);
+		} finally {
+			loginThread = null;
+		}
+		loginCookies = !cookieJar.isEmpty();
+		loginAt = System.nanoTime();
+		authenticated = true;
+		return generation.incrementAndGet();
+	}
+
+	/**
+	 * 未登录(包括正在登录)、超过最长使用时间或登录得到的cookie已全部过期时登录，正在进行的登录由各请求共享
+	 *
+	 * @return 本次请求所基于的会话代数
+	 */
+	private long ensureLogin() throws IOException {
+		long current = generation.get();
+		long ttl = store.getSessionTtlNanos();
+		if (!authenticated || ttl > 0 && System.nanoTime() - loginAt > ttl || loginCookies && isCookieExpired()) {
+			return store.login(this, current);
+		}
+		return current;
+	}
+
+	/**
+	 * cookie已全部过期；过期的cookie可能已被其他请求清除，因此按清除后是否为空判断
+	 */
+	private boolean isCookieExpired() {
+		cookieJar.clearExpired(new Date());
+		return cookieJar.isEmpty();
+	}
+
+	private static String read(CloseableHttpResponse response) throws IOException {
+		try {
+			return HttpUtil.FORM_POST_HANDLER.handleResponse(response);
+		} finally {
+			HttpUtil.closeQuietly(response);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "HttpSession[" + upstream + ", " + account + ", cookies=" + cookieJar.getCookies().size() + "]";
+	}
+
+}
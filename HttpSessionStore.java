@@ -0,0 +1,138 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+
+/**
+ * 按上游和账号隔离的登录会话，会话内的请求自动携带并更新cookie，会话失效时自动重新登录
+ *
+ * <pre>
+ * HttpSessionStore sessions = new HttpSessionStore(session -&gt; session.doPost(loginUrl, null,
+ * 		credentials(session.getAccount()), 3000, 5000));
+ * String orders = sessions.getSession("erp.partner.com", "shop-001").doGet(ordersUrl, params, 3000, 5000);
+ * </pre>
+ *
+ * <p>
+ * 第一次请求前、会话超过sessionTtl或cookie全部过期时先登录；响应被判定为会话失效(默认401)时重新登录并重发一次。
+ * 同一会话的并发请求同时发现失效时只登录一次，其余请求等待登录结果，登录失败时都收到同一个异常。
+ * 不同账号的会话cookie互不可见。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class HttpSessionStore {
+	private final ConcurrentHashMap<String, HttpSession> sessions = new ConcurrentHashMap<>();
+	private final SingleFlight<Long> logins = new SingleFlight<>();
+	private final Authenticator authenticator;
+	private volatile Predicate<HttpResponse> expiredCheck = response -> response.getStatusLine()
+			.getStatusCode() == HttpStatus.SC_UNAUTHORIZED;
+	private volatile long sessionTtlNanos;
+
+	/**
+	 * @param authenticator
+	 *            登录逻辑，通过会话的请求方法登录，响应下发的cookie自动保存到会话中
+	 */
+	public HttpSessionStore(Authenticator authenticator) {
+		if (authenticator == null) {
+			throw new IllegalArgumentException("authenticator is null");
+		}
+		this.authenticator = authenticator;
+	}
+
+	/**
+	 * 取得会话，不存在时创建(尚未登录)
+	 *
+	 * @param upstream
+	 *            上游标识，例如主机名
+	 * @param account
+	 *            账号
+	 * @return
+	 */
+	public HttpSession getSession(String upstream, String account) {
+		return sessions.computeIfAbsent(upstream + '\n' + account, key -> new HttpSession(this, upstream, account));
+	}
+
+	/**
+	 * 丢弃会话，下次取得时重新登录
+	 */
+	public void invalidate(String upstream, String account) {
+		HttpSession session = sessions.remove(upstream + '\n' + account);
+		if (session != null) {
+			session.invalidate();
+		}
+	}
+
+	/**
+	 * 设置会话失效的判定，默认响应状态码为401；例如上游以302跳转到登录页表示失效
+	 */
+	public HttpSessionStore setExpiredCheck(Predicate<HttpResponse> check) {
+		this.expiredCheck = check;
+		return this;
+	}
+
+	/**
+	 * 设置会话的最长使用时间(毫秒)，超过后在下一次请求前重新登录；默认0表示不限制，只按cookie过期和失效判定
+	 */
+	public HttpSessionStore setSessionTtl(long ttlMillis) {
+		this.sessionTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+		return this;
+	}
+
+	public int size() {
+		return sessions.size();
+	}
+
+	boolean isExpired(HttpResponse response) {
+		return expiredCheck.test(response);
+	}
+
+	long getSessionTtlNanos() {
+		return sessionTtlNanos;
+	}
+
+	/**
+	 * 登录会话，observedGeneration之后已有其他请求完成登录时直接返回
+	 *
+	 * @return 登录后的会话代数
+	 */
+	long login(HttpSession session, long observedGeneration) throws IOException {
+		try {
+			return logins.execute(session.getKey() + '\n' + observedGeneration, () -> {
+				if (session.getGeneration() != observedGeneration) {
+					return session.getGeneration();
+				}
+				return session.login(authenticator);
+			});
+		} catch (IOException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("login " + session + " failed", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "HttpSessionStore[sessions=" + size() + ", logins=" + logins.getExecutionCount() + "]";
+	}
+
+	/**
+	 * 登录逻辑
+	 */
+	@FunctionalInterface
+	public interface Authenticator {
+
+		/**
+		 * 通过会话的请求方法完成登录，登录期间的请求不做失效判定；抛出异常表示登录失败
+		 *
+		 * @param session
+		 *            待登录的会话，其中的cookie已清空
+		 */
+		void login(HttpSession session) throws Exception;
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * 可替换的同步传输层，通过{@link HttpUtil#setTransport(HttpTransport)}启用后，
+ * {@link #supports(HttpRequestBase)}为true的请求不再走共享连接池而由本传输层发送
+ *
+ * <p>
+ * 响应处理、指标统计与连接池路径一致；实现需要自行按Content-Encoding解压响应体，
+ * 并把连接、读取超时分别转换为ConnectTimeoutException和SocketTimeoutException。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public interface HttpTransport {
+
+	/**
+	 * 是否由本传输层发送该地址的请求
+	 *
+	 * @param uri
+	 *            请求地址
+	 * @return
+	 */
+	boolean supports(URI uri);
+
+	/**
+	 * 是否由本传输层发送该请求，默认按请求地址判断；无法完整发送的请求(例如带有不支持的请求头)应返回false，仍走共享连接池
+	 *
+	 * @param request
+	 *            请求
+	 * @return
+	 */
+	default boolean supports(HttpRequestBase request) {
+		return supports(request.getURI());
+	}
+
+	/**
+	 * 发送请求，调用方负责关闭响应
+	 *
+	 * @param request
+	 *            请求，超时取自请求的RequestConfig
+	 * @return 响应
+	 * @throws IOException
+	 */
+	CloseableHttpResponse execute(HttpRequestBase request) throws IOException;
+
+}
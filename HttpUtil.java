@@ -1,19 +1,27 @@
 package com.cs.mobile.common.utils.net;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.StringWriter;
-import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
-import java.net.URL;
-import java.net.URLEncoder;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -21,19 +29,30 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.ResponseContentEncoding;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.util.EntityUtils;
 
 import com.cs.mobile.common.exception.api.ExceptionUtils;
 import com.cs.mobile.common.utils.JsonUtil;
 import com.cs.mobile.common.utils.StringUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -50,6 +69,44 @@ public class HttpUtil {
 
 	private static final String ERROR_HTML = "<h5 id=\"errorMes\" style=\"color: #ff6600; display: none; font-size: 11px;\">";
 
+	/** GET响应处理：不区分状态码，按UTF-8(或响应声明的字符集)读取响应内容 */
+	private static final ResponseHandler<String> GET_HANDLER = response -> BodyDecoder.toString(response.getEntity(),
+			DEFAULT_CHARSET);
+
+	/**
+	 * 表单POST响应处理：与原HttpURLConnection实现一致，按{@link #getResponseCharset(String)}解码，
+	 * 状态码大于等于400时抛出IOException
+	 */
+	static final ResponseHandler<String> FORM_POST_HANDLER = response -> {
+		HttpEntity entity = response.getEntity();
+		String charset = getResponseCharset(
+				entity == null || entity.getContentType() == null ? null : entity.getContentType().getValue());
+		String body = entity == null ? null : BodyDecoder.toString(entity, charset);
+		if (response.getStatusLine().getStatusCode() >= 400) {
+			if (StringUtil.isEmpty(body)) {
+				throw new IOException(
+						response.getStatusLine().getStatusCode() + ":" + response.getStatusLine().getReasonPhrase());
+			}
+			throw new IOException(body);
+		}
+		return body;
+	};
+
+	private static final ResponseContentEncoding RESPONSE_CONTENT_ENCODING = new ResponseContentEncoding();
+	private static final ContentType JSON_ARRAY_CONTENT_TYPE = ContentType.create("text/json", StandardCharsets.UTF_8);
+
+	private static volatile HttpResponseCache responseCache;
+	private static volatile SingleFlight<String> requestCoalescer;
+	private static volatile HttpTransport transport;
+	private static volatile RetryPolicy retryPolicy;
+	private static volatile ClientIpResolver clientIpResolver = ClientIpResolver.getDefault();
+	private static volatile CircuitBreaker circuitBreaker;
+	private static volatile RateLimiter rateLimiter;
+	private static volatile Bulkhead bulkhead;
+	private static volatile ConcurrencyLimiter concurrencyLimiter;
+	/** 按顺序生效的上游保护，由各保护的setter重建 */
+	private static volatile UpstreamGuard[] guards = {};
+
 	private HttpUtil() {
 		throw new UnsupportedOperationException();
 	}
@@ -65,32 +122,7 @@ public class HttpUtil {
 	 * @throws Exception
 	 */
 	public static String buildQuery(Map<String, String> params, String charset) throws Exception {
-		if (params == null || params.isEmpty()) {
-			return null;
-		}
-
-		StringBuilder query = new StringBuilder();
-		Set<Map.Entry<String, String>> entries = params.entrySet();
-		boolean hasParam = false;
-		for (Map.Entry<String, String> entry : entries) {
-			String name = entry.getKey();
-			String value = entry.getValue();
-			// 忽略参数名或参数值为空的参数
-			if (StringUtil.areNotEmpty(name, value)) {
-				if (hasParam) {
-					query.append("&");
-				} else {
-					hasParam = true;
-				}
-				if ("__VIEWSTATE".contains(name)) {
-					query.append(name).append("=").append(value);
-				} else {
-					query.append(name).append("=").append(URLEncoder.encode(value, charset));
-				}
-			}
-		}
-
-		return query.toString();
+		return QueryEncoder.buildQuery(params, Charset.forName(charset));
 	}
 
 	/**
@@ -156,32 +188,19 @@ public class HttpUtil {
 	 *            请求类型
 	 * @param content
 	 *            请求字节数组
-	 * @return 响应字符串
+	 * @return 响应字符串，301/302/303重定向时改为GET跟随，返回最终响应
 	 * @throws IOException
 	 */
 	public static String doPost(String url, String ctype, Map<String, String> headers, byte[] content,
 			int connectTimeout, int readTimeout) throws IOException {
-		HttpURLConnection conn = null;
-		OutputStream out = null;
 		String rsp = null;
 		try {
-			conn = getConnection(new URL(url), METHOD_POST, ctype, headers);
-
-			conn.setConnectTimeout(connectTimeout);
-			conn.setReadTimeout(readTimeout);
-
-			out = conn.getOutputStream();
-			out.write(content);
-			rsp = getResponseAsString(conn);
+			// 与原HttpURLConnection实现一致，POST也跟随重定向
+			HttpClientContext context = newContext();
+			context.setAttribute(HttpClientManager.FOLLOW_POST_REDIRECTS, Boolean.TRUE);
+			rsp = execute(newPost(url, ctype, headers, content, connectTimeout, readTimeout), context);
 		} catch (Exception e) {
 			ExceptionUtils.wapperBussinessException("调用外部系统网络异常");
-		} finally {
-			if (out != null) {
-				out.close();
-			}
-			if (conn != null) {
-				conn.disconnect();
-			}
 		}
 
 		return rsp;
@@ -209,25 +228,19 @@ public class HttpUtil {
 	 *            请求字节数组
 	 * @return 响应字符串
 	 * @throws IOException
+	 * @see HttpSessionStore 需要保持登录状态时使用会话，cookie自动保存和携带，会话失效时自动重新登录
 	 */
-	@SuppressWarnings("static-access")
 	public static String doPostCookie(String url, String ctype, Map<String, String> headers, byte[] content,
 			int connectTimeout, int readTimeout) throws Exception {
-		HttpURLConnection conn = null;
-		OutputStream out = null;
-		String rsp = null;
+		HttpPost httpPost = newPost(url, ctype, headers, content, connectTimeout, readTimeout);
+		// 登录等接口通过重定向响应下发cookie，不能跟随重定向
+		httpPost.setConfig(RequestConfig.copy(httpPost.getConfig()).setRedirectsEnabled(false).build());
+		CloseableHttpResponse response = null;
 		try {
-			conn = getConnection(new URL(url), METHOD_POST, ctype, headers);
-
-			conn.setConnectTimeout(connectTimeout);
-			conn.setReadTimeout(readTimeout);
-			conn.setFollowRedirects(false);
-			conn.setInstanceFollowRedirects(false);
-			out = conn.getOutputStream();
-			out.write(content);
-			String body = getResponseAsString(conn);
-			System.out.println(body);
-			if (body.indexOf(ERROR_HTML) >= 0) {
+			response = send(httpPost);
+			String body = FORM_POST_HANDLER.handleResponse(response);
+			log.debug("http post {} response: {}", httpPost.getURI(), body);
+			if (body != null && body.indexOf(ERROR_HTML) >= 0) {
 				String msg = body.substring(body.indexOf(ERROR_HTML));
 				msg = msg.substring(ERROR_HTML.length(), msg.indexOf("</h5>"));
 				if (StringUtil.notEmpty(msg) && !msg.contains("验证码")) {
@@ -235,30 +248,24 @@ public class HttpUtil {
 				}
 			}
 
-			if (conn.getHeaderField("Set-Cookie") == null) {
-				return rsp;
+			Header[] headrs = response.getHeaders("Set-Cookie");
+			if (headrs.length == 0) {
+				return null;
 			}
-			Map<String, List<String>> headrs = conn.getHeaderFields();
-
-			List<String> cookies = headrs.get("Set-Cookie");
-			rsp = JsonUtil.writeValueAsString(cookies);
-		} finally {
-			if (out != null) {
-				out.close();
-			}
-			if (conn != null) {
-				conn.disconnect();
+			List<String> cookies = new ArrayList<>(headrs.length);
+			for (Header header : headrs) {
+				cookies.add(header.getValue());
 			}
+			return JsonUtil.writeValueAsString(cookies);
+		} finally {
+			closeQuietly(response);
 		}
-
-		return rsp;
 	}
 
 	public static String doPostByBody(String url, Map<String, String> params, Map<String, String> headers,
 			int connectTimeout, int socketTimeout) {
 		RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(socketTimeout)
 				.setConnectTimeout(connectTimeout).build();
-		CloseableHttpClient httpClient = HttpClients.custom().build();
 		HttpPost httpPost = new HttpPost(url);
 		StringEntity postEntity = new StringEntity(JsonUtil.writeValueAsString(params), "UTF-8");
 		httpPost.addHeader("Content-Type", "application/x-www-form-urlencoded");
@@ -268,365 +275,1020 @@ public class HttpUtil {
 				httpPost.addHeader(entry.getKey(), entry.getValue());
 			}
 		}
-		httpPost.setEntity(postEntity);
 		String result = null;
+		CloseableHttpResponse response = null;
 		// 设置请求器的配置
 		httpPost.setConfig(requestConfig);
 		try {
-			HttpResponse response = httpClient.execute(httpPost);
+			httpPost.setEntity(HttpCompression.compressRequest(HttpMetrics.host(httpPost.getURI()), postEntity));
+			response = send(httpPost);
 
 			HttpEntity entity = response.getEntity();
 
-			result = EntityUtils.toString(entity, "UTF-8");
-			System.out.println("entity----" + result);
+			result = BodyDecoder.toString(entity, "UTF-8");
+			log.debug("http post {} response: {}", httpPost.getURI(), result);
 			Header header = response.getFirstHeader("Set-Cookie");
-			;
 
 			result = JsonUtil.writeValueAsString(header.getElements());
-			System.out.println("header----" + result);
 		} catch (ConnectionPoolTimeoutException e) {
-			log.error("http get throw ConnectionPoolTimeoutException(wait time out)");
+			log.error("http post throw ConnectionPoolTimeoutException(wait time out), url=" + httpPost.getURI());
 
 		} catch (ConnectTimeoutException e) {
-			log.error("http get throw ConnectTimeoutException");
+			log.error("http post throw ConnectTimeoutException, url=" + httpPost.getURI());
 
 		} catch (SocketTimeoutException e) {
-			log.error("http get throw SocketTimeoutException");
+			log.error("http post throw SocketTimeoutException, url=" + httpPost.getURI());
+
+		} catch (UpstreamRejectedException e) {
+			log.error("http post rejected(" + e.getReason() + "), url=" + httpPost.getURI());
 
 		} catch (Exception e) {
-			log.error("http get throw Exception");
+			log.error("http post throw Exception, url=" + httpPost.getURI(), e);
 
 		} finally {
-			httpPost.abort();
+			closeQuietly(response);
 		}
 
 		return result;
 	}
 
+	/**
+	 * 以JSON数组为请求体执行HTTP POST请求，发送时直接把列表序列化到连接上(chunked传输)，不生成中间字符串；
+	 * 请求体可以重复发送
+	 *
+	 * @param params
+	 *            记录，与{@link #doPostByBody(String, Iterator, int, int)}一样按{@link JsonBody#getObjectMapper()}序列化
+	 * @return 响应字符串，请求失败时返回null
+	 */
 	public static String doPostByBody(String url, List<Map<String, String>> params, int connectTimeout,
 			int socketTimeout) {
+		List<Map<String, String>> records = params == null ? Collections.<Map<String, String>> emptyList() : params;
+		return postByBody(url, new JsonArrayEntity(records, JSON_ARRAY_CONTENT_TYPE), connectTimeout, socketTimeout);
+	}
+
+	/**
+	 * 以JSON数组为请求体执行HTTP POST请求，记录在发送时才逐条从迭代器取出并直接序列化到连接上(chunked传输)，
+	 * 内存占用与记录总数无关，适合大批量数据。
+	 * <p>
+	 * 迭代器只遍历一次，请求失败不会重试；开启请求体压缩时边发送边gzip压缩。
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param records
+	 *            记录，按{@link JsonBody#getObjectMapper()}序列化
+	 * @return 响应字符串，请求失败时返回null
+	 */
+	public static String doPostByBody(String url, Iterator<?> records, int connectTimeout, int socketTimeout) {
+		return postByBody(url, new JsonArrayEntity(records, JSON_ARRAY_CONTENT_TYPE), connectTimeout, socketTimeout);
+	}
+
+	/**
+	 * 以JSON数组为请求体执行HTTP POST请求，记录流在发送时才被消费，调用方负责关闭记录流
+	 *
+	 * @see #doPostByBody(String, Iterator, int, int)
+	 */
+	public static String doPostByBody(String url, Stream<?> records, int connectTimeout, int socketTimeout) {
+		return doPostByBody(url, records.iterator(), connectTimeout, socketTimeout);
+	}
+
+	private static String postByBody(String url, HttpEntity postEntity, int connectTimeout, int socketTimeout) {
 		RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(socketTimeout)
 				.setConnectTimeout(connectTimeout).build();
-		CloseableHttpClient httpClient = HttpClients.custom().build();
 		HttpPost httpPost = new HttpPost(url);
-		StringEntity postEntity = new StringEntity(JsonUtil.writeValueAsString(params), "UTF-8");
 		httpPost.addHeader("Content-Type", "text/json");
-		httpPost.setEntity(postEntity);
 		String result = null;
+		CloseableHttpResponse response = null;
 		// 设置请求器的配置
 		httpPost.setConfig(requestConfig);
 		try {
-			HttpResponse response = httpClient.execute(httpPost);
+			String host = HttpMetrics.host(httpPost.getURI());
+			// 长度未知的流式请求体无法与压缩阈值比较，按流式压缩处理
+			httpPost.setEntity(postEntity.getContentLength() < 0 ? HttpCompression.compressStreaming(host, postEntity)
+					: HttpCompression.compressRequest(host, postEntity));
+			response = send(httpPost);
 
 			HttpEntity entity = response.getEntity();
 
-			result = EntityUtils.toString(entity, "UTF-8");
+			result = BodyDecoder.toString(entity, "UTF-8");
 		} catch (ConnectionPoolTimeoutException e) {
-			log.error("http get throw ConnectionPoolTimeoutException(wait time out)");
+			log.error("http post throw ConnectionPoolTimeoutException(wait time out), url=" + httpPost.getURI());
 
 		} catch (ConnectTimeoutException e) {
-			log.error("http get throw ConnectTimeoutException");
+			log.error("http post throw ConnectTimeoutException, url=" + httpPost.getURI());
 
 		} catch (SocketTimeoutException e) {
-			log.error("http get throw SocketTimeoutException");
+			log.error("http post throw SocketTimeoutException, url=" + httpPost.getURI());
+
+		} catch (UpstreamRejectedException e) {
+			log.error("http post rejected(" + e.getReason() + "), url=" + httpPost.getURI());
 
 		} catch (Exception e) {
-			log.error("http get throw Exception");
+			log.error("http post throw Exception, url=" + httpPost.getURI(), e);
 
 		} finally {
-			httpPost.abort();
+			closeQuietly(response);
 		}
 
 		return result;
 	}
 
+	/**
+	 * 执行HTTP GET请求并返回响应流，调用方读取完毕后必须关闭该流，连接在流关闭后归还连接池。
+	 * <p>
+	 * 推荐使用{@link #doGetStream(String, Map, BodyHandler, int, int)}，由工具类管理连接的释放。
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param params
+	 *            请求参数
+	 * @return 响应流，请求失败时返回null
+	 */
 	public static InputStream doGetStream(String url, Map<String, String> params, int connectTimeout,
 			int socketTimeout) {
-		RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(socketTimeout)
-				.setConnectTimeout(connectTimeout).build();
-		CloseableHttpClient httpClient = HttpClients.custom().build();
-		StringBuffer urlStr = new StringBuffer(url);
-		if (params != null && params.size() > 0) {
-			for (Entry<String, String> entry : params.entrySet()) {
-				if (StringUtil.notEmpty(entry.getValue())) {
-					if (urlStr.indexOf("?") == -1)
-						urlStr.append("?");
-					else
-						urlStr.append("&");
-
-					urlStr.append(entry.getKey()).append("=").append(entry.getValue());
-				}
-			}
-		}
-		HttpGet httpGet = new HttpGet(urlStr.toString());
-		httpGet.setConfig(requestConfig);
+		HttpGet httpGet = newGet(url, null, params, connectTimeout, socketTimeout);
 		InputStream result = null;
 		try {
-			HttpResponse response = httpClient.execute(httpGet);
+			CloseableHttpResponse response = send(httpGet);
 
 			HttpEntity entity = response.getEntity();
 
 			result = entity.getContent();
 		} catch (ConnectionPoolTimeoutException e) {
-			log.error("http get throw ConnectionPoolTimeoutException(wait time out)");
-
+			log.error("http get throw ConnectionPoolTimeoutException(wait time out), url=" + httpGet.getURI());
+			httpGet.abort();
 		} catch (ConnectTimeoutException e) {
-			log.error("http get throw ConnectTimeoutException");
-
+			log.error("http get throw ConnectTimeoutException, url=" + httpGet.getURI());
+			httpGet.abort();
 		} catch (SocketTimeoutException e) {
-			log.error("http get throw SocketTimeoutException");
-
+			log.error("http get throw SocketTimeoutException, url=" + httpGet.getURI());
+			httpGet.abort();
 		} catch (Exception e) {
-			log.error("http get throw Exception");
-
-		} finally {
+			log.error("http get throw Exception, url=" + httpGet.getURI(), e);
 			httpGet.abort();
 		}
 
 		return result;
 	}
 
-	public static String doGet(String url, Map<String, String> params, int connectTimeout, int socketTimeout) {
-		RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(socketTimeout)
-				.setConnectTimeout(connectTimeout).build();
-		CloseableHttpClient httpClient = HttpClients.custom().build();
-		StringBuffer urlStr = new StringBuffer(url);
-		if (params != null && params.size() > 0) {
-			for (Entry<String, String> entry : params.entrySet()) {
-				if (StringUtil.notEmpty(entry.getValue())) {
-					if (urlStr.indexOf("?") == -1)
-						urlStr.append("?");
-					else
-						urlStr.append("&");
-
-					urlStr.append(entry.getKey()).append("=").append(entry.getValue());
-				}
+	/**
+	 * 执行HTTP GET请求并以流的方式处理响应体，响应体不会整体读入内存。
+	 * <p>
+	 * 连接在handler执行期间保持打开，执行完成后自动归还连接池；handler抛出异常时连接被中止而不是复用。
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param params
+	 *            请求参数
+	 * @param handler
+	 *            响应体处理器，见{@link BodyHandler#ofOutputStream}、{@link BodyHandler#ofChannel}、
+	 *            {@link BodyHandler#ofFile}
+	 * @return handler的处理结果
+	 * @throws IOException
+	 *             请求失败或响应状态码大于等于400
+	 */
+	public static <T> T doGetStream(String url, Map<String, String> params, BodyHandler<T> handler,
+			int connectTimeout, int socketTimeout) throws IOException {
+		return executeStreaming(newGet(url, null, params, connectTimeout, socketTimeout), response -> {
+			HttpEntity entity = response.getEntity();
+			if (entity == null) {
+				return handler.handle(new ByteArrayInputStream(new byte[0]), 0);
 			}
+			return handler.handle(entity.getContent(), entity.getContentLength());
+		});
+	}
+
+	/**
+	 * 执行HTTP GET请求，把JSON响应体直接解析为指定类型，不经过中间字符串，字符集规则见{@link JsonBody}
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param params
+	 *            请求参数
+	 * @param type
+	 *            响应类型
+	 * @return 解析结果，响应体为空时返回null
+	 * @throws IOException
+	 *             请求失败、响应状态码大于等于400或JSON格式错误
+	 */
+	public static <T> T doGetJson(String url, Map<String, String> params, Class<T> type, int connectTimeout,
+			int socketTimeout) throws IOException {
+		return executeJson(newGet(url, null, params, connectTimeout, socketTimeout), JsonBody.type(type));
+	}
+
+	/**
+	 * 执行HTTP GET请求，把JSON响应体直接解析为泛型类型，例如new TypeReference&lt;List&lt;Order&gt;&gt;() {}
+	 *
+	 * @see #doGetJson(String, Map, Class, int, int)
+	 */
+	public static <T> T doGetJson(String url, Map<String, String> params, TypeReference<T> type,
+			int connectTimeout, int socketTimeout) throws IOException {
+		return executeJson(newGet(url, null, params, connectTimeout, socketTimeout), JsonBody.type(type));
+	}
+
+	/**
+	 * 执行HTTP GET请求，逐个解析响应体JSON数组中的元素交给action，整个数组不会读入内存，适合大的列表
+	 * <p>
+	 * action在连接有效期内同步执行，抛出异常时连接被中止。
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param params
+	 *            请求参数
+	 * @param elementType
+	 *            数组元素类型
+	 * @param action
+	 *            元素处理
+	 * @return 元素个数
+	 * @throws IOException
+	 *             请求失败、响应状态码大于等于400、响应体不是JSON数组或JSON格式错误
+	 */
+	public static <T> long doGetJsonArray(String url, Map<String, String> params, Class<T> elementType,
+			Consumer<? super T> action, int connectTimeout, int socketTimeout) throws IOException {
+		return executeStreaming(newGet(url, null, params, connectTimeout, socketTimeout),
+				response -> JsonBody.forEach(response.getEntity(), JsonBody.type(elementType), action));
+	}
+
+	/**
+	 * 以JSON请求体执行HTTP POST请求，请求对象直接序列化为UTF-8字节，JSON响应体直接解析为指定类型
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param headers
+	 *            请求头，可以为null
+	 * @param body
+	 *            请求对象
+	 * @param type
+	 *            响应类型
+	 * @return 解析结果，响应体为空时返回null
+	 * @throws IOException
+	 *             请求失败、响应状态码大于等于400或JSON格式错误
+	 */
+	public static <T> T doPostJson(String url, Map<String, String> headers, Object body, Class<T> type,
+			int connectTimeout, int socketTimeout) throws IOException {
+		return executeJson(newJsonPost(url, headers, body, connectTimeout, socketTimeout), JsonBody.type(type));
+	}
+
+	/**
+	 * 以JSON请求体执行HTTP POST请求，JSON响应体直接解析为泛型类型
+	 *
+	 * @see #doPostJson(String, Map, Object, Class, int, int)
+	 */
+	public static <T> T doPostJson(String url, Map<String, String> headers, Object body, TypeReference<T> type,
+			int connectTimeout, int socketTimeout) throws IOException {
+		return executeJson(newJsonPost(url, headers, body, connectTimeout, socketTimeout), JsonBody.type(type));
+	}
+
+	/**
+	 * 以multipart/form-data执行HTTP POST请求上传文件，文件内容在发送时直接从文件读取，不读入堆内存
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param headers
+	 *            请求头，可以为null
+	 * @param body
+	 *            表单字段和文件
+	 * @return 响应内容
+	 * @throws IOException
+	 *             请求失败、读取文件失败或响应状态码大于等于400
+	 */
+	public static String doPostMultipart(String url, Map<String, String> headers, MultipartBody body,
+			int connectTimeout, int socketTimeout) throws IOException {
+		return execute(newUploadPost(url, headers, body.toEntity(), connectTimeout, socketTimeout));
+	}
+
+	/**
+	 * 以文件内容作为请求体执行HTTP POST请求，Content-Length为文件大小，文件内容在发送时直接从文件读取
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param headers
+	 *            请求头，可以为null
+	 * @param file
+	 *            文件路径
+	 * @param contentType
+	 *            请求体类型，null时为application/octet-stream
+	 * @return 响应内容
+	 * @throws IOException
+	 *             请求失败、读取文件失败或响应状态码大于等于400
+	 */
+	public static String doPostFile(String url, Map<String, String> headers, Path file, String contentType,
+			int connectTimeout, int socketTimeout) throws IOException {
+		return execute(newUploadPost(url, headers, uploadEntity(new FileRegion(file), contentType), connectTimeout,
+				socketTimeout));
+	}
+
+	/**
+	 * 以已打开文件中的一段作为请求体执行HTTP POST请求，例如分片上传；按位置读取，不改变通道的位置，也不关闭通道
+	 *
+	 * @param position
+	 *            起始位置
+	 * @param count
+	 *            字节数
+	 * @see #doPostFile(String, Map, Path, String, int, int)
+	 */
+	public static String doPostFile(String url, Map<String, String> headers, FileChannel channel, long position,
+			long count, String contentType, int connectTimeout, int socketTimeout) throws IOException {
+		return execute(newUploadPost(url, headers, uploadEntity(new FileRegion(channel, position, count), contentType),
+				connectTimeout, socketTimeout));
+	}
+
+	public static String doGet(String url, Map<String, String> params, int connectTimeout, int socketTimeout) {
+		return doGet(newGet(url, null, params, connectTimeout, socketTimeout), DEFAULT_CHARSET);
+	}
+
+	public static String doGet(String url, Map<String, String> headers, Map<String, String> params, int connectTimeout,
+			int socketTimeout) {
+		return doGet(newGet(url, headers, params, connectTimeout, socketTimeout), DEFAULT_CHARSET);
+	}
+
+	public static String doGet(String url, String ctype, Map<String, String> params, int connectTimeout,
+			int socketTimeout) {
+		HttpGet httpGet = newGet(url, null, params, connectTimeout, socketTimeout);
+		if (StringUtil.areNotEmpty(ctype)) {
+			return doGet(httpGet, ctype);
+		} else {
+			return doGet(httpGet, DEFAULT_CHARSET);
 		}
-		HttpGet httpGet = new HttpGet(urlStr.toString());
-		httpGet.setConfig(requestConfig);
-		String result = null;
-		try {
-			HttpResponse response = httpClient.execute(httpGet);
+	}
 
-			HttpEntity entity = response.getEntity();
+	/**
+	 * 设置GET请求的响应缓存，为null时不缓存(默认)
+	 *
+	 * @param cache
+	 *            响应缓存
+	 */
+	public static void setResponseCache(HttpResponseCache cache) {
+		responseCache = cache;
+	}
 
-			result = EntityUtils.toString(entity, "UTF-8");
+	public static HttpResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	/**
+	 * 设置GET请求合并器，为null时不合并(默认)。
+	 * <p>
+	 * 启用后URL、请求头和字符集都相同的并发GET请求只向上游发送一次，所有调用方得到同一个响应或同一个异常。
+	 *
+	 * @param coalescer
+	 *            请求合并器
+	 */
+	public static void setRequestCoalescer(SingleFlight<String> coalescer) {
+		requestCoalescer = coalescer;
+	}
+
+	public static SingleFlight<String> getRequestCoalescer() {
+		return requestCoalescer;
+	}
+
+	/**
+	 * 设置同步请求的传输层，为null时全部走共享连接池(默认)。
+	 * <p>
+	 * 传输层支持的地址由其发送，例如{@link Http2Transport}在少量连接上多路复用并发请求；
+	 * 此时{@link #execute(HttpRequestBase, TlsProfile)}的TLS配置不生效，异步请求仍走共享异步客户端。
+	 *
+	 * @param httpTransport
+	 *            传输层
+	 */
+	public static void setTransport(HttpTransport httpTransport) {
+		transport = httpTransport;
+	}
+
+	public static HttpTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * 设置同步幂等请求的重试与对冲策略，为null时不重试(默认)
+	 *
+	 * @param policy
+	 *            重试策略
+	 */
+	public static void setRetryPolicy(RetryPolicy policy) {
+		retryPolicy = policy;
+	}
+
+	public static RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * 设置{@link #getRemoteHost(HttpServletRequest)}使用的客户端IP解析器，为null时恢复默认的可信代理网段
+	 *
+	 * @param resolver
+	 *            客户端IP解析器
+	 */
+	public static void setClientIpResolver(ClientIpResolver resolver) {
+		clientIpResolver = resolver == null ? ClientIpResolver.getDefault() : resolver;
+	}
+
+	public static ClientIpResolver getClientIpResolver() {
+		return clientIpResolver;
+	}
+
+	/**
+	 * 设置按上游主机的熔断器，为null时不熔断(默认)。对每次实际发出的同步请求(含重试和对冲)生效
+	 *
+	 * @param breaker
+	 *            熔断器
+	 */
+	public static void setCircuitBreaker(CircuitBreaker breaker) {
+		circuitBreaker = breaker;
+		rebuildGuards();
+	}
+
+	public static CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * 设置按上游主机或URL前缀的令牌桶限流，为null时不限流(默认)。对每次实际发出的同步请求(含重试和对冲)生效
+	 *
+	 * @param limiter
+	 *            限流规则
+	 */
+	public static void setRateLimiter(RateLimiter limiter) {
+		rateLimiter = limiter;
+		rebuildGuards();
+	}
+
+	public static RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * 设置按上游主机或URL前缀的舱壁，为null时不限制(默认)。舱壁已满时同步请求立即失败
+	 *
+	 * @param compartments
+	 *            舱壁规则
+	 */
+	public static void setBulkhead(Bulkhead compartments) {
+		bulkhead = compartments;
+		rebuildGuards();
+	}
+
+	public static Bulkhead getBulkhead() {
+		return bulkhead;
+	}
+
+	/**
+	 * 设置按上游主机的自适应并发限制，为null时不限制(默认)。超过上限的同步请求立即失败
+	 *
+	 * @param limiter
+	 *            并发限制
+	 */
+	public static void setConcurrencyLimiter(ConcurrencyLimiter limiter) {
+		concurrencyLimiter = limiter;
+		rebuildGuards();
+	}
+
+	public static ConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
+	/**
+	 * 熔断器最先检查，打开时不占用其他保护的名额；限流在舱壁之前，等待令牌时不占用舱壁
+	 */
+	private static synchronized void rebuildGuards() {
+		List<UpstreamGuard> active = new ArrayList<>(4);
+		if (circuitBreaker != null) {
+			active.add(circuitBreaker);
+		}
+		if (rateLimiter != null) {
+			active.add(rateLimiter);
+		}
+		if (bulkhead != null) {
+			active.add(bulkhead);
+		}
+		if (concurrencyLimiter != null) {
+			active.add(concurrencyLimiter);
+		}
+		guards = active.toArray(new UpstreamGuard[0]);
+	}
+
+	private static String doGet(HttpGet httpGet, String charset) {
+		String result = null;
+		try {
+			SingleFlight<String> coalescer = requestCoalescer;
+			if (coalescer != null) {
+				result = coalescer.execute(requestKey(httpGet, charset), () -> load(httpGet, charset));
+			} else {
+				result = load(httpGet, charset);
+			}
 		} catch (ConnectionPoolTimeoutException e) {
-			log.error("http get throw ConnectionPoolTimeoutException(wait time out)");
+			log.error("http get throw ConnectionPoolTimeoutException(wait time out), url=" + httpGet.getURI());
 
 		} catch (ConnectTimeoutException e) {
-			log.error("http get throw ConnectTimeoutException");
+			log.error("http get throw ConnectTimeoutException, url=" + httpGet.getURI());
 
 		} catch (SocketTimeoutException e) {
-			log.error("http get throw SocketTimeoutException");
+			log.error("http get throw SocketTimeoutException, url=" + httpGet.getURI());
+
+		} catch (UpstreamRejectedException e) {
+			log.error("http get rejected(" + e.getReason() + "), url=" + httpGet.getURI());
 
 		} catch (Exception e) {
-			log.error("http get throw Exception");
+			log.error("http get throw Exception, url=" + httpGet.getURI(), e);
 
-		} finally {
-			httpGet.abort();
 		}
 
 		return result;
 	}
 
-	public static String doGet(String url, Map<String, String> headers, Map<String, String> params, int connectTimeout,
-			int socketTimeout) {
-		RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(socketTimeout)
-				.setConnectTimeout(connectTimeout).build();
-		CloseableHttpClient httpClient = HttpClients.custom().build();
-		StringBuffer urlStr = new StringBuffer(url);
-		if (params != null && params.size() > 0) {
-			for (Entry<String, String> entry : params.entrySet()) {
-				if (StringUtil.notEmpty(entry.getValue())) {
-					if (urlStr.indexOf("?") == -1)
-						urlStr.append("?");
-					else
-						urlStr.append("&");
-
-					urlStr.append(entry.getKey()).append("=").append(entry.getValue());
-				}
-			}
+	private static String load(HttpGet httpGet, String charset) throws IOException {
+		HttpResponseCache cache = responseCache;
+		if (cache != null) {
+			return cache.get(httpGet, charset);
 		}
-		HttpGet httpGet = new HttpGet(urlStr.toString());
-		if (headers != null && headers.size() > 0) {
-			for (Entry<String, String> entry : headers.entrySet()) {
-				httpGet.addHeader(entry.getKey(), entry.getValue());
-			}
+		CloseableHttpResponse response = send(httpGet);
+		try {
+			return BodyDecoder.toString(response.getEntity(), charset);
+		} finally {
+			closeQuietly(response);
 		}
-		httpGet.setConfig(requestConfig);
+	}
+
+	/**
+	 * 请求标识：方法、完整URL、解码字符集和按名称排序的全部请求头
+	 */
+	static String requestKey(HttpRequestBase request, String charset) {
+		StringBuilder key = new StringBuilder(128);
+		key.append(request.getMethod()).append(' ').append(request.getURI()).append(' ').append(charset);
+		Header[] headers = request.getAllHeaders();
+		if (headers.length > 1) {
+			headers = headers.clone();
+			Arrays.sort(headers, Comparator.comparing((Header header) -> header.getName().toLowerCase(Locale.ROOT))
+					.thenComparing(Header::getValue));
+		}
+		for (Header header : headers) {
+			key.append('\n').append(header.getName().toLowerCase(Locale.ROOT)).append(':').append(header.getValue());
+		}
+		return key.toString();
+	}
+
+	/**
+	 * 执行HTTP GET请求，返回响应第一个Set-Cookie的JSON
+	 *
+	 * @see HttpSessionStore 需要保持登录状态时使用会话
+	 */
+	public static String doGetCookie(String url, Map<String, String> params, int connectTimeout, int socketTimeout) {
+		HttpGet httpGet = newGet(url, null, params, connectTimeout, socketTimeout);
 		String result = null;
+		CloseableHttpResponse response = null;
 		try {
-			HttpResponse response = httpClient.execute(httpGet);
+			response = send(httpGet);
 
-			HttpEntity entity = response.getEntity();
+			Header header = response.getFirstHeader("Set-Cookie");
 
-			result = EntityUtils.toString(entity, "UTF-8");
+			result = JsonUtil.writeValueAsString(header.getElements());
 		} catch (ConnectionPoolTimeoutException e) {
-			log.error("http get throw ConnectionPoolTimeoutException(wait time out)");
+			log.error("http get throw ConnectionPoolTimeoutException(wait time out), url=" + httpGet.getURI());
 
 		} catch (ConnectTimeoutException e) {
-			log.error("http get throw ConnectTimeoutException");
+			log.error("http get throw ConnectTimeoutException, url=" + httpGet.getURI());
 
 		} catch (SocketTimeoutException e) {
-			log.error("http get throw SocketTimeoutException");
+			log.error("http get throw SocketTimeoutException, url=" + httpGet.getURI());
 
 		} catch (Exception e) {
-			log.error("http get throw Exception");
+			log.error("http get throw Exception, url=" + httpGet.getURI(), e);
 
 		} finally {
-			httpGet.abort();
+			closeQuietly(response);
 		}
 
 		return result;
 	}
 
-	public static String doGet(String url, String ctype, Map<String, String> params, int connectTimeout,
+	/**
+	 * 异步执行HTTP GET请求，参数和字符集处理与{@link #doGet(String, Map, int, int)}一致。
+	 * <p>
+	 * 与同步方法不同，请求失败时返回的Future以异常结束，而不是返回null；取消Future会中断底层请求。
+	 * 回调在IO线程中完成，耗时的后续处理请使用thenApplyAsync等方法切换到业务线程池。
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param params
+	 *            请求参数
+	 * @return 响应字符串
+	 */
+	public static CompletableFuture<String> doGetAsync(String url, Map<String, String> params, int connectTimeout,
 			int socketTimeout) {
-		RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(socketTimeout)
-				.setConnectTimeout(connectTimeout).build();
-		CloseableHttpClient httpClient = HttpClients.custom().build();
-		StringBuffer urlStr = new StringBuffer(url);
-		if (params != null && params.size() > 0) {
-			for (Entry<String, String> entry : params.entrySet()) {
-				if (StringUtil.notEmpty(entry.getValue())) {
-					if (urlStr.indexOf("?") == -1)
-						urlStr.append("?");
-					else
-						urlStr.append("&");
-
-					urlStr.append(entry.getKey()).append("=").append(entry.getValue());
-				}
-			}
-		}
-		HttpGet httpGet = new HttpGet(urlStr.toString());
-		httpGet.setConfig(requestConfig);
-		String result = null;
-		try {
-			HttpResponse response = httpClient.execute(httpGet);
+		return doGetAsync(url, null, params, connectTimeout, socketTimeout);
+	}
 
-			HttpEntity entity = response.getEntity();
+	/**
+	 * 异步执行HTTP GET请求，参数和字符集处理与{@link #doGet(String, Map, Map, int, int)}一致。
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param headers
+	 *            请求头
+	 * @param params
+	 *            请求参数
+	 * @return 响应字符串
+	 */
+	public static CompletableFuture<String> doGetAsync(String url, Map<String, String> headers,
+			Map<String, String> params, int connectTimeout, int socketTimeout) {
+		try {
+			return executeAsync(newGet(url, headers, params, connectTimeout, socketTimeout), GET_HANDLER);
+		} catch (Exception e) {
+			return failedFuture(e);
+		}
+	}
 
-			if (StringUtil.areNotEmpty(ctype)) {
-				result = EntityUtils.toString(entity, ctype);
-			} else {
-				result = EntityUtils.toString(entity, "UTF-8");
-			}
-		} catch (ConnectionPoolTimeoutException e) {
-			log.error("http get throw ConnectionPoolTimeoutException(wait time out)");
+	/**
+	 * 异步执行HTTP POST表单请求，参数和字符集处理与{@link #doPost(String, Map, int, int)}一致。
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param params
+	 *            请求参数
+	 * @return 响应字符串
+	 */
+	public static CompletableFuture<String> doPostAsync(String url, Map<String, String> params, int connectTimeout,
+			int readTimeout) {
+		return doPostAsync(url, null, params, DEFAULT_CHARSET, connectTimeout, readTimeout);
+	}
 
-		} catch (ConnectTimeoutException e) {
-			log.error("http get throw ConnectTimeoutException");
+	/**
+	 * 异步执行HTTP POST表单请求，参数和字符集处理与{@link #doPost(String, Map, Map, String, int, int)}一致。
+	 * <p>
+	 * 响应状态码大于等于400时Future以IOException结束，异常信息为响应内容。
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param headers
+	 *            请求头
+	 * @param params
+	 *            请求参数
+	 * @param charset
+	 *            字符集
+	 * @return 响应字符串
+	 */
+	public static CompletableFuture<String> doPostAsync(String url, Map<String, String> headers,
+			Map<String, String> params, String charset, int connectTimeout, int readTimeout) {
+		try {
+			return executeAsync(newFormPost(url, headers, params, charset, connectTimeout, readTimeout),
+					FORM_POST_HANDLER);
+		} catch (Exception e) {
+			return failedFuture(e);
+		}
+	}
 
-		} catch (SocketTimeoutException e) {
-			log.error("http get throw SocketTimeoutException");
+	/**
+	 * 并发执行一批请求，使用默认并发数且不设整体超时，见{@link #executeAll(List, int, long)}
+	 *
+	 * @param specs
+	 *            请求列表
+	 * @return 与请求列表顺序一致的结果
+	 */
+	public static List<HttpResult> executeAll(List<HttpRequestSpec> specs) {
+		return HttpBatchExecutor.executeAll(specs, HttpBatchExecutor.DEFAULT_MAX_CONCURRENCY, 0);
+	}
 
-		} catch (Exception e) {
-			log.error("http get throw Exception");
+	/**
+	 * 并发执行一批请求，整批耗时取决于最慢的请求而不是所有请求耗时之和。
+	 * <p>
+	 * JDK支持虚拟线程时每个请求运行在独立的虚拟线程上，否则使用有界线程池。单个请求失败不影响其他请求，
+	 * 失败原因记录在对应的{@link HttpResult}中；超过整体超时时间仍未完成的请求会被中止。
+	 *
+	 * @param specs
+	 *            请求列表
+	 * @param maxConcurrency
+	 *            本批次最大并发请求数
+	 * @param timeoutMillis
+	 *            整批请求的超时时间(毫秒)，小于等于0表示不限制
+	 * @return 与请求列表顺序一致的结果
+	 */
+	public static List<HttpResult> executeAll(List<HttpRequestSpec> specs, int maxConcurrency, long timeoutMillis) {
+		return HttpBatchExecutor.executeAll(specs, maxConcurrency, timeoutMillis);
+	}
 
+	/**
+	 * 通过共享连接池执行任意请求，按响应声明的字符集(默认UTF-8)读取响应内容
+	 *
+	 * @param request
+	 *            请求
+	 * @param tlsProfile
+	 *            https请求使用的TLS配置，为null时使用共享客户端的默认配置
+	 * @return 响应字符串
+	 * @throws IOException
+	 *             请求失败或响应状态码大于等于400
+	 */
+	public static String execute(HttpRequestBase request, TlsProfile tlsProfile) throws IOException {
+		HttpClientContext context = newContext();
+		if (tlsProfile != null && "https".equalsIgnoreCase(request.getURI().getScheme())) {
+			tlsProfile.apply(context);
+		}
+		CloseableHttpResponse response = send(request, context);
+		try {
+			return FORM_POST_HANDLER.handleResponse(response);
 		} finally {
-			httpGet.abort();
+			closeQuietly(response);
 		}
+	}
 
-		return result;
+	/**
+	 * 通过共享连接池发送请求，调用方负责关闭响应
+	 */
+	static CloseableHttpResponse send(HttpRequestBase request) throws IOException {
+		return send(request, newContext());
 	}
 
-	public static String doGetCookie(String url, Map<String, String> params, int connectTimeout, int socketTimeout) {
-		RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(socketTimeout)
-				.setConnectTimeout(connectTimeout).build();
-		CloseableHttpClient httpClient = HttpClients.custom().build();
-		StringBuffer urlStr = new StringBuffer(url);
-		if (params != null && params.size() > 0) {
-			for (Entry<String, String> entry : params.entrySet()) {
-				if (StringUtil.notEmpty(entry.getValue())) {
-					if (urlStr.indexOf("?") == -1)
-						urlStr.append("?");
-					else
-						urlStr.append("&");
-
-					urlStr.append(entry.getKey()).append("=").append(entry.getValue());
+	static CloseableHttpResponse send(HttpRequestBase request, HttpClientContext context) throws IOException {
+		RetryPolicy policy = retryPolicy;
+		if (policy == null || !policy.supports(request)) {
+			return sendOnce(request, context);
+		}
+		// 对冲请求与原请求并发执行，使用继承原上下文(TLS配置、cookie)的独立上下文
+		return policy.execute(request, attempt -> sendOnce(attempt,
+				attempt == request ? context : HttpClientContext.adapt(new BasicHttpContext(context))));
+	}
+
+	/**
+	 * 发送一次请求，依次经过已启用的上游保护，结束时把状态码和耗时反馈给各保护；
+	 * 被本地中止的请求以{@link RequestCancelledException}反馈
+	 */
+	private static CloseableHttpResponse sendOnce(HttpRequestBase request, HttpClientContext context)
+			throws IOException {
+		UpstreamGuard[] active = guards;
+		if (active.length == 0) {
+			return dispatch(request, context);
+		}
+		URI uri = request.getURI();
+		String host = HttpMetrics.host(uri);
+		for (int i = 0; i < active.length; i++) {
+			try {
+				active[i].acquire(host, uri);
+			} catch (UpstreamRejectedException e) {
+				// 归还前面已放行的保护
+				for (int j = 0; j < i; j++) {
+					active[j].release(host, uri, -1, e, 0);
 				}
+				throw e;
 			}
 		}
-		HttpGet httpGet = new HttpGet(urlStr.toString());
-		httpGet.setConfig(requestConfig);
-		String result = null;
+		long start = System.nanoTime();
+		int statusCode = -1;
+		Throwable error = null;
 		try {
-			HttpResponse response = httpClient.execute(httpGet);
+			CloseableHttpResponse response = dispatch(request, context);
+			statusCode = response.getStatusLine().getStatusCode();
+			return response;
+		} catch (IOException | RuntimeException e) {
+			// 被本地中止的请求不计入上游的失败
+			error = RequestCancelledException.isCancelled(request, e) ? RequestCancelledException.INSTANCE : e;
+			throw e;
+		} finally {
+			long latency = System.nanoTime() - start;
+			for (UpstreamGuard guard : active) {
+				guard.release(host, uri, statusCode, error, latency);
+			}
+		}
+	}
 
-			Header header = response.getFirstHeader("Set-Cookie");
+	/**
+	 * 由传输层或共享连接池发出请求并记录指标
+	 */
+	private static CloseableHttpResponse dispatch(HttpRequestBase request, HttpClientContext context)
+			throws IOException {
+		long start = System.nanoTime();
+		try {
+			HttpTransport current = transport;
+			// 会话请求依赖连接池客户端的cookie处理，跟随POST重定向依赖连接池客户端的重定向策略，都不交给传输层
+			CloseableHttpResponse response = current != null && current.supports(request)
+					&& !(context.getCookieStore() instanceof CookieJar)
+					&& context.getAttribute(HttpClientManager.FOLLOW_POST_REDIRECTS) == null
+					? current.execute(request) : HttpClientManager.getHttpClient().execute(request, context);
+			HttpMetrics.instrument(request, response, start);
+			return response;
+		} catch (IOException | RuntimeException e) {
+			// 对冲落败、批量超时等本地中止的请求不记录失败和耗时
+			if (!RequestCancelledException.isCancelled(request, e)) {
+				HttpMetrics.recordFailure(request, e, start);
+			}
+			throw e;
+		}
+	}
 
-			result = JsonUtil.writeValueAsString(header.getElements());
-		} catch (ConnectionPoolTimeoutException e) {
-			log.error("http get throw ConnectionPoolTimeoutException(wait time out)");
+	/**
+	 * 根据请求描述构建请求
+	 */
+	static HttpRequestBase newRequest(HttpRequestSpec spec) throws Exception {
+		if (METHOD_POST.equals(spec.getMethod())) {
+			return newFormPost(spec.getUrl(), spec.getHeaders(), spec.getParams(), spec.getCharset(),
+					spec.getConnectTimeout(), spec.getSocketTimeout());
+		}
+		return newGet(spec.getUrl(), spec.getHeaders(), spec.getParams(), spec.getConnectTimeout(),
+				spec.getSocketTimeout());
+	}
 
-		} catch (ConnectTimeoutException e) {
-			log.error("http get throw ConnectTimeoutException");
+	/**
+	 * 通过共享连接池同步执行请求，异常直接抛出由调用方处理
+	 */
+	static String execute(HttpRequestBase request) throws IOException {
+		return execute(request, newContext());
+	}
 
-		} catch (SocketTimeoutException e) {
-			log.error("http get throw SocketTimeoutException");
+	private static String execute(HttpRequestBase request, HttpClientContext context) throws IOException {
+		ResponseHandler<String> handler = request instanceof HttpPost ? FORM_POST_HANDLER : GET_HANDLER;
+		CloseableHttpResponse response = send(request, context);
+		try {
+			return handler.handleResponse(response);
+		} finally {
+			closeQuietly(response);
+		}
+	}
 
-		} catch (Exception e) {
-			log.error("http get throw Exception");
+	private static <T> T executeJson(HttpRequestBase request, JavaType type) throws IOException {
+		return executeStreaming(request, response -> JsonBody.read(response.getEntity(), type));
+	}
 
+	/**
+	 * 在连接有效期内由handler读取响应流，读取完成后连接归还连接池；状态码大于等于400或handler失败时中止连接
+	 */
+	private static <T> T executeStreaming(HttpRequestBase request, ResponseHandler<T> handler) throws IOException {
+		CloseableHttpResponse response = send(request);
+		try {
+			int status = response.getStatusLine().getStatusCode();
+			if (status >= 400) {
+				throw new IOException(status + ":" + response.getStatusLine().getReasonPhrase());
+			}
+			T result = handler.handleResponse(response);
+			// 读完剩余内容后连接自动归还连接池
+			EntityUtils.consume(response.getEntity());
+			return result;
+		} catch (IOException | RuntimeException e) {
+			request.abort();
+			throw e;
 		} finally {
-			httpGet.abort();
+			response.close();
 		}
+	}
 
-		return result;
+	static HttpGet newGet(String url, Map<String, String> headers, Map<String, String> params,
+			int connectTimeout, int socketTimeout) {
+		RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(socketTimeout)
+				.setConnectTimeout(connectTimeout).build();
+		HttpGet httpGet = new HttpGet(QueryEncoder.appendQuery(url, params));
+		if (headers != null && headers.size() > 0) {
+			for (Entry<String, String> entry : headers.entrySet()) {
+				httpGet.addHeader(entry.getKey(), entry.getValue());
+			}
+		}
+		httpGet.setConfig(requestConfig);
+		return httpGet;
 	}
 
-	private static HttpURLConnection getConnection(URL url, String method, String ctype, Map<String, String> headers)
-			throws IOException {
-		HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-		conn.setRequestMethod(method);
-		conn.setDoInput(true);
-		conn.setDoOutput(true);
-		conn.setRequestProperty("Accept", "text/xml,text/javascript,text/html,application/json");
-		conn.setRequestProperty("User-Agent", "yiyun-sdk-java");
-		conn.setRequestProperty("Content-Type", ctype);
+	/**
+	 * 构建表单POST请求
+	 */
+	private static HttpPost newFormPost(String url, Map<String, String> headers, Map<String, String> params,
+			String charset, int connectTimeout, int readTimeout) throws Exception {
+		String query = buildQuery(params, charset);
+		byte[] content = {};
+		if (query != null) {
+			content = query.getBytes(charset);
+		}
+		return newPost(url, "application/x-www-form-urlencoded;charset=" + charset, headers, content, connectTimeout,
+				readTimeout);
+	}
 
+	/**
+	 * 构建POST请求，默认请求头与原HttpURLConnection实现一致，调用方请求头可以覆盖默认值
+	 */
+	static HttpPost newPost(String url, String ctype, Map<String, String> headers, byte[] content,
+			int connectTimeout, int readTimeout) {
+		RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(readTimeout)
+				.setConnectTimeout(connectTimeout).build();
+		HttpPost httpPost = new HttpPost(url);
+		httpPost.setEntity(new ByteArrayEntity(content));
+		httpPost.setHeader("Accept", "text/xml,text/javascript,text/html,application/json");
+		httpPost.setHeader("User-Agent", "yiyun-sdk-java");
+		httpPost.setHeader("Content-Type", ctype);
 		if (headers != null && headers.size() > 0) {
 			for (Map.Entry<String, String> entry : headers.entrySet()) {
-				String name = entry.getKey();
-				String value = entry.getValue();
 				// 忽略参数名或参数值为空的参数
-				if (StringUtil.areNotEmpty(name, value)) {
-					conn.setRequestProperty(name, value);
+				if (StringUtil.areNotEmpty(entry.getKey(), entry.getValue())) {
+					httpPost.setHeader(entry.getKey(), entry.getValue());
 				}
 			}
 		}
-		return conn;
+		httpPost.setConfig(requestConfig);
+		return httpPost;
 	}
 
-	protected static String getResponseAsString(HttpURLConnection conn) throws IOException {
-		String charset = getResponseCharset(conn.getContentType());
-		InputStream es = conn.getErrorStream();
-		if (es == null) {
-			return getStreamAsString(conn.getInputStream(), charset);
-		} else {
-			String msg = getStreamAsString(es, charset);
-			if (StringUtil.isEmpty(msg)) {
-				throw new IOException(conn.getResponseCode() + ":" + conn.getResponseMessage());
-			} else {
-				throw new IOException(msg);
+	private static HttpPost newJsonPost(String url, Map<String, String> headers, Object body, int connectTimeout,
+			int socketTimeout) throws IOException {
+		HttpPost httpPost = newPost(url, "application/json;charset=UTF-8", headers, JsonBody.write(body),
+				connectTimeout, socketTimeout);
+		httpPost.setEntity(HttpCompression.compressRequest(HttpMetrics.host(httpPost.getURI()), httpPost.getEntity()));
+		return httpPost;
+	}
+
+	/**
+	 * 构建上传请求，请求体不做gzip压缩(文件通常已是压缩格式，压缩也需要先缓冲整个文件)
+	 */
+	private static HttpPost newUploadPost(String url, Map<String, String> headers, UploadEntity entity,
+			int connectTimeout, int socketTimeout) {
+		HttpPost httpPost = newPost(url, entity.getContentType().getValue(), headers, new byte[0], connectTimeout,
+				socketTimeout);
+		httpPost.setEntity(entity);
+		return httpPost;
+	}
+
+	private static UploadEntity uploadEntity(FileRegion region, String contentType) {
+		List<Object> parts = new ArrayList<>(1);
+		parts.add(region);
+		return new UploadEntity(parts, contentType == null ? "application/octet-stream" : contentType);
+	}
+
+	/**
+	 * 通过共享异步客户端执行请求，Future被取消时同时取消底层请求
+	 */
+	private static <T> CompletableFuture<T> executeAsync(HttpUriRequest request, ResponseHandler<T> handler) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		long start = System.nanoTime();
+		HttpClientContext context = newContext();
+		Future<HttpResponse> future = HttpClientManager.getAsyncHttpClient().execute(request, context,
+				new FutureCallback<HttpResponse>() {
+					@Override
+					public void completed(HttpResponse response) {
+						try {
+							// 异步客户端不自动解压，与同步客户端一样按Content-Encoding包装响应体
+							RESPONSE_CONTENT_ENCODING.process(response, context);
+							HttpMetrics.instrument(request, response, start);
+							result.complete(handler.handleResponse(response));
+						} catch (Exception e) {
+							result.completeExceptionally(e);
+						}
+					}
+
+					@Override
+					public void failed(Exception ex) {
+						log.error("http async " + request.getMethod() + " throw " + ex.getClass().getSimpleName() + ", url="
+								+ request.getURI());
+						HttpMetrics.recordFailure(request, ex, start);
+						result.completeExceptionally(ex);
+					}
+
+					@Override
+					public void cancelled() {
+						result.cancel(false);
+					}
+				});
+		result.whenComplete((r, e) -> {
+			if (result.isCancelled()) {
+				future.cancel(true);
 			}
-		}
+		});
+		return result;
+	}
+
+	private static <T> CompletableFuture<T> failedFuture(Throwable e) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		future.completeExceptionally(e);
+		return future;
+	}
+
+	/**
+	 * 每次请求使用独立的cookie存储，避免共享客户端在不同调用之间串用cookie
+	 */
+	private static HttpClientContext newContext() {
+		HttpClientContext context = HttpClientContext.create();
+		context.setCookieStore(new BasicCookieStore());
+		return context;
 	}
 
-	private static String getStreamAsString(InputStream stream, String charset) throws IOException {
+	/**
+	 * 读完剩余响应体并关闭响应，使连接归还连接池以便复用
+	 */
+	static void closeQuietly(CloseableHttpResponse response) {
+		if (response == null) {
+			return;
+		}
+		EntityUtils.consumeQuietly(response.getEntity());
 		try {
-			BufferedReader reader = new BufferedReader(new InputStreamReader(stream, charset));
-			StringWriter writer = new StringWriter();
+			response.close();
+		} catch (IOException e) {
+			log.error("http response close throw IOException", e);
+		}
+	}
 
-			char[] chars = new char[256];
-			int count = 0;
-			while ((count = reader.read(chars)) > 0) {
-				writer.write(chars, 0, count);
-			}
+	static String getStreamAsString(InputStream stream, String charset) throws IOException {
+		return getStreamAsString(stream, -1, charset);
+	}
 
-			return writer.toString();
+	/**
+	 * 读取整个流并关闭
+	 *
+	 * @param contentLength
+	 *            长度提示，用于一次分配足够的缓冲区，未知时为-1
+	 */
+	static String getStreamAsString(InputStream stream, long contentLength, String charset) throws IOException {
+		try {
+			return BodyDecoder.decode(stream, contentLength, BodyDecoder.forName(charset));
 		} finally {
 			if (stream != null) {
 				stream.close();
@@ -634,7 +1296,7 @@ public class HttpUtil {
 		}
 	}
 
-	private static String getResponseCharset(String ctype) {
+	static String getResponseCharset(String ctype) {
 		String charset = DEFAULT_CHARSET;
 
 		if (!StringUtil.isEmpty(ctype)) {
@@ -681,31 +1343,16 @@ public class HttpUtil {
 		}
 	}
 
+	/**
+	 * 取得请求的客户端IP，只采信可信代理添加的转发头，规则见{@link ClientIpResolver}
+	 *
+	 * @param request
+	 * @return 规范化的客户端IP
+	 */
 	public static String getRemoteHost(HttpServletRequest request) {
-		String ip = request.getHeader("X-Forwarded-For");
-		if (!StringUtil.isEmpty(ip) && !"unKnown".equalsIgnoreCase(ip)) {
-			// 多次反向代理后会有多个ip值，第一个ip才是真实ip
-			int index = ip.indexOf(",");
-			if (index != -1) {
-				log.debug(new StringBuffer("请求客户端IP[many-X-Forwarded-For]地址：")
-						.append(replaceLocalIp(ip.substring(0, index))).toString());
-				return replaceLocalIp(ip.substring(0, index));
-			} else {
-				log.debug(new StringBuffer("请求客户端IP[one-X-Forwarded-For]地址：").append(replaceLocalIp(ip)).toString());
-				return replaceLocalIp(ip);
-			}
-		}
-		ip = request.getHeader("X-Real-IP");
-		if (!StringUtil.isEmpty(ip) && !"unKnown".equalsIgnoreCase(ip)) {
-			log.debug(new StringBuffer("请求客户端IP[X-Real-IP]地址：").append(replaceLocalIp(ip)).toString());
-			return replaceLocalIp(ip);
-		}
-		log.debug(new StringBuffer("请求客户端IP[request.getRemoteAddr()]地址：").append(request.getRemoteAddr()).toString());
-		return replaceLocalIp(request.getRemoteAddr());
-	}
-
-	private static String replaceLocalIp(String ip) {
-		return ip.equals("0:0:0:0:0:0:0:1") ? "127.0.0.1" : ip;
+		String ip = clientIpResolver.resolve(request);
+		log.debug("请求客户端IP地址：{}", ip);
+		return ip;
 	}
 
 }
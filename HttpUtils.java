@@ -1,33 +1,54 @@
 package com.cs.mobile.common.utils.http;
 
-import java.io.BufferedReader;
+import com.cs.mobile.common.utils.net.HttpUtil;
+import com.cs.mobile.common.utils.net.TlsProfile;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
-import java.net.URL;
-import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * 通用http发送方法
- * 
+ * <p>
+ * 请求经由{@link HttpUtil}的共享连接池发送，连接复用、压缩协商、指标统计与HttpUtil一致；
+ * 响应按Content-Type声明的字符集(默认UTF-8)整体解码，保留原始换行。
+ *
  * @author wells.wong
  */
 public class HttpUtils
 {
     private static final Logger log = LoggerFactory.getLogger(HttpUtils.class);
 
+    /**
+     * sendSSLPost默认信任所有证书和主机名以兼容已有调用；-Dhttp.ssl.trustAll=false时改用JDK默认信任库
+     * (可通过javax.net.ssl.trustStore指定)并校验主机名
+     */
+    private static final boolean TRUST_ALL = !"false".equalsIgnoreCase(System.getProperty("http.ssl.trustAll"));
+
+    private static final String USER_AGENT = "Mozilla/4.0 (compatible; MSIE 6.0; Windows NT 5.1;SV1)";
+
+    /**
+     * sendSSLPost使用的TLS配置。SSLContext持有TLS会话缓存，长期复用同一实例，新连接可以恢复会话而不是完整握手
+     */
+    private static volatile TlsProfile tlsProfile;
+
     /**
      * 向指定 URL 发送GET方法的请求
      *
@@ -37,24 +58,14 @@ public class HttpUtils
      */
     public static String sendGet(String url, String param)
     {
-        StringBuilder result = new StringBuilder();
-        BufferedReader in = null;
+        String result = "";
         try
         {
             String urlNameString = url + "?" + param;
             log.info("sendGet - {}", urlNameString);
-            URL realUrl = new URL(urlNameString);
-            URLConnection connection = realUrl.openConnection();
-            connection.setRequestProperty("accept", "*/*");
-            connection.setRequestProperty("connection", "Keep-Alive");
-            connection.setRequestProperty("user-agent", "Mozilla/4.0 (compatible; MSIE 6.0; Windows NT 5.1;SV1)");
-            connection.connect();
-            in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-            String line;
-            while ((line = in.readLine()) != null)
-            {
-                result.append(line);
-            }
+            HttpGet httpGet = new HttpGet(urlNameString);
+            setHeaders(httpGet);
+            result = HttpUtil.execute(httpGet, null);
             log.info("recv - {}", result);
         }
         catch (ConnectException e)
@@ -73,21 +84,7 @@ public class HttpUtils
         {
             log.error("调用HttpsUtil.sendGet Exception, url=" + url + ",param=" + param, e);
         }
-        finally
-        {
-            try
-            {
-                if (in != null)
-                {
-                    in.close();
-                }
-            }
-            catch (Exception ex)
-            {
-                log.error("调用in.close Exception, url=" + url + ",param=" + param, ex);
-            }
-        }
-        return result.toString();
+        return result;
     }
 
     /**
@@ -99,31 +96,19 @@ public class HttpUtils
      */
     public static String sendPost(String url, String param)
     {
-        PrintWriter out = null;
-        BufferedReader in = null;
-        StringBuilder result = new StringBuilder();
+        String result = "";
         try
         {
             String urlNameString = url + "?" + param;
             log.info("sendPost - {}", urlNameString);
-            URL realUrl = new URL(urlNameString);
-            URLConnection conn = realUrl.openConnection();
-            conn.setRequestProperty("accept", "*/*");
-            conn.setRequestProperty("connection", "Keep-Alive");
-            conn.setRequestProperty("user-agent", "Mozilla/4.0 (compatible; MSIE 6.0; Windows NT 5.1;SV1)");
-            conn.setRequestProperty("Accept-Charset", "utf-8");
-            conn.setRequestProperty("contentType", "utf-8");
-            conn.setDoOutput(true);
-            conn.setDoInput(true);
-            out = new PrintWriter(conn.getOutputStream());
-            out.print(param);
-            out.flush();
-            in = new BufferedReader(new InputStreamReader(conn.getInputStream(), "utf-8"));
-            String line;
-            while ((line = in.readLine()) != null)
-            {
-                result.append(line);
-            }
+            HttpPost httpPost = new HttpPost(urlNameString);
+            setHeaders(httpPost);
+            httpPost.setHeader("Accept-Charset", "utf-8");
+            httpPost.setHeader("contentType", "utf-8");
+            // 与原实现一致，参数同时放在URL和请求体中
+            httpPost.setEntity(new StringEntity(String.valueOf(param),
+                    ContentType.create("application/x-www-form-urlencoded", StandardCharsets.UTF_8)));
+            result = HttpUtil.execute(httpPost, null);
             log.info("recv - {}", result);
         }
         catch (ConnectException e)
@@ -142,62 +127,23 @@ public class HttpUtils
         {
             log.error("调用HttpsUtil.sendPost Exception, url=" + url + ",param=" + param, e);
         }
-        finally
-        {
-            try
-            {
-                if (out != null)
-                {
-                    out.close();
-                }
-                if (in != null)
-                {
-                    in.close();
-                }
-            }
-            catch (IOException ex)
-            {
-                log.error("调用in.close Exception, url=" + url + ",param=" + param, ex);
-            }
-        }
-        return result.toString();
+        return result;
     }
 
     public static String sendSSLPost(String url, String param)
     {
-        StringBuilder result = new StringBuilder();
+        String result = "";
         String urlNameString = url + "?" + param;
         try
         {
             log.info("sendSSLPost - {}", urlNameString);
-            SSLContext sc = SSLContext.getInstance("SSL");
-            sc.init(null, new TrustManager[] { new TrustAnyTrustManager() }, new java.security.SecureRandom());
-            URL console = new URL(urlNameString);
-            HttpsURLConnection conn = (HttpsURLConnection) console.openConnection();
-            conn.setRequestProperty("accept", "*/*");
-            conn.setRequestProperty("connection", "Keep-Alive");
-            conn.setRequestProperty("user-agent", "Mozilla/4.0 (compatible; MSIE 6.0; Windows NT 5.1;SV1)");
-            conn.setRequestProperty("Accept-Charset", "utf-8");
-            conn.setRequestProperty("contentType", "utf-8");
-            conn.setDoOutput(true);
-            conn.setDoInput(true);
-
-            conn.setSSLSocketFactory(sc.getSocketFactory());
-            conn.setHostnameVerifier(new TrustAnyHostnameVerifier());
-            conn.connect();
-            InputStream is = conn.getInputStream();
-            BufferedReader br = new BufferedReader(new InputStreamReader(is));
-            String ret = "";
-            while ((ret = br.readLine()) != null)
-            {
-                if (ret != null && !ret.trim().equals(""))
-                {
-                    result.append(new String(ret.getBytes("ISO-8859-1"), "utf-8"));
-                }
-            }
+            // 原实现没有写请求体，HttpsURLConnection实际发送的是GET请求，保持不变
+            HttpGet httpGet = new HttpGet(urlNameString);
+            setHeaders(httpGet);
+            httpGet.setHeader("Accept-Charset", "utf-8");
+            httpGet.setHeader("contentType", "utf-8");
+            result = HttpUtil.execute(httpGet, tlsProfile());
             log.info("recv - {}", result);
-            conn.disconnect();
-            br.close();
         }
         catch (ConnectException e)
         {
@@ -215,7 +161,67 @@ public class HttpUtils
         {
             log.error("调用HttpsUtil.sendSSLPost Exception, url=" + url + ",param=" + param, e);
         }
-        return result.toString();
+        return result;
+    }
+
+    /**
+     * 设置sendSSLPost使用的TLS上下文
+     *
+     * @param sslContext TLS上下文，应长期复用以保留会话缓存
+     * @param hostnameVerifier 主机名校验，为null时使用默认校验
+     */
+    public static void setSSLContext(SSLContext sslContext, HostnameVerifier hostnameVerifier)
+    {
+        tlsProfile = new TlsProfile(sslContext, hostnameVerifier);
+    }
+
+    /**
+     * 使用指定信任库校验sendSSLPost的服务端证书和主机名
+     *
+     * @param trustStore 信任库，为null时使用JDK默认信任库
+     * @throws GeneralSecurityException
+     */
+    public static void setTrustStore(KeyStore trustStore) throws GeneralSecurityException
+    {
+        TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init(trustStore);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, factory.getTrustManagers(), null);
+        setSSLContext(context, null);
+    }
+
+    private static void setHeaders(HttpRequestBase request)
+    {
+        request.setHeader("accept", "*/*");
+        request.setHeader("connection", "Keep-Alive");
+        request.setHeader("user-agent", USER_AGENT);
+    }
+
+    private static TlsProfile tlsProfile() throws GeneralSecurityException
+    {
+        TlsProfile profile = tlsProfile;
+        if (profile == null)
+        {
+            synchronized (HttpUtils.class)
+            {
+                profile = tlsProfile;
+                if (profile == null)
+                {
+                    if (TRUST_ALL)
+                    {
+                        SSLContext context = SSLContext.getInstance("TLS");
+                        context.init(null, new TrustManager[] { new TrustAnyTrustManager() }, new SecureRandom());
+                        profile = new TlsProfile(context, new TrustAnyHostnameVerifier());
+                    }
+                    else
+                    {
+                        profile = new TlsProfile(SSLContext.getDefault(), null);
+                    }
+                    tlsProfile = profile;
+                }
+            }
+        }
+        return profile;
     }
 
     private static class TrustAnyTrustManager implements X509TrustManager
@@ -245,4 +251,4 @@ public class HttpUtils
             return true;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,160 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.SchemePortResolver;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.util.EntityUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 启动预热：在流量进入前解析上游域名、建立连接并走一遍请求路径，避免发布后最初的请求承担DNS解析、TCP连接、
+ * TLS握手和类加载/JIT的开销
+ *
+ * <pre>
+ * new HttpWarmup(Arrays.asList("https://api.partner.com/health", "http://inner.example.com"), 4).run();
+ * </pre>
+ *
+ * <p>
+ * 对每个上游依次：
+ * <ol>
+ * <li>通过{@link DnsCache}解析域名，之后新建连接直接使用缓存的地址</li>
+ * <li>并行建立connectionsPerHost个连接(https包括TLS握手，TLS会话同时进入SSLContext的会话缓存)，放回共享连接池</li>
+ * <li>经{@link HttpUtil}的同步请求路径(上游保护、指标、连接池)发送一次HEAD请求，复用刚建立的连接</li>
+ * </ol>
+ * 预热失败只记录日志，不影响启动。空闲连接超过http.pool.idleTimeout会被回收，应在接入流量前执行。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@Slf4j
+public class HttpWarmup {
+	private static final SchemePortResolver PORT_RESOLVER = DefaultSchemePortResolver.INSTANCE;
+
+	private final List<URI> targets = new ArrayList<>();
+	private final int connectionsPerHost;
+	private int connectTimeout = 3000;
+	private int socketTimeout = 3000;
+	private boolean probe = true;
+
+	/**
+	 * @param urls
+	 *            上游地址，HEAD请求发往该地址，可以是健康检查地址；同一主机的多个地址只建立一次连接
+	 * @param connectionsPerHost
+	 *            每个主机预先建立的连接数
+	 */
+	public HttpWarmup(Collection<String> urls, int connectionsPerHost) {
+		for (String url : urls) {
+			URI uri = URI.create(url);
+			if (uri.getHost() == null) {
+				throw new IllegalArgumentException("invalid warm-up url: " + url);
+			}
+			targets.add(uri);
+		}
+		this.connectionsPerHost = Math.max(0, connectionsPerHost);
+	}
+
+	/**
+	 * 设置建立连接和HEAD请求的超时(毫秒)，默认都是3000
+	 */
+	public HttpWarmup setTimeout(int connectTimeout, int socketTimeout) {
+		this.connectTimeout = connectTimeout;
+		this.socketTimeout = socketTimeout;
+		return this;
+	}
+
+	/**
+	 * 设置是否发送HEAD请求，默认发送；上游不接受HEAD请求时关闭
+	 */
+	public HttpWarmup setProbe(boolean probe) {
+		this.probe = probe;
+		return this;
+	}
+
+	/**
+	 * 执行预热
+	 *
+	 * @return 各主机(带非默认端口时形如host:port)在连接池中可用的连接数，域名解析失败的主机为0
+	 */
+	public Map<String, Integer> run() {
+		long start = System.nanoTime();
+		Set<HttpHost> hosts = new LinkedHashSet<>();
+		Map<String, Integer> result = new LinkedHashMap<>();
+		for (URI uri : targets) {
+			HttpHost target = target(uri);
+			if (result.containsKey(HttpMetrics.host(target))) {
+				continue;
+			}
+			try {
+				DnsCache.getInstance().refresh(target.getHostName());
+				hosts.add(target);
+			} catch (UnknownHostException e) {
+				log.error("warm-up resolve {} failed: {}", target.getHostName(), e.getMessage());
+			}
+			result.put(HttpMetrics.host(target), 0);
+		}
+
+		if (connectionsPerHost > 0 && !hosts.isEmpty()) {
+			ExecutorService executor = HttpBatchExecutor.createExecutor("http-warmup");
+			try {
+				HttpClientManager.preconnect(hosts, connectionsPerHost, connectTimeout, executor)
+						.forEach((target, opened) -> result.put(HttpMetrics.host(target), opened));
+			} finally {
+				executor.shutdown();
+			}
+		}
+
+		if (probe) {
+			for (URI uri : targets) {
+				if (hosts.contains(target(uri))) {
+					probe(uri);
+				}
+			}
+		}
+		log.info("http warm-up finished in {}ms, connections {}", (System.nanoTime() - start) / 1000000, result);
+		return result;
+	}
+
+	private void probe(URI uri) {
+		HttpHead head = new HttpHead(uri);
+		head.setConfig(RequestConfig.custom().setConnectTimeout(connectTimeout).setSocketTimeout(socketTimeout)
+				.setConnectionRequestTimeout(connectTimeout).build());
+		try (CloseableHttpResponse response = HttpUtil.send(head)) {
+			EntityUtils.consume(response.getEntity());
+		} catch (IOException e) {
+			log.error("warm-up request {} failed: {}", uri, e.toString());
+		}
+	}
+
+	/**
+	 * 与默认路由规划一致，端口缺省时按协议补全，使预建立的连接与请求的路由相同
+	 */
+	private static HttpHost target(URI uri) {
+		HttpHost host = URIUtils.extractHost(uri);
+		if (host.getPort() > 0) {
+			return host;
+		}
+		try {
+			return new HttpHost(host.getHostName(), PORT_RESOLVER.resolve(host), host.getSchemeName());
+		} catch (IOException e) {
+			throw new IllegalArgumentException("unsupported scheme: " + uri, e);
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * 流式JSON数组请求体：发送时逐条从迭代器取出记录，用Jackson生成器直接序列化到连接上，以chunked方式传输
+ *
+ * <p>
+ * 内存中只有当前记录和生成器的缓冲区(约8KB，写满即作为一个chunk发出)，与记录总数无关。由迭代器构建时只能遍历一次，
+ * 实体不可重复发送，请求失败时不会被自动重试；由集合构建时每次发送重新遍历集合，实体可以重复发送。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+final class JsonArrayEntity extends AbstractHttpEntity {
+	/** 可重复发送时的记录来源，为null时只能发送一次 */
+	private final Iterable<?> source;
+	private final Iterator<?> records;
+	private final ObjectMapper objectMapper;
+	private volatile boolean consumed;
+
+	JsonArrayEntity(Iterator<?> records, ContentType contentType) {
+		this(null, records, contentType);
+	}
+
+	JsonArrayEntity(Iterable<?> records, ContentType contentType) {
+		this(records, null, contentType);
+	}
+
+	private JsonArrayEntity(Iterable<?> source, Iterator<?> records, ContentType contentType) {
+		this.source = source;
+		this.records = records;
+		this.objectMapper = JsonBody.getObjectMapper();
+		setContentType(contentType.toString());
+		setChunked(true);
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return source != null;
+	}
+
+	@Override
+	public long getContentLength() {
+		return -1;
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return source == null && !consumed;
+	}
+
+	/**
+	 * 内容在发送时才生成，不支持以输入流读取
+	 */
+	@Override
+	public InputStream getContent() {
+		throw new UnsupportedOperationException("streaming JSON entity can only be written");
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		Iterator<?> iterator = source != null ? source.iterator() : records;
+		if (source == null) {
+			if (consumed) {
+				throw new IllegalStateException("streaming JSON entity has already been written");
+			}
+			consumed = true;
+		}
+		// 每条记录后不flush，由生成器缓冲区写满时整块发出
+		ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+			// 输出流由HttpClient在请求体写完后结束
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.writeStartArray();
+			while (iterator.hasNext()) {
+				writer.writeValue(generator, iterator.next());
+			}
+			generator.writeEndArray();
+		}
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON请求体和响应体的读写，直接在请求/响应流上序列化和解析，不经过中间字符串
+ *
+ * <p>
+ * 响应没有声明字符集或声明为UTF-8/UTF-16/UTF-32时由Jackson直接解析字节(按JSON规范自动识别编码)，
+ * 声明了其他字符集(例如GBK)时按该字符集流式解码。默认的ObjectMapper忽略未知属性，
+ * 需要与应用一致的配置(日期格式、命名策略等)时通过{@link #setObjectMapper(ObjectMapper)}替换。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public final class JsonBody {
+	private static volatile ObjectMapper objectMapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private JsonBody() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * 替换读写JSON使用的ObjectMapper，需在使用前设置
+	 *
+	 * @param mapper
+	 */
+	public static void setObjectMapper(ObjectMapper mapper) {
+		if (mapper == null) {
+			throw new IllegalArgumentException("objectMapper is null");
+		}
+		objectMapper = mapper;
+	}
+
+	public static ObjectMapper getObjectMapper() {
+		return objectMapper;
+	}
+
+	static JavaType type(Class<?> type) {
+		return objectMapper.constructType(type);
+	}
+
+	static JavaType type(TypeReference<?> type) {
+		return objectMapper.getTypeFactory().constructType(type);
+	}
+
+	/**
+	 * 序列化为UTF-8字节
+	 */
+	static byte[] write(Object value) throws IOException {
+		return objectMapper.writeValueAsBytes(value);
+	}
+
+	/**
+	 * 解析整个响应体，不关闭响应流
+	 *
+	 * @return 没有响应体时返回null
+	 */
+	static <T> T read(HttpEntity entity, JavaType type) throws IOException {
+		if (entity == null) {
+			return null;
+		}
+		try (JsonParser parser = parser(entity)) {
+			if (parser == null || parser.nextToken() == null) {
+				return null;
+			}
+			return objectMapper.readerFor(type).readValue(parser);
+		}
+	}
+
+	/**
+	 * 逐个解析响应体中JSON数组的元素交给action，内存中同时只有一个元素，不关闭响应流
+	 *
+	 * @return 元素个数
+	 */
+	static <T> long forEach(HttpEntity entity, JavaType elementType, Consumer<? super T> action) throws IOException {
+		if (entity == null) {
+			return 0;
+		}
+		try (JsonParser parser = parser(entity)) {
+			if (parser == null || parser.nextToken() == null) {
+				return 0;
+			}
+			if (parser.currentToken() != JsonToken.START_ARRAY) {
+				throw new IOException("expect JSON array but was " + parser.currentToken());
+			}
+			if (parser.nextToken() == JsonToken.END_ARRAY) {
+				return 0;
+			}
+			// 停在第一个元素上创建迭代器，迭代到数组结束；迭代器复用反序列化上下文
+			long count = 0;
+			try (MappingIterator<T> iterator = objectMapper.readerFor(elementType).readValues(parser)) {
+				while (iterator.hasNextValue()) {
+					action.accept(iterator.nextValue());
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static JsonParser parser(HttpEntity entity) throws IOException {
+		InputStream in = entity.getContent();
+		if (in == null) {
+			return null;
+		}
+		ContentType contentType = ContentType.get(entity);
+		Charset charset = contentType == null ? null : contentType.getCharset();
+		JsonParser parser = charset == null || isUnicode(charset) ? objectMapper.getFactory().createParser(in)
+				: objectMapper.getFactory().createParser(new InputStreamReader(in, charset));
+		// 响应流由调用方按连接池规则释放
+		parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+		return parser;
+	}
+
+	private static boolean isUnicode(Charset charset) {
+		return charset.name().startsWith("UTF-");
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.cs.mobile.common.utils.net;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁延迟直方图，桶划分方式与HdrHistogram相同(对数分段、段内线性)，相对误差小于1/64
+ *
+ * <p>
+ * 记录单位为微秒，可记录的最大值约为19小时，超出部分计入最大桶。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_HALF_COUNT_MAGNITUDE = 6;
+	private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_COUNT_MAGNITUDE;
+	private static final long SUB_BUCKET_MASK = (SUB_BUCKET_HALF_COUNT << 1) - 1;
+	private static final long MAX_VALUE = (1L << 36) - 1;
+	private static final int COUNTS_LENGTH = countsIndex(MAX_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(COUNTS_LENGTH);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalValue = new LongAdder();
+	private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * 记录一次耗时
+	 *
+	 * @param micros
+	 *            耗时(微秒)
+	 */
+	public void record(long micros) {
+		long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+		counts.incrementAndGet(countsIndex(value));
+		totalCount.increment();
+		totalValue.add(value);
+		maxValue.accumulate(value);
+	}
+
+	public long getCount() {
+		return totalCount.sum();
+	}
+
+	/** 最大耗时(微秒) */
+	public long getMax() {
+		return maxValue.get();
+	}
+
+	/** 平均耗时(微秒) */
+	public double getMean() {
+		long count = totalCount.sum();
+		return count == 0 ? 0 : (double) totalValue.sum() / count;
+	}
+
+	/**
+	 * 获取百分位耗时
+	 *
+	 * @param percentile
+	 *            百分位，例如50、99、99.9
+	 * @return 耗时(微秒)，无记录时为0
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] snapshot = new long[COUNTS_LENGTH];
+		long total = 0;
+		for (int i = 0; i < COUNTS_LENGTH; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+		long cumulative = 0;
+		for (int i = 0; i < COUNTS_LENGTH; i++) {
+			cumulative += snapshot[i];
+			if (cumulative >= target) {
+				return Math.min(highestEquivalentValue(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + getCount() + ", mean=" + (long) getMean() + "us, p50=" + getValueAtPercentile(50)
+				+ "us, p99=" + getValueAtPercentile(99) + "us, p999=" + getValueAtPercentile(99.9) + "us, max="
+				+ getMax() + "us";
+	}
+
+	private static int countsIndex(long value) {
+		int bucketIndex = 64 - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK) - (SUB_BUCKET_HALF_COUNT_MAGNITUDE + 1);
+		int subBucketIndex = (int) (value >>> bucketIndex);
+		return ((bucketIndex + 1) << SUB_BUCKET_HALF_COUNT_MAGNITUDE) + subBucketIndex - SUB_BUCKET_HALF_COUNT;
+	}
+
+	private static long highestEquivalentValue(int index) {
+		int bucketIndex = (index >> SUB_BUCKET_HALF_COUNT_MAGNITUDE) - 1;
+		int subBucketIndex = (index & (SUB_BUCKET_HALF_COUNT - 1)) + SUB_BUCKET_HALF_COUNT;
+		if (bucketIndex < 0) {
+			subBucketIndex -= SUB_BUCKET_HALF_COUNT;
+			bucketIndex = 0;
+		}
+		return ((long) subBucketIndex << bucketIndex) + (1L << bucketIndex) - 1;
+	}
+
+}
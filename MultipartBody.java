@@ -0,0 +1,155 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * multipart/form-data请求体，文件部件在发送时才读取
+ *
+ * <pre>
+ * MultipartBody body = new MultipartBody()
+ * 		.addField("type", "invoice")
+ * 		.addFile("file", Paths.get("/data/invoice.pdf"), "application/pdf");
+ * String result = HttpUtil.doPostMultipart(url, null, body, 3000, 60000);
+ * </pre>
+ *
+ * <p>
+ * 添加文件时只读取文件大小，Content-Length由分隔行、部件头和文件大小算出，不需要缓冲文件内容；
+ * 发送前文件被截断时请求失败。分隔符随机生成，字段名和文件名按UTF-8编码，其中的双引号和换行按HTML规范转义。
+ * 同一个实例可以重复发送，不是线程安全的。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class MultipartBody {
+	private static final char[] BOUNDARY_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"
+			.toCharArray();
+
+	private final String boundary;
+	private final List<Object> parts = new ArrayList<>();
+
+	public MultipartBody() {
+		StringBuilder builder = new StringBuilder("----HttpUtilBoundary");
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < 24; i++) {
+			builder.append(BOUNDARY_CHARS[random.nextInt(BOUNDARY_CHARS.length)]);
+		}
+		this.boundary = builder.toString();
+	}
+
+	/**
+	 * 添加文本字段
+	 *
+	 * @param name
+	 *            字段名
+	 * @param value
+	 *            字段值，按UTF-8编码
+	 * @return
+	 */
+	public MultipartBody addField(String name, String value) {
+		addHeader("Content-Disposition: form-data; name=\"" + escape(name) + "\"", null);
+		parts.add(value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8));
+		return this;
+	}
+
+	/**
+	 * 添加文件，文件名取路径的最后一段
+	 *
+	 * @param name
+	 *            字段名
+	 * @param file
+	 *            文件路径，每次发送时打开
+	 * @param contentType
+	 *            文件类型，null时为application/octet-stream
+	 * @return
+	 * @throws IOException
+	 *             读取文件大小失败
+	 */
+	public MultipartBody addFile(String name, Path file, String contentType) throws IOException {
+		return addFile(name, file.getFileName().toString(), new FileRegion(file), contentType);
+	}
+
+	/**
+	 * 添加已打开文件中的一段，按位置读取，不改变通道的位置，也不关闭通道；通道在请求完成前必须保持打开
+	 *
+	 * @param name
+	 *            字段名
+	 * @param filename
+	 *            文件名
+	 * @param channel
+	 *            文件通道
+	 * @param position
+	 *            起始位置
+	 * @param count
+	 *            字节数
+	 * @param contentType
+	 *            文件类型，null时为application/octet-stream
+	 * @return
+	 * @throws IOException
+	 *             读取文件大小失败
+	 */
+	public MultipartBody addFile(String name, String filename, FileChannel channel, long position, long count,
+			String contentType) throws IOException {
+		return addFile(name, filename, new FileRegion(channel, position, count), contentType);
+	}
+
+	public String getBoundary() {
+		return boundary;
+	}
+
+	/**
+	 * 请求体的Content-Type，包含分隔符
+	 */
+	public String getContentType() {
+		return "multipart/form-data; boundary=" + boundary;
+	}
+
+	/**
+	 * 请求体的总长度(字节)
+	 */
+	public long getContentLength() {
+		return toEntity().getContentLength();
+	}
+
+	/**
+	 * 结束分隔行同时结束最后一个部件的内容；没有部件时请求体只有结束分隔行
+	 */
+	UploadEntity toEntity() {
+		List<Object> entityParts = new ArrayList<>(parts.size() + 1);
+		entityParts.addAll(parts);
+		entityParts.add(((parts.isEmpty() ? "--" : "\r\n--") + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+		return new UploadEntity(entityParts, getContentType());
+	}
+
+	private MultipartBody addFile(String name, String filename, FileRegion region, String contentType) {
+		addHeader("Content-Disposition: form-data; name=\"" + escape(name) + "\"; filename=\"" + escape(filename)
+				+ "\"", contentType == null ? "application/octet-stream" : contentType);
+		parts.add(region);
+		return this;
+	}
+
+	/**
+	 * 分隔行和部件头；第一个部件之前没有换行，之后的分隔行同时结束上一个部件的内容
+	 */
+	private void addHeader(String disposition, String contentType) {
+		StringBuilder header = new StringBuilder();
+		if (!parts.isEmpty()) {
+			header.append("\r\n");
+		}
+		header.append("--").append(boundary).append("\r\n").append(disposition).append("\r\n");
+		if (contentType != null) {
+			header.append("Content-Type: ").append(contentType).append("\r\n");
+		}
+		parts.add(header.append("\r\n").toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String escape(String value) {
+		return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.cs.mobile.common.utils.net;
+
+import java.util.Arrays;
+
+/**
+ * 二进制前缀树，判断地址是否落在某个CIDR网段内
+ *
+ * <p>
+ * 地址按最高位在前存放在hi、lo两个long中(IPv4只用hi的高32位)。节点存放在一个int数组中，
+ * 每个节点占两个槽位，分别是0、1两个子节点的下标，0表示没有，{@value #TERMINAL}表示网段在此结束(其下不再需要节点)；
+ * 查找时从根按位向下，每一位只读一次数组，遇到网段结束即命中，最多走地址位数步，不分配内存。构建完成后只读，可并发查找。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+final class PrefixTrie {
+	private static final int TERMINAL = -1;
+
+	private final int width;
+	private int[] children = new int[16];
+	private int size = 1;
+	/** 加入了前缀长度为0的网段，所有地址都命中 */
+	private boolean matchAll;
+
+	/**
+	 * @param width
+	 *            地址位数，IPv4为32，IPv6为128
+	 */
+	PrefixTrie(int width) {
+		this.width = width;
+	}
+
+	/**
+	 * 加入网段，只在构建阶段调用
+	 */
+	void add(long hi, long lo, int prefixLength) {
+		if (prefixLength < 0 || prefixLength > width) {
+			throw new IllegalArgumentException("invalid prefix length: " + prefixLength);
+		}
+		if (prefixLength == 0) {
+			matchAll = true;
+			return;
+		}
+		int node = 0;
+		for (int i = 0;; i++) {
+			int slot = node * 2 + bit(hi, lo, i);
+			int child = children[slot];
+			if (child == TERMINAL) {
+				// 已被更短的网段覆盖
+				return;
+			}
+			if (i == prefixLength - 1) {
+				// 更长的网段被覆盖，其下的节点不再可达
+				children[slot] = TERMINAL;
+				return;
+			}
+			if (child == 0) {
+				// 先扩容再取数组，扩容会替换children
+				child = allocate();
+				children[slot] = child;
+			}
+			node = child;
+		}
+	}
+
+	boolean contains(long hi, long lo) {
+		if (matchAll) {
+			return true;
+		}
+		int node = 0;
+		for (int i = 0; i < width; i++) {
+			node = children[node * 2 + bit(hi, lo, i)];
+			if (node <= 0) {
+				return node == TERMINAL;
+			}
+		}
+		return false;
+	}
+
+	boolean isEmpty() {
+		return !matchAll && children[0] == 0 && children[1] == 0;
+	}
+
+	private int allocate() {
+		if (size * 2 == children.length) {
+			children = Arrays.copyOf(children, size * 4);
+		}
+		return size++;
+	}
+
+	private static int bit(long hi, long lo, int index) {
+		return index < 64 ? (int) (hi >>> (63 - index)) & 1 : (int) (lo >>> (127 - index)) & 1;
+	}
+
+}
@@ -0,0 +1,416 @@
+package com.cs.mobile.common.utils.net;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.cs.mobile.common.utils.StringUtil;
+
+/**
+ * URL和查询字符串编码器，{@link HttpUtil#buildQuery(Map, String)}和所有GET请求共用
+ *
+ * <p>
+ * 编码规则与{@link java.net.URLEncoder}一致(空格编码为+，字母数字和.-*_保持原样)，参数名不编码，
+ * 参数名或参数值为空的参数被忽略。先根据参数计算出结果长度，再按字节直接编码到复用的缓冲区，
+ * 除结果字符串外不产生中间对象；UTF-8以外的字符集需要先转换为字节数组。
+ * 缓冲区与{@link BodyDecoder}一样由{@link BufferPool}复用。
+ *
+ * <p>
+ * 固定格式的URL可预先编译为模板，例如：
+ *
+ * <pre>
+ * QueryEncoder.Template template = QueryEncoder.compile("https://api.example.com/users/{id}/orders");
+ * String url = template.expand(Collections.singletonMap("id", userId), params);
+ * </pre>
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class QueryEncoder {
+	/** 超过该长度的缓冲区不入池，避免偶发的超长URL长期占用内存 */
+	private static final int MAX_POOLED_BUFFER = 16 * 1024;
+	private static final int DEFAULT_BUFFER = 512;
+	private static final BufferPool<char[]> POOL = BufferPool.ofChars(MAX_POOLED_BUFFER);
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	/** 查询参数值中不需要编码的字符，与URLEncoder相同 */
+	private static final boolean[] QUERY_SAFE = new boolean[128];
+	/** 路径段中不需要编码的字符(RFC 3986 pchar，不含/) */
+	private static final boolean[] PATH_SAFE = new boolean[128];
+
+	static {
+		for (char c = 'a'; c <= 'z'; c++) {
+			QUERY_SAFE[c] = PATH_SAFE[c] = true;
+			QUERY_SAFE[c - 32] = PATH_SAFE[c - 32] = true;
+		}
+		for (char c = '0'; c <= '9'; c++) {
+			QUERY_SAFE[c] = PATH_SAFE[c] = true;
+		}
+		for (char c : ".-*_".toCharArray()) {
+			QUERY_SAFE[c] = true;
+		}
+		for (char c : "-._~!$&'()*+,;=:@".toCharArray()) {
+			PATH_SAFE[c] = true;
+		}
+	}
+
+	private QueryEncoder() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * 生成查询字符串
+	 *
+	 * <p>
+	 * 兼容原有行为：参数名包含于"__VIEWSTATE"的参数值视为已编码，原样输出。
+	 *
+	 * @param params
+	 *            请求参数
+	 * @param charset
+	 *            参数值编码使用的字符集
+	 * @return params为空时返回null
+	 */
+	public static String buildQuery(Map<String, String> params, Charset charset) {
+		if (params == null || params.isEmpty()) {
+			return null;
+		}
+		return encode("", params, charset, true);
+	}
+
+	/**
+	 * 把参数以UTF-8编码追加到URL上，URL已带查询字符串时以&连接
+	 *
+	 * @param url
+	 *            请求地址
+	 * @param params
+	 *            请求参数，可以为null
+	 * @return
+	 */
+	public static String appendQuery(String url, Map<String, String> params) {
+		return appendQuery(url, params, StandardCharsets.UTF_8);
+	}
+
+	public static String appendQuery(String url, Map<String, String> params, Charset charset) {
+		if (params == null || params.isEmpty()) {
+			return url;
+		}
+		return encode(url, params, charset, false);
+	}
+
+	/**
+	 * 预编译URL模板，{name}形式的占位符在展开时替换为编码后的变量值
+	 *
+	 * <p>
+	 * ?之前的占位符按路径段编码(/也会被编码)，之后的按查询参数值编码。
+	 *
+	 * @param template
+	 *            URL模板
+	 * @return
+	 * @throws IllegalArgumentException
+	 *             占位符未闭合或为空
+	 */
+	public static Template compile(String template) {
+		return new Template(template);
+	}
+
+	private static String encode(String url, Map<String, String> params, Charset charset, boolean viewState) {
+		boolean utf8 = StandardCharsets.UTF_8.equals(charset);
+		int maxBytesPerChar = utf8 ? 3 : (int) Math.ceil(charset.newEncoder().maxBytesPerChar());
+		int length = url.length() + paramsLength(params, utf8, maxBytesPerChar, viewState);
+		char[] buffer = acquire(length);
+		try {
+			url.getChars(0, url.length(), buffer, 0);
+			int end = appendParams(buffer, url.length(), separator(url), params, charset, utf8, viewState);
+			return new String(buffer, 0, end);
+		} finally {
+			POOL.release(buffer);
+		}
+	}
+
+	/**
+	 * 第一个参数前的分隔符，0表示不需要
+	 */
+	private static char separator(String url) {
+		if (url.isEmpty()) {
+			return 0;
+		}
+		int query = url.indexOf('?');
+		if (query == -1) {
+			return '?';
+		}
+		char last = url.charAt(url.length() - 1);
+		return last == '?' || last == '&' ? 0 : '&';
+	}
+
+	private static boolean rawValue(String name, boolean viewState) {
+		return viewState && "__VIEWSTATE".contains(name);
+	}
+
+	/**
+	 * 参数编码后的长度，UTF-8为精确值，其他字符集为上限
+	 */
+	private static int paramsLength(Map<String, String> params, boolean utf8, int maxBytesPerChar,
+			boolean viewState) {
+		int length = 0;
+		for (Map.Entry<String, String> entry : params.entrySet()) {
+			String name = entry.getKey();
+			String value = entry.getValue();
+			if (StringUtil.isEmpty(name) || StringUtil.isEmpty(value)) {
+				continue;
+			}
+			length += name.length() + 2;
+			if (rawValue(name, viewState)) {
+				length += value.length();
+			} else if (utf8) {
+				length += utf8Length(value, QUERY_SAFE, true);
+			} else {
+				length += value.length() * maxBytesPerChar * 3;
+			}
+		}
+		return length;
+	}
+
+	private static int appendParams(char[] buffer, int pos, char separator, Map<String, String> params,
+			Charset charset, boolean utf8, boolean viewState) {
+		char next = separator;
+		for (Map.Entry<String, String> entry : params.entrySet()) {
+			String name = entry.getKey();
+			String value = entry.getValue();
+			if (StringUtil.isEmpty(name) || StringUtil.isEmpty(value)) {
+				continue;
+			}
+			if (next != 0) {
+				buffer[pos++] = next;
+			}
+			next = '&';
+			name.getChars(0, name.length(), buffer, pos);
+			pos += name.length();
+			buffer[pos++] = '=';
+			if (rawValue(name, viewState)) {
+				value.getChars(0, value.length(), buffer, pos);
+				pos += value.length();
+			} else if (utf8) {
+				pos = encodeUtf8(value, QUERY_SAFE, true, buffer, pos);
+			} else {
+				pos = encodeCharset(value, charset, buffer, pos);
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * 按UTF-8编码并转义后的长度
+	 */
+	private static int utf8Length(String value, boolean[] safe, boolean plusForSpace) {
+		int length = 0;
+		for (int i = 0, n = value.length(); i < n; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				length += safe[c] || (c == ' ' && plusForSpace) ? 1 : 3;
+			} else if (c < 0x800) {
+				length += 6;
+			} else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+				length += 12;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				// 不成对的代理字符与URLEncoder一致编码为?
+				length += 3;
+			} else {
+				length += 9;
+			}
+		}
+		return length;
+	}
+
+	private static int encodeUtf8(String value, boolean[] safe, boolean plusForSpace, char[] buffer, int pos) {
+		for (int i = 0, n = value.length(); i < n; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				if (safe[c]) {
+					buffer[pos++] = c;
+				} else if (c == ' ' && plusForSpace) {
+					buffer[pos++] = '+';
+				} else {
+					pos = escape(c, buffer, pos);
+				}
+			} else if (c < 0x800) {
+				pos = escape(0xC0 | (c >> 6), buffer, pos);
+				pos = escape(0x80 | (c & 0x3F), buffer, pos);
+			} else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				pos = escape(0xF0 | (codePoint >> 18), buffer, pos);
+				pos = escape(0x80 | ((codePoint >> 12) & 0x3F), buffer, pos);
+				pos = escape(0x80 | ((codePoint >> 6) & 0x3F), buffer, pos);
+				pos = escape(0x80 | (codePoint & 0x3F), buffer, pos);
+			} else if (Character.isSurrogate(c)) {
+				pos = escape('?', buffer, pos);
+			} else {
+				pos = escape(0xE0 | (c >> 12), buffer, pos);
+				pos = escape(0x80 | ((c >> 6) & 0x3F), buffer, pos);
+				pos = escape(0x80 | (c & 0x3F), buffer, pos);
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * 其他字符集按连续的需编码字符分段转换，每段的全部字节都转义，与URLEncoder一致
+	 */
+	private static int encodeCharset(String value, Charset charset, char[] buffer, int pos) {
+		int n = value.length();
+		int i = 0;
+		while (i < n) {
+			char c = value.charAt(i);
+			if (c < 0x80 && QUERY_SAFE[c]) {
+				buffer[pos++] = c;
+				i++;
+			} else if (c == ' ') {
+				buffer[pos++] = '+';
+				i++;
+			} else {
+				int start = i;
+				do {
+					i++;
+				} while (i < n && (value.charAt(i) >= 0x80 || !QUERY_SAFE[value.charAt(i)]) && value.charAt(i) != ' ');
+				for (byte b : value.substring(start, i).getBytes(charset)) {
+					pos = escape(b & 0xFF, buffer, pos);
+				}
+			}
+		}
+		return pos;
+	}
+
+	private static int escape(int b, char[] buffer, int pos) {
+		buffer[pos] = '%';
+		buffer[pos + 1] = HEX[(b >> 4) & 0xF];
+		buffer[pos + 2] = HEX[b & 0xF];
+		return pos + 3;
+	}
+
+	/**
+	 * 按2的幂取缓冲区，使池中的缓冲区大小集中在少数几档
+	 */
+	private static char[] acquire(int length) {
+		if (length > MAX_POOLED_BUFFER) {
+			return POOL.acquire(length);
+		}
+		return POOL.acquire(Math.max(DEFAULT_BUFFER,
+				Math.min(Integer.highestOneBit(Math.max(length - 1, 1)) << 1, MAX_POOLED_BUFFER)));
+	}
+
+	/**
+	 * 预编译的URL模板，线程安全，可作为常量复用
+	 */
+	public static final class Template {
+		private final String template;
+		/** 字面量片段，比占位符多一个 */
+		private final String[] literals;
+		private final String[] names;
+		/** 占位符是否位于查询字符串中 */
+		private final boolean[] inQuery;
+		private final boolean hasQuery;
+		private final int literalLength;
+
+		private Template(String template) {
+			List<String> literalList = new ArrayList<>();
+			List<String> nameList = new ArrayList<>();
+			int query = template.indexOf('?');
+			int start = 0;
+			int open;
+			while ((open = template.indexOf('{', start)) != -1) {
+				int close = template.indexOf('}', open);
+				if (close == -1 || close == open + 1) {
+					throw new IllegalArgumentException("illegal url template: " + template);
+				}
+				literalList.add(template.substring(start, open));
+				nameList.add(template.substring(open + 1, close));
+				start = close + 1;
+			}
+			literalList.add(template.substring(start));
+
+			this.template = template;
+			this.literals = literalList.toArray(new String[0]);
+			this.names = nameList.toArray(new String[0]);
+			this.inQuery = new boolean[names.length];
+			this.hasQuery = query != -1;
+			int length = 0;
+			int offset = 0;
+			for (int i = 0; i < literals.length; i++) {
+				length += literals[i].length();
+				offset += literals[i].length() + (i < names.length ? names[i].length() + 2 : 0);
+				if (i < names.length) {
+					inQuery[i] = query != -1 && query < offset;
+				}
+			}
+			this.literalLength = length;
+		}
+
+		/**
+		 * 展开模板
+		 *
+		 * @param variables
+		 *            占位符变量，没有占位符时可以为null
+		 * @param params
+		 *            追加的查询参数，可以为null
+		 * @return
+		 * @throws IllegalArgumentException
+		 *             缺少占位符变量
+		 */
+		public String expand(Map<String, String> variables, Map<String, String> params) {
+			int length = literalLength;
+			for (int i = 0; i < names.length; i++) {
+				length += utf8Length(variable(variables, names[i]), inQuery[i] ? QUERY_SAFE : PATH_SAFE,
+						inQuery[i]);
+			}
+			if (params != null) {
+				length += paramsLength(params, true, 3, false);
+			}
+			char[] buffer = acquire(length);
+			try {
+				int pos = 0;
+				for (int i = 0; i < literals.length; i++) {
+					literals[i].getChars(0, literals[i].length(), buffer, pos);
+					pos += literals[i].length();
+					if (i < names.length) {
+						pos = encodeUtf8(variable(variables, names[i]), inQuery[i] ? QUERY_SAFE : PATH_SAFE,
+								inQuery[i], buffer, pos);
+					}
+				}
+				if (params != null) {
+					pos = appendParams(buffer, pos, separator(buffer, pos), params, StandardCharsets.UTF_8, true,
+							false);
+				}
+				return new String(buffer, 0, pos);
+			} finally {
+				POOL.release(buffer);
+			}
+		}
+
+		private char separator(char[] buffer, int length) {
+			if (length == 0) {
+				return 0;
+			}
+			if (!hasQuery) {
+				return '?';
+			}
+			char last = buffer[length - 1];
+			return last == '?' || last == '&' ? 0 : '&';
+		}
+
+		private static String variable(Map<String, String> variables, String name) {
+			String value = variables == null ? null : variables.get(name);
+			if (value == null) {
+				throw new IllegalArgumentException("missing url template variable: " + name);
+			}
+			return value;
+		}
+
+		@Override
+		public String toString() {
+			return template;
+		}
+	}
+
+}
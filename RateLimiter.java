@@ -0,0 +1,163 @@
+package com.cs.mobile.common.utils.net;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 按上游主机或URL前缀的令牌桶限流，通过{@link HttpUtil#setRateLimiter(RateLimiter)}启用
+ *
+ * <pre>
+ * HttpUtil.setRateLimiter(new RateLimiter()
+ * 		.limit("api.partner.com", 50, 10)
+ * 		.limit("https://api.partner.com/v2/orders", 5, 1, 500));
+ * </pre>
+ *
+ * <p>
+ * 每条规则是一个独立的令牌桶，按permitsPerSecond匀速补充，最多积攒burst个。maxWaitMillis为0时令牌不足立即以
+ * {@link UpstreamRejectedException}失败；大于0时在请求线程中等待，预计等待超过该值才失败。规则的匹配方式见
+ * {@link UpstreamRules}，没有匹配规则的请求不限流。
+ *
+ * <p>
+ * 令牌桶按GCRA实现，状态只有一个"理论到达时间"，取令牌和预约等待都是一次CAS，没有锁。等待中被中断视为拒绝，
+ * 并保留中断标记。规则需在启用前声明。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class RateLimiter implements UpstreamGuard {
+	public static final String REJECT_REASON = "rate-limit";
+
+	private final UpstreamRules<Bucket> buckets = new UpstreamRules<>();
+
+	/**
+	 * 声明一条不等待的限流规则，令牌不足时立即失败
+	 *
+	 * @param target
+	 *            主机或URL前缀
+	 * @param permitsPerSecond
+	 *            每秒放行的请求数
+	 * @param burst
+	 *            允许的突发请求数
+	 * @return
+	 */
+	public RateLimiter limit(String target, double permitsPerSecond, int burst) {
+		return limit(target, permitsPerSecond, burst, 0);
+	}
+
+	/**
+	 * 声明一条限流规则
+	 *
+	 * @param target
+	 *            主机或URL前缀
+	 * @param permitsPerSecond
+	 *            每秒放行的请求数
+	 * @param burst
+	 *            允许的突发请求数
+	 * @param maxWaitMillis
+	 *            令牌不足时最多等待的时间(毫秒)，为0时不等待
+	 * @return
+	 */
+	public RateLimiter limit(String target, double permitsPerSecond, int burst, long maxWaitMillis) {
+		if (permitsPerSecond <= 0 || burst < 1 || maxWaitMillis < 0) {
+			throw new IllegalArgumentException(
+					"invalid rate limit: " + permitsPerSecond + "/s, burst " + burst + ", wait " + maxWaitMillis);
+		}
+		buckets.put(target, new Bucket(permitsPerSecond, burst, TimeUnit.MILLISECONDS.toNanos(maxWaitMillis)));
+		return this;
+	}
+
+	/**
+	 * 某条规则当前可立即取得的令牌数
+	 *
+	 * @param target
+	 *            声明规则时的主机或URL前缀
+	 * @return 没有该规则时返回-1
+	 */
+	public int getAvailablePermits(String target) {
+		Bucket bucket = buckets.get(target);
+		return bucket == null ? -1 : bucket.available();
+	}
+
+	@Override
+	public void acquire(String host, URI uri) throws UpstreamRejectedException {
+		Bucket bucket = buckets.match(host, uri);
+		if (bucket == null) {
+			return;
+		}
+		long waitNanos = bucket.reserve();
+		if (waitNanos < 0 || (waitNanos > 0 && !sleep(waitNanos))) {
+			HttpMetrics.recordRejection(host, REJECT_REASON);
+			throw new UpstreamRejectedException(host, REJECT_REASON);
+		}
+		HttpMetrics.recordPermitGranted(host, REJECT_REASON, waitNanos);
+	}
+
+	@Override
+	public void release(String host, URI uri, int statusCode, Throwable error, long latencyNanos) {
+		// 令牌不归还
+	}
+
+	/**
+	 * @return 等到了预约时间返回true，被中断返回false
+	 */
+	private static boolean sleep(long nanos) {
+		long deadline = System.nanoTime() + nanos;
+		long remaining = nanos;
+		while (remaining > 0) {
+			LockSupport.parkNanos(remaining);
+			if (Thread.currentThread().isInterrupted()) {
+				return false;
+			}
+			remaining = deadline - System.nanoTime();
+		}
+		return true;
+	}
+
+	private static class Bucket {
+		/** 补充一个令牌的间隔 */
+		private final long intervalNanos;
+		/** 突发容量对应的时间，理论到达时间最多领先当前时间这么多仍可立即放行 */
+		private final long burstNanos;
+		private final long maxWaitNanos;
+		/** 理论到达时间：按匀速放行时下一个请求应当到达的时间 */
+		private final AtomicLong theoreticalArrival;
+
+		Bucket(double permitsPerSecond, int burst, long maxWaitNanos) {
+			this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+			this.burstNanos = intervalNanos * (burst - 1);
+			this.maxWaitNanos = maxWaitNanos;
+			this.theoreticalArrival = new AtomicLong(System.nanoTime() - intervalNanos);
+		}
+
+		/**
+		 * 取一个令牌，令牌不足时预约下一个
+		 *
+		 * @return 需要等待的纳秒数，超过最长等待时间返回-1(不占用令牌)
+		 */
+		long reserve() {
+			long now = System.nanoTime();
+			while (true) {
+				long arrival = theoreticalArrival.get();
+				long start = arrival - now > 0 ? arrival : now;
+				long waitNanos = Math.max(0, start - burstNanos - now);
+				if (waitNanos > maxWaitNanos) {
+					return -1;
+				}
+				if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+					return waitNanos;
+				}
+			}
+		}
+
+		int available() {
+			long ahead = theoreticalArrival.get() - System.nanoTime();
+			if (ahead <= 0) {
+				return (int) (burstNanos / intervalNanos) + 1;
+			}
+			return ahead > burstNanos ? 0 : (int) ((burstNanos - ahead) / intervalNanos) + 1;
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.impl.execchain.RequestAbortedException;
+
+/**
+ * 请求被本地中止(对冲请求的落败方、批量请求超过截止时间等)，不反映上游的健康状况
+ *
+ * <p>
+ * 只作为{@link UpstreamGuard#release(String, java.net.URI, int, Throwable, long)}的结果传递给上游保护，
+ * 调用方收到的仍是原始异常。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+final class RequestCancelledException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	static final RequestCancelledException INSTANCE = new RequestCancelledException();
+
+	private RequestCancelledException() {
+		super("request cancelled");
+	}
+
+	/**
+	 * 请求失败是否由本地中止引起
+	 *
+	 * @param request
+	 *            请求
+	 * @param error
+	 *            请求失败的异常
+	 */
+	static boolean isCancelled(HttpRequestBase request, Throwable error) {
+		return request.isAborted() || error instanceof RequestAbortedException;
+	}
+
+	/** 共享实例，不需要堆栈 */
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+
+}
@@ -0,0 +1,406 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 幂等请求(GET、HEAD、OPTIONS、TRACE、PUT、DELETE)的重试与对冲策略，通过{@link HttpUtil#setRetryPolicy(RetryPolicy)}启用
+ *
+ * <p>
+ * 连接失败、连接被重置、读取超时和指定状态码(默认502、503、504)会按指数退避加全抖动重试。
+ * 每个上游主机一个重试预算(令牌桶)：每个请求存入{@code budgetRatio}个令牌，每次重试或对冲取出一个，
+ * 令牌不足时不再重试，上游整体故障时重试流量最多约为正常请求的budgetRatio倍，不会放大故障。
+ *
+ * <p>
+ * 开启对冲后，请求在该主机历史耗时的指定百分位(例如p95)内未返回时，用同一请求的副本再发送一次，
+ * 先返回的响应被采用，另一个请求被中止。样本不足{@value #MIN_HEDGE_SAMPLES}个时不对冲。
+ * 连接池等待超时表示本地已饱和，不重试也不对冲。配置应在启用前完成。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@Slf4j
+public class RetryPolicy {
+	private static final Set<String> IDEMPOTENT_METHODS = Collections
+			.unmodifiableSet(new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE")));
+	private static final int MIN_HEDGE_SAMPLES = 100;
+	private static final long HEDGE_DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+	/** 令牌以千分之一为单位存储，便于用AtomicLong无锁更新 */
+	private static final long TOKEN_SCALE = 1000;
+
+	private static final ScheduledExecutorService HEDGE_TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "http-hedge-timer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private static final ExecutorService HEDGE_EXECUTOR = HttpBatchExecutor.createExecutor("http-hedge");
+
+	private final int maxAttempts;
+	private final long initialBackoffMillis;
+	private final long maxBackoffMillis;
+	private final ConcurrentHashMap<String, HostState> hosts = new ConcurrentHashMap<>();
+	private volatile Set<Integer> retryableStatusCodes = Collections
+			.unmodifiableSet(new HashSet<>(Arrays.asList(502, 503, 504)));
+	private volatile long budgetRatio = TOKEN_SCALE / 10;
+	private volatile long budgetMaxTokens = 10 * TOKEN_SCALE;
+	private volatile double hedgePercentile;
+	private volatile long minHedgeDelayMillis;
+
+	/**
+	 * @param maxAttempts
+	 *            最多尝试次数(含首次)，1表示不重试
+	 * @param initialBackoffMillis
+	 *            首次重试前的退避上限(毫秒)，之后每次翻倍，实际等待时间在0到上限之间随机
+	 * @param maxBackoffMillis
+	 *            退避上限的最大值(毫秒)
+	 */
+	public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+		}
+		this.maxAttempts = maxAttempts;
+		this.initialBackoffMillis = Math.max(0, initialBackoffMillis);
+		this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+	}
+
+	/**
+	 * 设置需要重试的响应状态码，不传参数表示只在异常时重试
+	 *
+	 * @param statusCodes
+	 *            状态码
+	 * @return
+	 */
+	public RetryPolicy setRetryableStatusCodes(Integer... statusCodes) {
+		this.retryableStatusCodes = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(statusCodes)));
+		return this;
+	}
+
+	/**
+	 * 设置每个主机的重试预算，默认每个请求存入0.1个令牌，最多积累10个
+	 *
+	 * @param ratio
+	 *            每个请求存入的令牌数，即长期来看重试次数与请求数之比的上限
+	 * @param maxTokens
+	 *            令牌桶容量，决定短时间内最多可以连续重试多少次
+	 * @return
+	 */
+	public RetryPolicy setBudget(double ratio, int maxTokens) {
+		this.budgetRatio = Math.max(0, Math.round(ratio * TOKEN_SCALE));
+		this.budgetMaxTokens = Math.max(0, maxTokens) * TOKEN_SCALE;
+		return this;
+	}
+
+	/**
+	 * 开启对冲请求
+	 *
+	 * @param percentile
+	 *            对冲延迟取该主机历史耗时的百分位，例如95；小于等于0表示关闭(默认)
+	 * @param minDelayMillis
+	 *            对冲延迟的下限(毫秒)，避免对很快的上游也发出对冲
+	 * @return
+	 */
+	public RetryPolicy setHedging(double percentile, long minDelayMillis) {
+		this.hedgePercentile = percentile;
+		this.minHedgeDelayMillis = Math.max(0, minDelayMillis);
+		return this;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * 是否按本策略处理该请求，只处理幂等请求；请求体不能重复读取时与HttpClient的RetryExec一样不重试也不对冲
+	 */
+	boolean supports(HttpRequestBase request) {
+		if (!IDEMPOTENT_METHODS.contains(request.getMethod())) {
+			return false;
+		}
+		if (request instanceof HttpEntityEnclosingRequest) {
+			HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+			return entity == null || entity.isRepeatable();
+		}
+		return true;
+	}
+
+	/**
+	 * 按策略发送请求
+	 *
+	 * @param request
+	 *            原请求，对冲时发送其副本
+	 * @param attempt
+	 *            发送一次请求；对冲副本在另一个线程中调用
+	 * @return 响应，调用方负责关闭
+	 * @throws IOException
+	 *             最后一次尝试的异常
+	 */
+	CloseableHttpResponse execute(HttpRequestBase request, Attempt attempt) throws IOException {
+		String host = HttpMetrics.host(request.getURI());
+		HostState state = hostState(host);
+		state.deposit(budgetRatio, budgetMaxTokens);
+		// 对冲获胜时原请求被本策略中止，重试前需要复位；调用方的中止不复位
+		AtomicBoolean hedgeWon = new AtomicBoolean();
+		for (int n = 1;; n++) {
+			try {
+				long hedgeDelay = hedgeDelayMillis(host, state);
+				CloseableHttpResponse response = hedgeDelay < 0 ? attempt.send(request)
+						: sendHedged(request, attempt, host, state, hedgeDelay, hedgeWon);
+				int statusCode = response.getStatusLine().getStatusCode();
+				if (n >= maxAttempts || !retryableStatusCodes.contains(statusCode) || !acquireRetry(host, state)) {
+					return response;
+				}
+				response.close();
+				if (hedgeWon.getAndSet(false)) {
+					request.reset();
+				}
+				log.info("http {} {} returned {}, retry attempt {}", request.getMethod(), request.getURI(), statusCode,
+						n + 1);
+			} catch (IOException e) {
+				if (n >= maxAttempts || request.isAborted() || !isRetryable(e) || !acquireRetry(host, state)) {
+					throw e;
+				}
+				log.info("http {} {} throw {}, retry attempt {}", request.getMethod(), request.getURI(),
+						e.getClass().getSimpleName(), n + 1);
+			}
+			backoff(n);
+		}
+	}
+
+	/**
+	 * 先发送原请求，超过对冲延迟仍未返回时在另一个线程发送副本，先成功的响应被采用；
+	 * 副本获胜时中止原请求并置位hedgeWon
+	 */
+	private CloseableHttpResponse sendHedged(HttpRequestBase request, Attempt attempt, String host, HostState state,
+			long delayMillis, AtomicBoolean hedgeWon) throws IOException {
+		HttpRequestBase hedgeRequest = copy(request);
+		// 只有第一个成功返回的请求能置位，另一方的响应被关闭
+		AtomicBoolean decided = new AtomicBoolean();
+		CompletableFuture<CloseableHttpResponse> hedge = new CompletableFuture<>();
+		ScheduledFuture<?> timer = HEDGE_TIMER.schedule(() -> {
+			if (!state.withdraw(budgetMaxTokens)) {
+				HttpMetrics.recordRetryBudgetExhausted(host);
+				hedge.complete(null);
+				return;
+			}
+			HttpMetrics.recordRetry(host, true);
+			try {
+				HEDGE_EXECUTOR.execute(() -> {
+					try {
+						CloseableHttpResponse response = attempt.send(hedgeRequest);
+						if (decided.compareAndSet(false, true)) {
+							HttpMetrics.recordHedgeWin(host);
+							// 先中止原请求再交出响应，保证调用方重试前复位时中止已经发生
+							hedgeWon.set(true);
+							request.abort();
+							hedge.complete(response);
+						} else {
+							closeQuietly(response);
+							hedge.complete(null);
+						}
+					} catch (Exception e) {
+						hedge.completeExceptionally(e);
+					}
+				});
+			} catch (RuntimeException e) {
+				hedge.completeExceptionally(e);
+			}
+		}, delayMillis, TimeUnit.MILLISECONDS);
+
+		CloseableHttpResponse response;
+		try {
+			response = attempt.send(request);
+		} catch (IOException e) {
+			if (timer.cancel(false)) {
+				throw e;
+			}
+			// 对冲已发出，原请求失败(包括被对冲成功后中止)时等待对冲结果
+			CloseableHttpResponse hedgeResponse = awaitHedge(hedge, e);
+			if (hedgeResponse == null) {
+				throw e;
+			}
+			return hedgeResponse;
+		}
+		if (decided.compareAndSet(false, true)) {
+			timer.cancel(false);
+			hedgeRequest.abort();
+			return response;
+		}
+		// 对冲先返回，原请求的响应作废
+		closeQuietly(response);
+		return awaitHedge(hedge, null);
+	}
+
+	private static CloseableHttpResponse awaitHedge(CompletableFuture<CloseableHttpResponse> hedge,
+			IOException primaryError) throws IOException {
+		try {
+			return hedge.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for hedged request");
+		} catch (ExecutionException e) {
+			if (primaryError != null) {
+				primaryError.addSuppressed(e.getCause());
+				return null;
+			}
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * 对冲延迟(毫秒)，每秒按该主机的耗时分布重新计算一次；不对冲时返回-1
+	 */
+	private long hedgeDelayMillis(String host, HostState state) {
+		double percentile = hedgePercentile;
+		if (percentile <= 0) {
+			return -1;
+		}
+		long now = System.nanoTime();
+		if (now - state.hedgeDelayUpdatedAt < HEDGE_DELAY_REFRESH_NANOS) {
+			return state.hedgeDelayMillis;
+		}
+		UpstreamMetrics metrics = HttpMetrics.getUpstreamMetrics(host);
+		long delay = -1;
+		if (metrics != null && metrics.getLatency().getCount() >= MIN_HEDGE_SAMPLES) {
+			delay = Math.max(minHedgeDelayMillis,
+					TimeUnit.MICROSECONDS.toMillis(metrics.getLatency().getValueAtPercentile(percentile)));
+		}
+		state.hedgeDelayMillis = delay;
+		state.hedgeDelayUpdatedAt = now;
+		return delay;
+	}
+
+	private boolean acquireRetry(String host, HostState state) {
+		if (!state.withdraw(budgetMaxTokens)) {
+			HttpMetrics.recordRetryBudgetExhausted(host);
+			return false;
+		}
+		HttpMetrics.recordRetry(host, false);
+		return true;
+	}
+
+	private void backoff(int attempt) throws InterruptedIOException {
+		long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+		if (ceiling <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted during retry backoff");
+		}
+	}
+
+	/**
+	 * 连接失败、连接被重置、上游未响应和读取超时可以重试；连接池等待超时、主动中止、TLS和DNS错误不重试
+	 */
+	static boolean isRetryable(IOException e) {
+		if (e instanceof ConnectionPoolTimeoutException) {
+			return false;
+		}
+		return e instanceof ConnectTimeoutException || e instanceof SocketTimeoutException
+				|| e instanceof NoHttpResponseException || e instanceof SocketException;
+	}
+
+	private HostState hostState(String host) {
+		HostState state = hosts.get(host);
+		if (state == null) {
+			state = hosts.computeIfAbsent(host, key -> new HostState(budgetMaxTokens));
+		}
+		return state;
+	}
+
+	/**
+	 * 复制请求用于对冲。clone()得到的副本与原请求共用中止状态，中止原请求会连带中止副本，因此重新构建
+	 */
+	private static HttpRequestBase copy(HttpRequestBase request) throws IOException {
+		HttpUriRequest copy = RequestBuilder.copy(request).build();
+		if (!(copy instanceof HttpRequestBase)) {
+			throw new IOException("request can not be hedged: " + request);
+		}
+		return (HttpRequestBase) copy;
+	}
+
+	private static void closeQuietly(CloseableHttpResponse response) {
+		try {
+			response.close();
+		} catch (IOException e) {
+			// 忽略
+		}
+	}
+
+	/**
+	 * 发送一次请求
+	 */
+	@FunctionalInterface
+	interface Attempt {
+		CloseableHttpResponse send(HttpRequestBase request) throws IOException;
+	}
+
+	/**
+	 * 每个主机的重试预算和对冲延迟缓存
+	 */
+	private static class HostState {
+		private final AtomicLong tokens;
+		private volatile long hedgeDelayMillis = -1;
+		private volatile long hedgeDelayUpdatedAt = System.nanoTime() - HEDGE_DELAY_REFRESH_NANOS;
+
+		HostState(long initialTokens) {
+			this.tokens = new AtomicLong(initialTokens);
+		}
+
+		void deposit(long amount, long max) {
+			long current;
+			do {
+				current = tokens.get();
+				if (current >= max) {
+					return;
+				}
+			} while (!tokens.compareAndSet(current, Math.min(max, current + amount)));
+		}
+
+		boolean withdraw(long max) {
+			long current;
+			do {
+				current = tokens.get();
+				if (current < TOKEN_SCALE) {
+					return false;
+				}
+			} while (!tokens.compareAndSet(current, Math.min(max, current) - TOKEN_SCALE));
+			return true;
+		}
+	}
+
+}
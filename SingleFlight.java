@@ -0,0 +1,92 @@
+package com.cs.mobile.common.utils.net;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 相同key的并发调用合并为一次执行，所有等待者得到同一个结果或异常
+ *
+ * <p>
+ * 只合并同一时刻正在执行的调用，执行结束后不保留结果；需要缓存结果请使用{@link HttpResponseCache}。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class SingleFlight<T> {
+	private final ConcurrentHashMap<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder executionCount = new LongAdder();
+	private final LongAdder sharedCount = new LongAdder();
+
+	/**
+	 * 执行调用，相同key已有调用在执行时等待其结果而不重复执行
+	 *
+	 * @param key
+	 *            调用标识
+	 * @param loader
+	 *            实际执行的调用
+	 * @return 调用结果
+	 * @throws Exception
+	 *             loader抛出的异常，等待者收到同一个异常实例
+	 */
+	public T execute(String key, Callable<T> loader) throws Exception {
+		CompletableFuture<T> flight = new CompletableFuture<>();
+		CompletableFuture<T> existing = inFlight.putIfAbsent(key, flight);
+		if (existing != null) {
+			sharedCount.increment();
+			return await(existing);
+		}
+
+		executionCount.increment();
+		T result;
+		try {
+			result = loader.call();
+		} catch (Throwable e) {
+			inFlight.remove(key, flight);
+			flight.completeExceptionally(e);
+			throw e;
+		}
+		inFlight.remove(key, flight);
+		flight.complete(result);
+		return result;
+	}
+
+	private static <T> T await(CompletableFuture<T> flight) throws Exception {
+		try {
+			return flight.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+	/** 实际执行的调用次数 */
+	public long getExecutionCount() {
+		return executionCount.sum();
+	}
+
+	/** 合并到其他调用而节省的调用次数 */
+	public long getSharedCount() {
+		return sharedCount.sum();
+	}
+
+	/** 当前正在执行的调用数 */
+	public int getInFlightCount() {
+		return inFlight.size();
+	}
+
+	@Override
+	public String toString() {
+		return "SingleFlight[execution=" + getExecutionCount() + ", shared=" + getSharedCount() + ", inFlight="
+				+ getInFlightCount() + "]";
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.cs.mobile.common.utils.net;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+
+/**
+ * 请求级的TLS配置，用于信任库或主机名校验与共享客户端不同的上游，请求仍走共享连接池
+ *
+ * <p>
+ * 按该配置建立的https连接在连接池中以本实例为状态标记，只会被使用同一实例的请求复用，不会被默认配置的请求借用。
+ * SSLContext持有TLS会话缓存，实例应长期复用。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class TlsProfile {
+	/** DefaultHttpClientConnectionOperator优先从请求上下文的该属性查找连接工厂 */
+	private static final String SOCKET_FACTORY_REGISTRY = "http.socket-factory-registry";
+
+	private final Registry<ConnectionSocketFactory> socketFactoryRegistry;
+
+	/**
+	 * @param sslContext
+	 *            TLS上下文
+	 * @param hostnameVerifier
+	 *            主机名校验，为null时使用HttpClient默认校验
+	 */
+	public TlsProfile(SSLContext sslContext, HostnameVerifier hostnameVerifier) {
+		SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(sslContext,
+				hostnameVerifier == null ? SSLConnectionSocketFactory.getDefaultHostnameVerifier() : hostnameVerifier);
+		this.socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory> create()
+				.register("http", HttpMetrics.metered(PlainConnectionSocketFactory.getSocketFactory()))
+				.register("https", HttpMetrics.metered(sslSocketFactory)).build();
+	}
+
+	void apply(HttpClientContext context) {
+		context.setAttribute(SOCKET_FACTORY_REGISTRY, socketFactoryRegistry);
+		// 连接池按用户标记隔离连接，避免按本配置建立的连接被默认配置的请求复用
+		context.setUserToken(this);
+	}
+
+}
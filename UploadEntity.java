@@ -0,0 +1,95 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+/**
+ * 由内存中的字节片段(multipart的分隔行和部件头)和文件片段依次组成的请求体，长度在发送前已知
+ *
+ * <p>
+ * 文件内容在写出时才读取，见{@link FileRegion}；文件可以重复读取，实体可重复发送。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+final class UploadEntity extends AbstractHttpEntity {
+	/**
+	 * byte[]或FileRegion
+	 */
+	private final List<Object> parts;
+	private final long contentLength;
+
+	UploadEntity(List<Object> parts, String contentType) {
+		this.parts = parts;
+		long length = 0;
+		for (Object part : parts) {
+			length += part instanceof FileRegion ? ((FileRegion) part).count() : ((byte[]) part).length;
+		}
+		this.contentLength = length;
+		setContentType(contentType);
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return true;
+	}
+
+	@Override
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return false;
+	}
+
+	@Override
+	public InputStream getContent() {
+		Iterator<Object> iterator = parts.iterator();
+		return new SequenceInputStream(new Enumeration<InputStream>() {
+			@Override
+			public boolean hasMoreElements() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public InputStream nextElement() {
+				if (!iterator.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Object part = iterator.next();
+				if (!(part instanceof FileRegion)) {
+					return new ByteArrayInputStream((byte[]) part);
+				}
+				try {
+					return ((FileRegion) part).openStream();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		for (Object part : parts) {
+			if (part instanceof FileRegion) {
+				((FileRegion) part).writeTo(out);
+			} else {
+				out.write((byte[]) part);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.cs.mobile.common.utils.net;
+
+import java.net.URI;
+
+/**
+ * 每次发送请求前后的上游保护，例如熔断器、限流、舱壁和并发限制。acquire成功后无论结果如何都会调用一次release
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+interface UpstreamGuard {
+
+	/**
+	 * 请求发出前检查是否放行
+	 *
+	 * @param host
+	 *            上游主机
+	 * @param uri
+	 *            请求地址，按URL前缀配置的保护据此匹配规则
+	 * @throws UpstreamRejectedException
+	 *             拒绝本次请求
+	 */
+	void acquire(String host, URI uri) throws UpstreamRejectedException;
+
+	/**
+	 * 请求结束(收到响应头或失败)，或被后续的保护拒绝
+	 *
+	 * @param host
+	 *            上游主机
+	 * @param uri
+	 *            请求地址
+	 * @param statusCode
+	 *            响应状态码，失败时为-1
+	 * @param error
+	 *            异常，成功时为null；为{@link UpstreamRejectedException}时表示请求没有发出，
+	 *            为{@link RequestCancelledException}时表示请求被本地中止(对冲落败、批量超时)
+	 * @param latencyNanos
+	 *            耗时(纳秒)
+	 */
+	void release(String host, URI uri, int statusCode, Throwable error, long latencyNanos);
+
+}
@@ -0,0 +1,258 @@
+package com.cs.mobile.common.utils.net;
+
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+/**
+ * 单个上游主机的请求统计，由{@link HttpMetrics}维护
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class UpstreamMetrics {
+	private final String host;
+	private final ConcurrentHashMap<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder bytesIn = new LongAdder();
+	private final LongAdder bytesOut = new LongAdder();
+	private final LongAdder poolTimeouts = new LongAdder();
+	private final LongAdder connectTimeouts = new LongAdder();
+	private final LongAdder socketTimeouts = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder connectionsOpened = new LongAdder();
+	private final LatencyHistogram connectLatency = new LatencyHistogram();
+	private final LongAdder compressedRequestBytesBefore = new LongAdder();
+	private final LongAdder compressedRequestBytesAfter = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder hedges = new LongAdder();
+	private final LongAdder hedgeWins = new LongAdder();
+	private final LongAdder retryBudgetExhausted = new LongAdder();
+	private final ConcurrentHashMap<String, LongAdder> rejections = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, LongAdder> permitsGranted = new ConcurrentHashMap<>();
+	private final LongAdder permitWaitNanos = new LongAdder();
+
+	UpstreamMetrics(String host) {
+		this.host = host;
+	}
+
+	void recordResponse(String method, int statusCode, long latencyNanos, long requestBytes, long responseBytes) {
+		requestCounts.computeIfAbsent(method + " " + statusCode, key -> new LongAdder()).increment();
+		latency.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+		bytesOut.add(Math.max(requestBytes, 0));
+		bytesIn.add(Math.max(responseBytes, 0));
+	}
+
+	void recordFailure(String method, Throwable error, long latencyNanos) {
+		requestCounts.computeIfAbsent(method + " ERROR", key -> new LongAdder()).increment();
+		latency.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+		// ConnectionPoolTimeoutException是ConnectTimeoutException的子类，需先判断
+		if (error instanceof ConnectionPoolTimeoutException) {
+			poolTimeouts.increment();
+		} else if (error instanceof ConnectTimeoutException) {
+			connectTimeouts.increment();
+		} else if (error instanceof SocketTimeoutException) {
+			socketTimeouts.increment();
+		} else {
+			errors.increment();
+		}
+	}
+
+	void recordConnectionOpened(long connectNanos) {
+		connectionsOpened.increment();
+		connectLatency.record(TimeUnit.NANOSECONDS.toMicros(connectNanos));
+	}
+
+	void recordCompression(long originalBytes, long compressedBytes) {
+		compressedRequestBytesBefore.add(originalBytes);
+		compressedRequestBytesAfter.add(compressedBytes);
+	}
+
+	void recordRetry(boolean hedged) {
+		(hedged ? hedges : retries).increment();
+	}
+
+	void recordHedgeWin() {
+		hedgeWins.increment();
+	}
+
+	void recordRetryBudgetExhausted() {
+		retryBudgetExhausted.increment();
+	}
+
+	void recordRejection(String reason) {
+		LongAdder counter = rejections.get(reason);
+		if (counter == null) {
+			counter = rejections.computeIfAbsent(reason, key -> new LongAdder());
+		}
+		counter.increment();
+	}
+
+	void recordPermitGranted(String limiter, long waitNanos) {
+		LongAdder counter = permitsGranted.get(limiter);
+		if (counter == null) {
+			counter = permitsGranted.computeIfAbsent(limiter, key -> new LongAdder());
+		}
+		counter.increment();
+		if (waitNanos > 0) {
+			permitWaitNanos.add(waitNanos);
+		}
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * 按方法和状态码统计的请求数，键形如"GET 200"，请求异常时状态码为ERROR
+	 *
+	 * @return
+	 */
+	public Map<String, Long> getRequestCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+		requestCounts.forEach((key, count) -> counts.put(key, count.sum()));
+		return counts;
+	}
+
+	public long getRequestCount(String method, int statusCode) {
+		LongAdder count = requestCounts.get(method + " " + statusCode);
+		return count == null ? 0 : count.sum();
+	}
+
+	/** 请求耗时分布(微秒)，包括读取响应体的时间 */
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	public long getBytesIn() {
+		return bytesIn.sum();
+	}
+
+	public long getBytesOut() {
+		return bytesOut.sum();
+	}
+
+	/** 等待连接池连接超时次数(ConnectionPoolTimeoutException) */
+	public long getPoolTimeouts() {
+		return poolTimeouts.sum();
+	}
+
+	/** 建立连接超时次数(ConnectTimeoutException) */
+	public long getConnectTimeouts() {
+		return connectTimeouts.sum();
+	}
+
+	/** 读取响应超时次数(SocketTimeoutException) */
+	public long getSocketTimeouts() {
+		return socketTimeouts.sum();
+	}
+
+	/** 其他异常次数 */
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	/** 连接池新建的连接数 */
+	public long getConnectionsOpened() {
+		return connectionsOpened.sum();
+	}
+
+	/** 建立连接耗时分布(微秒)，https包括TLS握手 */
+	public LatencyHistogram getConnectLatency() {
+		return connectLatency;
+	}
+
+	/**
+	 * 连接复用率：没有新建连接的请求所占比例
+	 *
+	 * @return 0到1之间，没有请求时为0
+	 */
+	public double getConnectionReuseRate() {
+		long requests = latency.getCount();
+		if (requests == 0) {
+			return 0;
+		}
+		return 1 - (double) Math.min(connectionsOpened.sum(), requests) / requests;
+	}
+
+	/**
+	 * 被压缩的请求体压缩后与压缩前的字节数之比，越小压缩效果越好
+	 *
+	 * @return 没有压缩过请求体时为1
+	 */
+	public double getRequestCompressionRatio() {
+		long before = compressedRequestBytesBefore.sum();
+		return before == 0 ? 1 : (double) compressedRequestBytesAfter.sum() / before;
+	}
+
+	/** 请求体压缩节省的字节数 */
+	public long getRequestCompressionSavedBytes() {
+		return compressedRequestBytesBefore.sum() - compressedRequestBytesAfter.sum();
+	}
+
+	/** 重试次数，不含对冲 */
+	public long getRetries() {
+		return retries.sum();
+	}
+
+	/** 发出的对冲请求数 */
+	public long getHedges() {
+		return hedges.sum();
+	}
+
+	/** 对冲请求先于原请求返回的次数 */
+	public long getHedgeWins() {
+		return hedgeWins.sum();
+	}
+
+	/** 因重试预算不足而放弃重试或对冲的次数 */
+	public long getRetryBudgetExhausted() {
+		return retryBudgetExhausted.sum();
+	}
+
+	/**
+	 * 按原因统计的本地拒绝次数，例如circuit-open、rate-limit、bulkhead、concurrency-limit
+	 *
+	 * @return 原因到次数的映射
+	 */
+	public Map<String, Long> getRejections() {
+		Map<String, Long> result = new TreeMap<>();
+		rejections.forEach((reason, count) -> result.put(reason, count.sum()));
+		return result;
+	}
+
+	/**
+	 * 按限流方式统计的放行次数，键为rate-limit或bulkhead，与{@link #getRejections()}对照可得到拒绝率
+	 *
+	 * @return 限流方式到次数的映射
+	 */
+	public Map<String, Long> getPermitsGranted() {
+		Map<String, Long> result = new TreeMap<>();
+		permitsGranted.forEach((limiter, count) -> result.put(limiter, count.sum()));
+		return result;
+	}
+
+	/** 等待限流令牌的累计时间(毫秒) */
+	public long getPermitWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(permitWaitNanos.sum());
+	}
+
+	@Override
+	public String toString() {
+		return host + " " + getRequestCounts() + " latency[" + latency + "] bytesIn=" + getBytesIn() + " bytesOut="
+				+ getBytesOut() + " poolTimeouts=" + getPoolTimeouts() + " connectTimeouts=" + getConnectTimeouts()
+				+ " socketTimeouts=" + getSocketTimeouts() + " errors=" + getErrors() + " connectionsOpened="
+				+ getConnectionsOpened() + " connectionReuseRate=" + String.format("%.3f", getConnectionReuseRate())
+				+ " requestCompressionRatio=" + String.format("%.3f", getRequestCompressionRatio()) + " retries="
+				+ getRetries() + " hedges=" + getHedges() + " hedgeWins=" + getHedgeWins() + " retryBudgetExhausted="
+				+ getRetryBudgetExhausted() + " rejections=" + getRejections() + " permitsGranted=" + getPermitsGranted()
+				+ " permitWaitMillis=" + getPermitWaitMillis();
+	}
+
+}
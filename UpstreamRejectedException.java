@@ -0,0 +1,43 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.IOException;
+
+/**
+ * 请求在发出前被本地的熔断、限流或并发限制拒绝，没有访问上游
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class UpstreamRejectedException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	private final String host;
+	private final String reason;
+
+	/**
+	 * @param host
+	 *            上游主机
+	 * @param reason
+	 *            拒绝原因，例如circuit-open、concurrency-limit
+	 */
+	public UpstreamRejectedException(String host, String reason) {
+		super(reason + ": " + host);
+		this.host = host;
+		this.reason = reason;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+	/** 拒绝发生在本地，不需要堆栈 */
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+
+}
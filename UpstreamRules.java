@@ -0,0 +1,122 @@
+package com.cs.mobile.common.utils.net;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 按上游主机或URL前缀声明的规则表，供限流和舱壁匹配请求
+ *
+ * <p>
+ * 目标以http://或https://开头时按URL前缀匹配，最长前缀优先；否则按主机匹配，带非默认端口时形如host:port，
+ * 与{@link HttpMetrics}统计的主机一致。前缀规则优先于主机规则。规则表整体替换，匹配时只读一个volatile字段。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+final class UpstreamRules<T> {
+	private volatile Table<T> table = new Table<>(Collections.emptyMap(), new String[0], new Object[0]);
+
+	/**
+	 * 声明或替换一条规则
+	 *
+	 * @param target
+	 *            主机或URL前缀
+	 * @param rule
+	 *            规则
+	 */
+	synchronized void put(String target, T rule) {
+		if (target == null || target.isEmpty()) {
+			throw new IllegalArgumentException("target is empty");
+		}
+		Table<T> current = table;
+		if (!isPrefix(target)) {
+			Map<String, T> hosts = new HashMap<>(current.hosts);
+			hosts.put(target.toLowerCase(Locale.ROOT), rule);
+			table = new Table<>(hosts, current.prefixes, current.rules);
+			return;
+		}
+		int index = Arrays.asList(current.prefixes).indexOf(target);
+		String[] prefixes;
+		Object[] rules;
+		if (index >= 0) {
+			prefixes = current.prefixes;
+			rules = current.rules.clone();
+			rules[index] = rule;
+		} else {
+			// 按长度降序插入，匹配时第一个命中的就是最长前缀
+			int position = 0;
+			while (position < current.prefixes.length && current.prefixes[position].length() >= target.length()) {
+				position++;
+			}
+			prefixes = new String[current.prefixes.length + 1];
+			rules = new Object[prefixes.length];
+			System.arraycopy(current.prefixes, 0, prefixes, 0, position);
+			System.arraycopy(current.rules, 0, rules, 0, position);
+			prefixes[position] = target;
+			rules[position] = rule;
+			System.arraycopy(current.prefixes, position, prefixes, position + 1, current.prefixes.length - position);
+			System.arraycopy(current.rules, position, rules, position + 1, current.rules.length - position);
+		}
+		table = new Table<>(current.hosts, prefixes, rules);
+	}
+
+	/**
+	 * 按声明时的目标获取规则
+	 */
+	T get(String target) {
+		Table<T> current = table;
+		if (!isPrefix(target)) {
+			return current.hosts.get(target.toLowerCase(Locale.ROOT));
+		}
+		int index = Arrays.asList(current.prefixes).indexOf(target);
+		return index < 0 ? null : current.rule(index);
+	}
+
+	/**
+	 * 匹配请求适用的规则
+	 *
+	 * @param host
+	 *            上游主机
+	 * @param uri
+	 *            请求地址
+	 * @return 没有适用的规则时返回null
+	 */
+	T match(String host, URI uri) {
+		Table<T> current = table;
+		if (current.prefixes.length > 0) {
+			String url = uri.toString();
+			for (int i = 0; i < current.prefixes.length; i++) {
+				if (url.startsWith(current.prefixes[i])) {
+					return current.rule(i);
+				}
+			}
+		}
+		return current.hosts.isEmpty() ? null : current.hosts.get(host.toLowerCase(Locale.ROOT));
+	}
+
+	private static boolean isPrefix(String target) {
+		return target.regionMatches(true, 0, "http://", 0, 7) || target.regionMatches(true, 0, "https://", 0, 8);
+	}
+
+	private static class Table<T> {
+		private final Map<String, T> hosts;
+		private final String[] prefixes;
+		private final Object[] rules;
+
+		Table(Map<String, T> hosts, String[] prefixes, Object[] rules) {
+			this.hosts = hosts;
+			this.prefixes = prefixes;
+			this.rules = rules;
+		}
+
+		@SuppressWarnings("unchecked")
+		T rule(int index) {
+			return (T) rules[index];
+		}
+	}
+
+}
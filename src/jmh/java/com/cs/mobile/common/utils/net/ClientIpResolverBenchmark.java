@@ -0,0 +1,67 @@
+package com.cs.mobile.common.utils.net;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * {@link ClientIpResolver}基准测试，纯CPU计算，不启动桩服务器
+ *
+ * <pre>
+ * java -cp ... org.openjdk.jmh.Main ClientIpResolverBenchmark -prof gc
+ * </pre>
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientIpResolverBenchmark {
+	private static final String PROXY_ADDR = "10.0.0.5";
+	private static final String CLIENT_ADDR = "203.0.113.7";
+	private static final String FORWARDED_FOR = "203.0.113.7, 10.1.2.3";
+	private static final String FORWARDED = "for=\"[2001:db8:cafe::17]:4711\";proto=https, for=10.1.2.3";
+
+	private final ClientIpResolver resolver = ClientIpResolver.getDefault();
+
+	/** 直接连接的地址不可信，不读取转发头 */
+	@Benchmark
+	public String resolveDirect() {
+		return resolver.resolve(CLIENT_ADDR, FORWARDED_FOR, null, null);
+	}
+
+	/** 经两层内网代理的X-Forwarded-For，从右向左匹配可信网段后返回缓存的规范化地址 */
+	@Benchmark
+	public String resolveForwardedFor() {
+		return resolver.resolve(PROXY_ADDR, FORWARDED_FOR, null, null);
+	}
+
+	/** RFC 7239 Forwarded头，客户端为带端口的IPv6地址 */
+	@Benchmark
+	public String resolveForwarded() {
+		return resolver.resolve(PROXY_ADDR, null, FORWARDED, null);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder().include(ClientIpResolverBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class).build();
+		new Runner(options).run();
+	}
+
+}
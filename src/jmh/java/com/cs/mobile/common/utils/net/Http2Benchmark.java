@@ -0,0 +1,119 @@
+package com.cs.mobile.common.utils.net;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * HTTP/2多路复用与HTTP/1.1连接池的对比基准，请求进程内的{@link Http2StubServer}
+ *
+ * <p>
+ * transport为http1/https1时请求走共享连接池，h2c/h2时由{@link Http2Transport}在connections条连接上多路复用。
+ * 默认16个线程并发，结束时打印桩服务累计接受的连接数。需要JDK 11及以上，例如：
+ *
+ * <pre>
+ * java -cp ... org.openjdk.jmh.Main Http2Benchmark -t 64 -p payloadSize=65536
+ * </pre>
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class Http2Benchmark {
+	private static final int TIMEOUT = 5000;
+
+	@Param({ "http1", "h2c", "https1", "h2" })
+	public String transport;
+
+	@Param({ "1024", "65536" })
+	public int payloadSize;
+
+	/** HTTP/2模式下每个主机的连接数 */
+	@Param({ "2" })
+	public int connections;
+
+	private Http2StubServer server;
+	private TlsProfile tlsProfile;
+	private String url;
+	private RequestConfig requestConfig;
+	private byte[] content;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		boolean tls = "h2".equals(transport) || "https1".equals(transport);
+		server = tls ? Http2StubServer.startHttps(payloadSize) : Http2StubServer.startHttp(payloadSize);
+		url = server.baseUrl() + "/bench";
+		requestConfig = RequestConfig.custom().setConnectTimeout(TIMEOUT).setSocketTimeout(TIMEOUT).build();
+		content = HttpStubServer.payload(Math.min(payloadSize, 4096));
+		// HTTP/1.1模式通过TLS配置信任桩服务证书；HTTP/2模式由传输层自己的TLS上下文信任
+		tlsProfile = new TlsProfile(HttpStubServer.trustingContext(), null);
+		if (transport.startsWith("h2")) {
+			String host = HttpMetrics.host(URI.create(url));
+			HttpUtil.setTransport(new Http2Transport(Collections.singleton(host), HttpStubServer.trustingContext(),
+					connections, TIMEOUT));
+			// 每个客户端先各发一个请求建立连接，避免首批并发请求各自建连
+			for (int i = 0; i < connections; i++) {
+				get();
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.out.println();
+		System.out.println(transport + " connections accepted: " + server.connectionCount());
+		HttpUtil.setTransport(null);
+		server.stop();
+	}
+
+	@Benchmark
+	public String get() throws Exception {
+		HttpGet httpGet = new HttpGet(url);
+		httpGet.setConfig(requestConfig);
+		return HttpUtil.execute(httpGet, tlsProfile);
+	}
+
+	@Benchmark
+	public String post() throws Exception {
+		HttpPost httpPost = new HttpPost(url);
+		httpPost.setConfig(requestConfig);
+		httpPost.setEntity(new ByteArrayEntity(content, ContentType.create("text/plain", StandardCharsets.UTF_8)));
+		return HttpUtil.execute(httpPost, tlsProfile);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder().include(Http2Benchmark.class.getSimpleName()).build();
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,491 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * 基准测试使用的进程内HTTP/2桩服务，同时支持HTTP/1.1长连接
+ *
+ * <p>
+ * 明文端口接受HTTP/1.1请求和Upgrade: h2c升级，TLS端口通过ALPN协商h2或http/1.1。
+ * 所有请求都返回启动时指定长度的响应体，请求体被完整读取后丢弃；不解析HPACK请求头，响应头只使用静态表。
+ * {@link #connectionCount()}返回累计接受的连接数，用于确认请求是否在少量连接上多路复用。需要JDK 11及以上。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class Http2StubServer {
+	private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+	private static final int DATA = 0x0;
+	private static final int HEADERS = 0x1;
+	private static final int RST_STREAM = 0x3;
+	private static final int SETTINGS = 0x4;
+	private static final int PING = 0x6;
+	private static final int GOAWAY = 0x7;
+	private static final int WINDOW_UPDATE = 0x8;
+	private static final int CONTINUATION = 0x9;
+
+	private static final int FLAG_END_STREAM = 0x1;
+	private static final int FLAG_ACK = 0x1;
+	private static final int FLAG_END_HEADERS = 0x4;
+
+	private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+	private static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+	private static final int DEFAULT_WINDOW = 65535;
+	/** 本端接收窗口，足够大以免POST请求体等待WINDOW_UPDATE */
+	private static final int RECEIVE_WINDOW = 16 * 1024 * 1024;
+
+	private final ServerSocket serverSocket;
+	private final boolean tls;
+	private final byte[] body;
+	private final byte[] contentLength;
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "http2-stub");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicInteger connections = new AtomicInteger();
+
+	private Http2StubServer(ServerSocket serverSocket, boolean tls, int size) {
+		this.serverSocket = serverSocket;
+		this.tls = tls;
+		this.body = HttpStubServer.payload(size);
+		this.contentLength = Integer.toString(size).getBytes(StandardCharsets.US_ASCII);
+		executor.execute(this::acceptLoop);
+	}
+
+	/**
+	 * 启动明文桩服务(HTTP/1.1和h2c)，监听随机端口
+	 *
+	 * @param size
+	 *            响应体长度
+	 */
+	public static Http2StubServer startHttp(int size) throws IOException {
+		return new Http2StubServer(new ServerSocket(0, 1024, InetAddress.getLoopbackAddress()), false, size);
+	}
+
+	/**
+	 * 启动TLS桩服务(h2和HTTP/1.1)，监听随机端口，证书由{@link HttpStubServer#trustingContext()}信任
+	 *
+	 * @param size
+	 *            响应体长度
+	 */
+	public static Http2StubServer startHttps(int size) throws Exception {
+		SSLServerSocket socket = (SSLServerSocket) HttpStubServer.selfSignedContext().getServerSocketFactory()
+				.createServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+		SSLParameters parameters = socket.getSSLParameters();
+		parameters.setApplicationProtocols(new String[] { "h2", "http/1.1" });
+		socket.setSSLParameters(parameters);
+		return new Http2StubServer(socket, true, size);
+	}
+
+	public String baseUrl() {
+		return (tls ? "https" : "http") + "://127.0.0.1:" + serverSocket.getLocalPort();
+	}
+
+	/**
+	 * 累计接受的连接数
+	 */
+	public int connectionCount() {
+		return connections.get();
+	}
+
+	public void stop() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// 忽略
+		}
+		executor.shutdownNow();
+	}
+
+	private void acceptLoop() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				connections.incrementAndGet();
+				executor.execute(() -> serve(socket));
+			} catch (IOException e) {
+				return;
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		try (Socket s = socket) {
+			InputStream in = new BufferedInputStream(s.getInputStream(), 16 * 1024);
+			OutputStream out = new BufferedOutputStream(s.getOutputStream(), 16 * 1024);
+			if (s instanceof SSLSocket) {
+				SSLSocket sslSocket = (SSLSocket) s;
+				sslSocket.startHandshake();
+				if ("h2".equals(sslSocket.getApplicationProtocol())) {
+					new Http2Connection(in, out).run(null);
+					return;
+				}
+			}
+			serveHttp1(in, out);
+		} catch (IOException e) {
+			// 客户端关闭连接
+		}
+	}
+
+	private void serveHttp1(InputStream in, OutputStream out) throws IOException {
+		while (true) {
+			String requestLine = readLine(in);
+			if (requestLine == null) {
+				return;
+			}
+			Map<String, String> headers = new HashMap<>();
+			for (String line = readLine(in); line != null && !line.isEmpty(); line = readLine(in)) {
+				int colon = line.indexOf(':');
+				if (colon > 0) {
+					headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+				}
+			}
+			discardBody(in, headers);
+			if ("h2c".equalsIgnoreCase(headers.get("upgrade"))) {
+				out.write(("HTTP/1.1 101 Switching Protocols\r\nConnection: Upgrade\r\nUpgrade: h2c\r\n\r\n")
+						.getBytes(StandardCharsets.US_ASCII));
+				out.flush();
+				// 升级前的请求作为流1处理，其初始窗口等参数由HTTP2-Settings请求头给出
+				String settings = headers.get("http2-settings");
+				new Http2Connection(in, out).run(settings == null ? null : Base64.getUrlDecoder().decode(settings));
+				return;
+			}
+			out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/plain;charset=UTF-8\r\nContent-Length: " + body.length
+					+ "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+			out.write(body);
+			out.flush();
+			if ("close".equalsIgnoreCase(headers.get("connection"))) {
+				return;
+			}
+		}
+	}
+
+	private static void discardBody(InputStream in, Map<String, String> headers) throws IOException {
+		if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+			while (true) {
+				String sizeLine = readLine(in);
+				if (sizeLine == null) {
+					throw new EOFException();
+				}
+				int semicolon = sizeLine.indexOf(';');
+				long size = Long.parseLong((semicolon < 0 ? sizeLine : sizeLine.substring(0, semicolon)).trim(), 16);
+				if (size == 0) {
+					// 跳过trailer
+					for (String line = readLine(in); line != null && !line.isEmpty(); line = readLine(in)) {
+					}
+					return;
+				}
+				skip(in, size);
+				readLine(in);
+			}
+		}
+		String length = headers.get("content-length");
+		if (length != null) {
+			skip(in, Long.parseLong(length));
+		}
+	}
+
+	private static void skip(InputStream in, long length) throws IOException {
+		while (length > 0) {
+			long skipped = in.skip(length);
+			if (skipped <= 0) {
+				if (in.read() == -1) {
+					throw new EOFException();
+				}
+				skipped = 1;
+			}
+			length -= skipped;
+		}
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int b;
+		while ((b = in.read()) != -1) {
+			if (b == '\n') {
+				int length = line.length();
+				return length > 0 && line.charAt(length - 1) == '\r' ? line.substring(0, length - 1) : line.toString();
+			}
+			line.append((char) b);
+		}
+		return line.length() == 0 ? null : line.toString();
+	}
+
+	/**
+	 * 一条HTTP/2连接：读线程处理帧，响应在线程池中发送，按对端的连接和流窗口分帧
+	 */
+	private class Http2Connection {
+		private final DataInputStream in;
+		private final OutputStream out;
+		private final Object windowLock = new Object();
+		private final Map<Integer, long[]> streamWindows = new HashMap<>();
+		private long connectionWindow = DEFAULT_WINDOW;
+		private int initialStreamWindow = DEFAULT_WINDOW;
+		private int maxFrameSize = 16384;
+		private boolean closed;
+
+		Http2Connection(InputStream in, OutputStream out) {
+			this.in = new DataInputStream(in);
+			this.out = out;
+		}
+
+		/**
+		 * @param upgradeSettings
+		 *            h2c升级请求携带的对端设置，不是升级的连接为null
+		 */
+		void run(byte[] upgradeSettings) throws IOException {
+			ByteArrayOutputStream settings = new ByteArrayOutputStream();
+			writeSetting(settings, SETTINGS_INITIAL_WINDOW_SIZE, RECEIVE_WINDOW);
+			writeFrame(SETTINGS, 0, 0, settings.toByteArray());
+			writeWindowUpdate(0, RECEIVE_WINDOW - DEFAULT_WINDOW);
+
+			byte[] preface = new byte[PREFACE.length];
+			in.readFully(preface);
+			if (upgradeSettings != null) {
+				applySettings(upgradeSettings);
+				respondAsync(1);
+			}
+			try {
+				readFrames();
+			} finally {
+				synchronized (windowLock) {
+					closed = true;
+					windowLock.notifyAll();
+				}
+			}
+		}
+
+		private void readFrames() throws IOException {
+			// HEADERS未结束时记录其END_STREAM标志，等最后一个CONTINUATION到达后处理
+			int pendingStream = 0;
+			boolean pendingEndStream = false;
+			while (true) {
+				int length;
+				try {
+					length = in.readUnsignedByte() << 16 | in.readUnsignedShort();
+				} catch (EOFException e) {
+					return;
+				}
+				int type = in.readUnsignedByte();
+				int flags = in.readUnsignedByte();
+				int streamId = in.readInt() & 0x7FFFFFFF;
+				byte[] payload = new byte[length];
+				in.readFully(payload);
+
+				switch (type) {
+				case HEADERS:
+				case CONTINUATION:
+					if (type == HEADERS) {
+						pendingStream = streamId;
+						pendingEndStream = (flags & FLAG_END_STREAM) != 0;
+						synchronized (windowLock) {
+							streamWindows.put(streamId, new long[] { initialStreamWindow });
+						}
+					}
+					if ((flags & FLAG_END_HEADERS) != 0 && pendingEndStream) {
+						respondAsync(pendingStream);
+					}
+					break;
+				case DATA:
+					if (length > 0) {
+						writeWindowUpdate(0, length);
+						if ((flags & FLAG_END_STREAM) == 0) {
+							writeWindowUpdate(streamId, length);
+						}
+					}
+					if ((flags & FLAG_END_STREAM) != 0) {
+						respondAsync(streamId);
+					}
+					break;
+				case SETTINGS:
+					if ((flags & FLAG_ACK) == 0) {
+						applySettings(payload);
+						writeFrame(SETTINGS, FLAG_ACK, 0, new byte[0]);
+					}
+					break;
+				case PING:
+					if ((flags & FLAG_ACK) == 0) {
+						writeFrame(PING, FLAG_ACK, 0, payload);
+					}
+					break;
+				case WINDOW_UPDATE:
+					int increment = (payload[0] & 0x7F) << 24 | (payload[1] & 0xFF) << 16 | (payload[2] & 0xFF) << 8
+							| payload[3] & 0xFF;
+					synchronized (windowLock) {
+						if (streamId == 0) {
+							connectionWindow += increment;
+						} else {
+							long[] window = streamWindows.get(streamId);
+							if (window != null) {
+								window[0] += increment;
+							}
+						}
+						windowLock.notifyAll();
+					}
+					break;
+				case RST_STREAM:
+					synchronized (windowLock) {
+						streamWindows.remove(streamId);
+						windowLock.notifyAll();
+					}
+					break;
+				case GOAWAY:
+					return;
+				default:
+					// PRIORITY等帧忽略
+				}
+			}
+		}
+
+		private void applySettings(byte[] payload) {
+			synchronized (windowLock) {
+				for (int i = 0; i + 6 <= payload.length; i += 6) {
+					int id = (payload[i] & 0xFF) << 8 | payload[i + 1] & 0xFF;
+					int value = (payload[i + 2] & 0xFF) << 24 | (payload[i + 3] & 0xFF) << 16
+							| (payload[i + 4] & 0xFF) << 8 | payload[i + 5] & 0xFF;
+					if (id == SETTINGS_INITIAL_WINDOW_SIZE) {
+						// 新的初始窗口对已打开的流按差值生效
+						int delta = value - initialStreamWindow;
+						initialStreamWindow = value;
+						for (long[] window : streamWindows.values()) {
+							window[0] += delta;
+						}
+					} else if (id == SETTINGS_MAX_FRAME_SIZE) {
+						maxFrameSize = value;
+					}
+				}
+				windowLock.notifyAll();
+			}
+		}
+
+		private void respondAsync(int streamId) {
+			executor.execute(() -> {
+				try {
+					respond(streamId);
+				} catch (IOException e) {
+					// 连接已关闭
+				}
+			});
+		}
+
+		private void respond(int streamId) throws IOException {
+			synchronized (windowLock) {
+				streamWindows.putIfAbsent(streamId, new long[] { initialStreamWindow });
+			}
+			// :status 200(静态表索引8)、content-length和content-type都使用静态表中的名称，不做Huffman编码
+			ByteArrayOutputStream headerBlock = new ByteArrayOutputStream(64);
+			headerBlock.write(0x88);
+			writeLiteral(headerBlock, 28, contentLength);
+			writeLiteral(headerBlock, 31, "text/plain;charset=UTF-8".getBytes(StandardCharsets.US_ASCII));
+			writeFrame(HEADERS, FLAG_END_HEADERS | (body.length == 0 ? FLAG_END_STREAM : 0), streamId,
+					headerBlock.toByteArray());
+
+			int offset = 0;
+			while (offset < body.length) {
+				int length;
+				synchronized (windowLock) {
+					while (true) {
+						long[] window = streamWindows.get(streamId);
+						if (closed || window == null) {
+							return;
+						}
+						length = (int) Math.min(Math.min(body.length - offset, maxFrameSize),
+								Math.min(connectionWindow, window[0]));
+						if (length > 0) {
+							connectionWindow -= length;
+							window[0] -= length;
+							break;
+						}
+						try {
+							windowLock.wait();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+					}
+				}
+				boolean last = offset + length == body.length;
+				writeFrame(DATA, last ? FLAG_END_STREAM : 0, streamId, body, offset, length);
+				offset += length;
+			}
+			synchronized (windowLock) {
+				streamWindows.remove(streamId);
+			}
+		}
+
+		private void writeWindowUpdate(int streamId, int increment) throws IOException {
+			writeFrame(WINDOW_UPDATE, 0, streamId, new byte[] { (byte) (increment >>> 24), (byte) (increment >>> 16),
+					(byte) (increment >>> 8), (byte) increment });
+		}
+
+		private void writeFrame(int type, int flags, int streamId, byte[] payload) throws IOException {
+			writeFrame(type, flags, streamId, payload, 0, payload.length);
+		}
+
+		private void writeFrame(int type, int flags, int streamId, byte[] payload, int offset, int length)
+				throws IOException {
+			synchronized (out) {
+				try {
+					out.write(length >>> 16);
+					out.write(length >>> 8);
+					out.write(length);
+					out.write(type);
+					out.write(flags);
+					out.write(streamId >>> 24);
+					out.write(streamId >>> 16);
+					out.write(streamId >>> 8);
+					out.write(streamId);
+					out.write(payload, offset, length);
+					out.flush();
+				} catch (SocketException e) {
+					throw new EOFException(e.getMessage());
+				}
+			}
+		}
+	}
+
+	private static void writeSetting(ByteArrayOutputStream out, int id, int value) {
+		out.write(id >>> 8);
+		out.write(id);
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	/**
+	 * 不加入动态表的字面量头，名称取静态表索引(4位前缀整数)，值不做Huffman编码
+	 */
+	private static void writeLiteral(ByteArrayOutputStream out, int nameIndex, byte[] value) {
+		out.write(0x0F);
+		out.write(nameIndex - 15);
+		out.write(value.length);
+		out.write(value, 0, value.length);
+	}
+}
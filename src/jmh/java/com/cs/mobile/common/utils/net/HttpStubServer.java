@@ -0,0 +1,173 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * 基准测试使用的进程内HTTP/HTTPS桩服务
+ *
+ * <p>
+ * 所有路径返回指定长度的响应体，长度由查询参数size指定(默认1024)；请求体会被完整读取后丢弃。
+ * HTTPS使用启动时由keytool生成的临时自签名证书。
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class HttpStubServer {
+	private static final String STORE_PASSWORD = "changeit";
+
+	static {
+		// 关闭Nagle算法，避免响应头和响应体分两次写出时被延迟确认拖慢约40ms
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	/** 自签名证书只生成一次，同一进程内的HTTPS桩服务共用 */
+	private static KeyStore keyStore;
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	private HttpStubServer(HttpServer server) {
+		this.server = server;
+		this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+		server.setExecutor(executor);
+		server.createContext("/", HttpStubServer::handle);
+		server.start();
+	}
+
+	/**
+	 * 启动HTTP桩服务，监听随机端口
+	 */
+	public static HttpStubServer startHttp() throws IOException {
+		return new HttpStubServer(HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024));
+	}
+
+	/**
+	 * 启动HTTPS桩服务，监听随机端口
+	 */
+	public static HttpStubServer startHttps() throws Exception {
+		HttpsServer server = HttpsServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		server.setHttpsConfigurator(new HttpsConfigurator(selfSignedContext()));
+		return new HttpStubServer(server);
+	}
+
+	public String baseUrl() {
+		String scheme = server instanceof HttpsServer ? "https" : "http";
+		return scheme + "://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private static void handle(HttpExchange exchange) throws IOException {
+		try (InputStream in = exchange.getRequestBody()) {
+			byte[] buffer = new byte[8192];
+			while (in.read(buffer) != -1) {
+				// 丢弃请求体
+			}
+		}
+		byte[] body = payload(querySize(exchange.getRequestURI().getRawQuery()));
+		exchange.getResponseHeaders().set("Content-Type", "text/plain;charset=UTF-8");
+		if ("HEAD".equals(exchange.getRequestMethod())) {
+			// HEAD响应带Content-Length时JDK会关闭连接
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+			return;
+		}
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static int querySize(String query) {
+		if (query != null) {
+			for (String pair : query.split("&")) {
+				if (pair.startsWith("size=")) {
+					return Integer.parseInt(pair.substring(5));
+				}
+			}
+		}
+		return 1024;
+	}
+
+	/**
+	 * 生成指定长度的ASCII内容，每64字节一个换行
+	 */
+	public static byte[] payload(int size) {
+		byte[] body = new byte[size];
+		Arrays.fill(body, (byte) 'a');
+		for (int i = 63; i < size; i += 64) {
+			body[i] = '\n';
+		}
+		return body;
+	}
+
+	/**
+	 * 服务端使用的TLS上下文，证书对localhost和127.0.0.1有效
+	 */
+	static SSLContext selfSignedContext() throws Exception {
+		KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagerFactory.init(selfSignedKeyStore(), STORE_PASSWORD.toCharArray());
+		SSLContext context = SSLContext.getInstance("TLS");
+		context.init(keyManagerFactory.getKeyManagers(), null, null);
+		return context;
+	}
+
+	/**
+	 * 只信任桩服务证书的客户端TLS上下文
+	 */
+	public static SSLContext trustingContext() throws Exception {
+		TrustManagerFactory trustManagerFactory = TrustManagerFactory
+				.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		trustManagerFactory.init(selfSignedKeyStore());
+		SSLContext context = SSLContext.getInstance("TLS");
+		context.init(null, trustManagerFactory.getTrustManagers(), null);
+		return context;
+	}
+
+	private static synchronized KeyStore selfSignedKeyStore() throws Exception {
+		if (keyStore != null) {
+			return keyStore;
+		}
+		File keyStoreFile = File.createTempFile("http-stub", ".p12");
+		keyStoreFile.delete();
+		keyStoreFile.deleteOnExit();
+		String keytool = System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool";
+		Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "stub", "-keyalg", "RSA", "-keysize",
+				"2048", "-validity", "2", "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+				"-storetype", "PKCS12", "-keystore", keyStoreFile.getAbsolutePath(), "-storepass", STORE_PASSWORD,
+				"-keypass", STORE_PASSWORD).redirectErrorStream(true).start();
+		if (process.waitFor() != 0) {
+			throw new IllegalStateException("keytool failed with exit code " + process.exitValue());
+		}
+
+		KeyStore store = KeyStore.getInstance("PKCS12");
+		try (InputStream in = new FileInputStream(keyStoreFile)) {
+			store.load(in, STORE_PASSWORD.toCharArray());
+		}
+		keyStore = store;
+		return store;
+	}
+}
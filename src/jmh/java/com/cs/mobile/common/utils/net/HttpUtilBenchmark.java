@@ -0,0 +1,189 @@
+package com.cs.mobile.common.utils.net;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.cs.mobile.common.utils.http.HttpUtils;
+
+/**
+ * HttpUtil/HttpUtils基准测试，网络调用均请求进程内的{@link HttpStubServer}
+ *
+ * <p>
+ * 同时输出吞吐量和延迟分布(SampleTime给出p50/p99/p999)，main方法默认附加GC profiler输出每次调用的分配量。
+ * 不同并发下的表现通过-t参数指定线程数，例如：
+ *
+ * <pre>
+ * java -cp ... org.openjdk.jmh.Main HttpUtilBenchmark -t 1 -prof gc
+ * java -cp ... org.openjdk.jmh.Main HttpUtilBenchmark.doGet -t 16 -p payloadSize=65536 -prof gc
+ * </pre>
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpUtilBenchmark {
+	private static final int TIMEOUT = 5000;
+	private static final String GUARD_HOST = "guard.example.com";
+	private static final URI GUARD_URI = URI.create("http://guard.example.com/v1/orders?id=1");
+
+	/** 响应体字节数，同时决定请求参数和请求体的规模 */
+	@Param({ "128", "4096", "65536" })
+	public int payloadSize;
+
+	private HttpStubServer httpServer;
+	private HttpStubServer httpsServer;
+	private String getUrl;
+	private String postUrl;
+	private String sslUrl;
+	private Map<String, String> queryParams;
+	private List<Map<String, String>> bodyRecords;
+	private byte[] payload;
+	private CircuitBreaker circuitBreaker;
+	private RateLimiter rateLimiter;
+	private Bulkhead bulkhead;
+	private ConcurrencyLimiter concurrencyLimiter;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		httpServer = HttpStubServer.startHttp();
+		httpsServer = HttpStubServer.startHttps();
+		getUrl = httpServer.baseUrl() + "/get";
+		postUrl = httpServer.baseUrl() + "/post?size=" + payloadSize;
+		sslUrl = httpsServer.baseUrl() + "/ssl";
+		payload = HttpStubServer.payload(payloadSize);
+		circuitBreaker = new CircuitBreaker(0.5, 1000, 1, 5000);
+		rateLimiter = new RateLimiter().limit(GUARD_HOST, 1_000_000_000, 1_000_000).limit("http://guard.example.com/v1/",
+				1_000_000_000, 1_000_000);
+		bulkhead = new Bulkhead().limit(GUARD_HOST, 1000);
+		concurrencyLimiter = new ConcurrencyLimiter(1000, 1, 1000);
+
+		queryParams = new HashMap<>();
+		queryParams.put("size", String.valueOf(payloadSize));
+		int paramCount = Math.max(1, payloadSize / 256);
+		for (int i = 0; i < paramCount; i++) {
+			queryParams.put("key" + i, "value " + i + " 值/" + i);
+		}
+		bodyRecords = new ArrayList<>();
+		for (int i = 0; i < paramCount; i++) {
+			Map<String, String> record = new HashMap<>();
+			record.put("id", String.valueOf(i));
+			record.put("name", "record-" + i);
+			bodyRecords.add(record);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		httpServer.stop();
+		httpsServer.stop();
+	}
+
+	@Benchmark
+	public String buildQuery() throws Exception {
+		return HttpUtil.buildQuery(queryParams, HttpUtil.DEFAULT_CHARSET);
+	}
+
+	@Benchmark
+	public String appendQuery() {
+		return QueryEncoder.appendQuery(getUrl, queryParams);
+	}
+
+	@Benchmark
+	public String getStreamAsString() throws Exception {
+		return HttpUtil.getStreamAsString(new ByteArrayInputStream(payload), HttpUtil.DEFAULT_CHARSET);
+	}
+
+	/** 带Content-Length提示，缓冲区一次分配到位 */
+	@Benchmark
+	public String getStreamAsStringSized() throws Exception {
+		return HttpUtil.getStreamAsString(new ByteArrayInputStream(payload), payload.length, HttpUtil.DEFAULT_CHARSET);
+	}
+
+	@Benchmark
+	public byte[] readBytes() throws Exception {
+		return BodyHandler.ofByteArray().handle(new ByteArrayInputStream(payload), payload.length);
+	}
+
+	/** 熔断器、限流(URL前缀规则)、舱壁和并发限制在请求路径上的开销(放行并反馈一次成功) */
+	@Benchmark
+	public void upstreamGuards() throws Exception {
+		circuitBreaker.acquire(GUARD_HOST, GUARD_URI);
+		rateLimiter.acquire(GUARD_HOST, GUARD_URI);
+		bulkhead.acquire(GUARD_HOST, GUARD_URI);
+		concurrencyLimiter.acquire(GUARD_HOST, GUARD_URI);
+		concurrencyLimiter.release(GUARD_HOST, GUARD_URI, 200, null, 1_000_000);
+		bulkhead.release(GUARD_HOST, GUARD_URI, 200, null, 1_000_000);
+		rateLimiter.release(GUARD_HOST, GUARD_URI, 200, null, 1_000_000);
+		circuitBreaker.release(GUARD_HOST, GUARD_URI, 200, null, 1_000_000);
+	}
+
+	@Benchmark
+	public String getResponseCharset() {
+		return HttpUtil.getResponseCharset("application/json; boundary=x; charset=GBK");
+	}
+
+	@Benchmark
+	public String doGet() {
+		return HttpUtil.doGet(getUrl, queryParams, TIMEOUT, TIMEOUT);
+	}
+
+	@Benchmark
+	public String doPost() throws Exception {
+		return HttpUtil.doPost(postUrl, queryParams, TIMEOUT, TIMEOUT);
+	}
+
+	@Benchmark
+	public String doPostByBody() {
+		return HttpUtil.doPostByBody(postUrl, bodyRecords, TIMEOUT, TIMEOUT);
+	}
+
+	@Benchmark
+	public String sendGet() {
+		return HttpUtils.sendGet(getUrl, "size=" + payloadSize);
+	}
+
+	@Benchmark
+	public String sendPost() {
+		return HttpUtils.sendPost(getUrl, "size=" + payloadSize);
+	}
+
+	@Benchmark
+	public String sendSSLPost() {
+		return HttpUtils.sendSSLPost(sslUrl, "size=" + payloadSize);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder().include(HttpUtilBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class).build();
+		new Runner(options).run();
+	}
+
+}
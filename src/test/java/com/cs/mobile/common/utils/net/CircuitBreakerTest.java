@@ -0,0 +1,93 @@
+package com.cs.mobile.common.utils.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 熔断器与对冲请求的配合：对冲获胜后被中止的原请求不计为失败
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class CircuitBreakerTest {
+	private static final int HEDGED_CALLS = 5;
+
+	private final AtomicInteger hedgedRequests = new AtomicInteger();
+	private HttpServer server;
+	private String host;
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/fast", exchange -> respond(exchange));
+		// 原请求(奇数次)迟迟不返回，对冲副本(偶数次)立即返回
+		server.createContext("/hedged", exchange -> {
+			if (hedgedRequests.incrementAndGet() % 2 == 1) {
+				sleep(3000);
+			}
+			respond(exchange);
+		});
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		host = "127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void tearDown() {
+		HttpUtil.setRetryPolicy(null);
+		HttpUtil.setCircuitBreaker(null);
+		server.stop(0);
+	}
+
+	@Test
+	public void hedgeWinDoesNotOpenCircuit() {
+		// 积累足够的耗时样本后才会对冲
+		for (int i = 0; i < 200; i++) {
+			assertEquals("ok", HttpUtil.doGet("http://" + host + "/fast", null, 3000, 5000));
+		}
+		HttpUtil.setRetryPolicy(new RetryPolicy(1, 0, 0).setHedging(95, 50).setBudget(1, 100));
+		// 任一失败都会使失败率达到阈值
+		CircuitBreaker breaker = new CircuitBreaker(0.01, 10000, 1, 60000).setWindow(10, 1);
+		HttpUtil.setCircuitBreaker(breaker);
+
+		long errors = HttpMetrics.getUpstreamMetrics(host).getErrors();
+		for (int i = 0; i < HEDGED_CALLS; i++) {
+			assertEquals("ok", HttpUtil.doGet("http://" + host + "/hedged", null, 3000, 5000));
+		}
+		assertTrue(HttpMetrics.getUpstreamMetrics(host).getHedgeWins() >= HEDGED_CALLS);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(host));
+		assertEquals(errors, HttpMetrics.getUpstreamMetrics(host).getErrors());
+	}
+
+	private static void respond(HttpExchange exchange) throws IOException {
+		byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,159 @@
+package com.cs.mobile.common.utils.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+
+/**
+ * 客户端IP解析：转发链从右向左检查，只信任可信代理追加的跳
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class ClientIpResolverTest {
+	private final ClientIpResolver resolver = ClientIpResolver.getDefault();
+
+	@Test
+	public void untrustedRemoteIgnoresHeaders() {
+		assertEquals("203.0.113.9", resolver.resolve("203.0.113.9", "1.1.1.1", "for=2.2.2.2", "3.3.3.3"));
+		assertEquals("8.8.8.8", resolve("8.8.8.8", "X-Forwarded-For", "1.1.1.1"));
+	}
+
+	@Test
+	public void spoofedLeftmostHopsAreIgnored() {
+		assertEquals("203.0.113.7", resolver.resolve("10.0.0.5", "6.6.6.6, 203.0.113.7, 10.1.2.3", null, null));
+		// 客户端伪造的可信地址位于真实客户端左侧，不会被采用
+		assertEquals("203.0.113.50", resolver.resolve("10.0.0.5", "127.0.0.1, 203.0.113.50", null, null));
+		// 所有跳都可信时取最左侧
+		assertEquals("192.168.1.4", resolver.resolve("10.0.0.5", "192.168.1.4, 10.1.2.3", null, null));
+	}
+
+	@Test
+	public void unknownAndObfuscatedHopsStopTheWalk() {
+		assertEquals("10.1.2.3", resolver.resolve("10.0.0.5", "203.0.113.7, unknown, 10.1.2.3", null, null));
+		assertEquals("10.0.0.5", resolver.resolve("10.0.0.5", "unKnown", null, null));
+		assertEquals("127.0.0.1", resolver.resolve("127.0.0.1", null, "for=198.51.100.17, for=_hidden", null));
+		assertEquals("127.0.0.1", resolver.resolve("127.0.0.1", null, "for=unknown", null));
+	}
+
+	@Test
+	public void multiLineHeaders() {
+		// 第一行由客户端伪造，代理追加的第二行中的客户端被采用
+		assertEquals("198.51.100.9",
+				resolve("10.0.0.5", "X-Forwarded-For", "1.2.3.4", "X-Forwarded-For", "198.51.100.9, 10.1.1.1"));
+		// 第二行全部可信时继续检查第一行
+		assertEquals("1.2.3.4",
+				resolve("10.0.0.5", "X-Forwarded-For", "9.9.9.9, 1.2.3.4", "X-Forwarded-For", "10.1.1.1"));
+		assertEquals("1.2.3.4", resolve("10.0.0.5", "X-Forwarded-For", "1.2.3.4", "X-Forwarded-For", ""));
+		assertEquals("10.2.2.2", resolve("10.0.0.5", "X-Forwarded-For", "unknown", "X-Forwarded-For", "10.2.2.2"));
+		assertEquals("2001:db8:cafe::17",
+				resolve("10.0.0.5", "Forwarded", "for=\"[2001:db8:cafe::17]:4711\"", "Forwarded", "for=10.1.2.3"));
+		assertEquals("5.6.7.8", resolve("10.0.0.5", "Forwarded", "for=5.6.7.8", "X-Real-IP", "9.9.9.9"));
+		assertEquals("9.9.9.9", resolve("10.0.0.5", "X-Real-IP", "9.9.9.9"));
+	}
+
+	@Test
+	public void forwardedWithQuotedV6AndPort() {
+		assertEquals("2001:db8:cafe::17", resolver.resolve("127.0.0.1", null,
+				"for=198.51.100.17;proto=https, For=\"[2001:db8:cafe::17]:4711\"", null));
+		assertEquals("198.51.100.17",
+				resolver.resolve("127.0.0.1", null, "for=198.51.100.17, for=10.0.0.1;by=x", null));
+		assertEquals("2001:db8::1", resolver.resolve("10.0.0.5", "[2001:DB8:0:0:0:0:0:1]:443", null, null));
+		assertEquals("203.0.113.7", resolver.resolve("10.0.0.5", "203.0.113.7:5123", null, null));
+	}
+
+	@Test
+	public void realIpFallback() {
+		assertEquals("198.51.100.2", resolver.resolve("10.0.0.5", null, null, " 198.51.100.2 "));
+		assertEquals("10.0.0.5", resolver.resolve("10.0.0.5", null, null, "garbage"));
+	}
+
+	@Test
+	public void mappedAndCompressedV6() {
+		assertEquals("8.8.4.4", resolver.normalize("::FFFF:8.8.4.4"));
+		assertEquals("8.8.8.8", resolver.resolve("::ffff:10.0.0.7", "8.8.8.8", null, null));
+		assertEquals("127.0.0.1", resolver.resolve("0:0:0:0:0:0:0:1", null, null, null));
+		assertEquals("64:ff9b::c000:221", resolver.normalize("64:ff9b::192.0.2.33"));
+		assertEquals("fe80::1", resolver.normalize("fe80::1%eth0"));
+		assertEquals("2001:db8::", resolver.normalize("2001:db8::"));
+		assertEquals("::", resolver.normalize("::"));
+	}
+
+	@Test
+	public void rfc5952Output() {
+		assertEquals("2001:db8::1:0:0:1", resolver.normalize("2001:0db8:0000:0000:0001:0000:0000:0001"));
+		// 多段等长的连续0时压缩第一段，单个0不压缩
+		assertEquals("1::2:0:0:3:4", resolver.normalize("1:0:0:2:0:0:3:4"));
+		assertEquals("1:0:2:3:4:5:6:7", resolver.normalize("1:0:2:3:4:5:6:7"));
+		assertEquals("2001:db8::ab", resolver.normalize("2001:DB8::AB"));
+	}
+
+	@Test
+	public void invalidAddresses() {
+		assertNull(resolver.normalize("256.1.1.1"));
+		assertNull(resolver.normalize("1.2.3"));
+		assertNull(resolver.normalize("1::2::3"));
+		assertNull(resolver.normalize("1:2:3"));
+		assertNull(resolver.normalize("1:2:3:4:5:6:7:8:9"));
+		assertEquals("unix:/tmp/sock", resolver.resolve("unix:/tmp/sock", null, null, null));
+	}
+
+	@Test
+	public void trustedCidrs() {
+		assertFalse(resolver.isTrusted("172.32.0.1"));
+		assertTrue(resolver.isTrusted("172.31.255.255"));
+		assertTrue(resolver.isTrusted("fd12::1"));
+
+		ClientIpResolver custom = new ClientIpResolver("203.0.113.0/24", "2400:3200::/32", "::ffff:198.51.100.0/120");
+		assertEquals("198.51.100.9", custom.resolve("203.0.113.1", "198.51.100.9, 203.0.113.77", null, null));
+		assertTrue(custom.isTrusted("198.51.100.200"));
+		assertEquals("2001:db8::5", custom.resolve("2400:3200:1::1", "2001:db8::5", null, null));
+		assertEquals("10.0.0.1", custom.resolve("10.0.0.1", "1.2.3.4", null, null));
+
+		ClientIpResolver all = new ClientIpResolver("0.0.0.0/0", "::/0");
+		assertEquals("9.9.9.9", all.resolve("1.1.1.1", "9.9.9.9, 8.8.8.8", null, null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidPrefixLength() {
+		new ClientIpResolver("10.0.0.0/33");
+	}
+
+	/**
+	 * @param headers
+	 *            请求头名和值交替排列，同名头出现多次即为多行
+	 */
+	private String resolve(String remoteAddr, String... headers) {
+		Map<String, List<String>> lines = new HashMap<>();
+		for (int i = 0; i < headers.length; i += 2) {
+			lines.computeIfAbsent(headers[i], key -> new ArrayList<>()).add(headers[i + 1]);
+		}
+		HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getRemoteAddr":
+						return remoteAddr;
+					case "getHeaders":
+						return Collections.enumeration(lines.getOrDefault(args[0], Collections.emptyList()));
+					case "getHeader":
+						return lines.containsKey(args[0]) ? lines.get(args[0]).get(0) : null;
+					default:
+						return null;
+					}
+				});
+		return resolver.resolve(request);
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.cs.mobile.common.utils.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * multipart请求体的分隔行和长度：写出的字节数与Content-Length一致
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class MultipartBodyTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void emptyBody() throws IOException {
+		MultipartBody body = new MultipartBody();
+		byte[] written = write(body);
+		assertEquals("--" + body.getBoundary() + "--\r\n", new String(written, StandardCharsets.US_ASCII));
+		assertEquals(body.getContentLength(), written.length);
+	}
+
+	@Test
+	public void singleField() throws IOException {
+		MultipartBody body = new MultipartBody().addField("名称", "值\"1\"");
+		byte[] written = write(body);
+		String boundary = body.getBoundary();
+		assertEquals("--" + boundary + "\r\nContent-Disposition: form-data; name=\"名称\"\r\n\r\n值\"1\"\r\n--" + boundary
+				+ "--\r\n", new String(written, StandardCharsets.UTF_8));
+		assertEquals(body.getContentLength(), written.length);
+	}
+
+	@Test
+	public void manyParts() throws IOException {
+		// 大于写出缓冲区，覆盖分块读取
+		byte[] content = new byte[200 * 1024 + 7];
+		new Random(7).nextBytes(content);
+		Path file = folder.newFile("data.bin").toPath();
+		Files.write(file, content);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MultipartBody body = new MultipartBody().addField("type", "invoice").addField("empty", null)
+					.addFile("file", file, "application/octet-stream")
+					.addFile("chunk", "chunk.bin", channel, 100, 1000, null);
+			byte[] written = write(body);
+			assertEquals(body.getContentLength(), written.length);
+			assertArrayEquals(written, read(body));
+
+			String text = new String(written, StandardCharsets.ISO_8859_1);
+			String delimiter = "--" + body.getBoundary();
+			assertEquals(0, text.indexOf(delimiter + "\r\n"));
+			assertEquals(text.length() - delimiter.length() - 4, text.lastIndexOf(delimiter + "--\r\n"));
+			// 每个部件之后的分隔行前有CRLF，第一个分隔行之前没有
+			assertEquals(4, text.split("\r\n" + delimiter, -1).length - 1);
+			int fileStart = text.indexOf("\r\n\r\n", text.indexOf("filename=\"data.bin\"")) + 4;
+			byte[] sent = new byte[content.length];
+			System.arraycopy(written, fileStart, sent, 0, content.length);
+			assertArrayEquals(content, sent);
+		}
+	}
+
+	private static byte[] write(MultipartBody body) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		body.toEntity().writeTo(out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * 只接受输入流的传输层读取到的内容
+	 */
+	private static byte[] read(MultipartBody body) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = body.toEntity().getContent()) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+			}
+		}
+		return out.toByteArray();
+	}
+
+}
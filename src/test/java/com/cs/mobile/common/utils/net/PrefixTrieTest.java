@@ -0,0 +1,83 @@
+package com.cs.mobile.common.utils.net;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * 前缀树：重叠网段、先长后短的网段和/0网段
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class PrefixTrieTest {
+
+	@Test
+	public void overlappingCidrs() {
+		PrefixTrie trie = new PrefixTrie(32);
+		trie.add(v4(10, 0, 0, 0), 0, 8);
+		trie.add(v4(10, 1, 0, 0), 0, 16);
+		assertTrue(trie.contains(v4(10, 1, 2, 3), 0));
+		assertTrue(trie.contains(v4(10, 200, 0, 1), 0));
+		assertFalse(trie.contains(v4(11, 0, 0, 1), 0));
+	}
+
+	@Test
+	public void shorterCidrAddedAfterLonger() {
+		PrefixTrie trie = new PrefixTrie(32);
+		trie.add(v4(192, 168, 1, 0), 0, 24);
+		assertFalse(trie.contains(v4(192, 168, 2, 1), 0));
+		trie.add(v4(192, 168, 0, 0), 0, 16);
+		assertTrue(trie.contains(v4(192, 168, 1, 1), 0));
+		assertTrue(trie.contains(v4(192, 168, 2, 1), 0));
+		assertFalse(trie.contains(v4(192, 169, 0, 1), 0));
+	}
+
+	@Test
+	public void singleAddressAndBoundaries() {
+		PrefixTrie trie = new PrefixTrie(32);
+		assertTrue(trie.isEmpty());
+		trie.add(v4(172, 16, 0, 0), 0, 12);
+		trie.add(v4(8, 8, 8, 8), 0, 32);
+		assertFalse(trie.isEmpty());
+		assertTrue(trie.contains(v4(172, 31, 255, 255), 0));
+		assertFalse(trie.contains(v4(172, 32, 0, 0), 0));
+		assertTrue(trie.contains(v4(8, 8, 8, 8), 0));
+		assertFalse(trie.contains(v4(8, 8, 8, 9), 0));
+	}
+
+	@Test
+	public void matchAll() {
+		PrefixTrie trie = new PrefixTrie(128);
+		trie.add(0x20010db800000000L, 0, 32);
+		assertFalse(trie.contains(0x2400320000000000L, 1));
+		trie.add(0, 0, 0);
+		assertFalse(trie.isEmpty());
+		assertTrue(trie.contains(0x2400320000000000L, 1));
+		assertTrue(trie.contains(-1L, -1L));
+	}
+
+	@Test
+	public void v6LowBits() {
+		PrefixTrie trie = new PrefixTrie(128);
+		// ::1/128，区分的位在lo中
+		trie.add(0, 1, 128);
+		assertTrue(trie.contains(0, 1));
+		assertFalse(trie.contains(0, 2));
+		trie.add(0x2001000000000000L, 0xff00000000000000L, 72);
+		assertTrue(trie.contains(0x2001000000000000L, 0xff12345600000000L));
+		assertFalse(trie.contains(0x2001000000000000L, 0xfe00000000000000L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidPrefixLength() {
+		new PrefixTrie(32).add(0, 0, 33);
+	}
+
+	/** IPv4地址存放在hi的高32位 */
+	private static long v4(int a, int b, int c, int d) {
+		return ((long) a << 56) | ((long) b << 48) | ((long) c << 40) | ((long) d << 32);
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.cs.mobile.common.utils.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * 查询字符串编码与{@link URLEncoder}逐字节一致，GET请求的URL不因编码器改变
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class QueryEncoderTest {
+	private static final Charset GBK = Charset.forName("GBK");
+	private static final String[] VALUES = { "plain", "a b", "中文 值", "a&b=c?d/e+f%g#h~!*'().-_:;@,$[]",
+			"😀 𠀀", "xéüß", "\t\r\n\u0000\u007f", "全角，标点。" };
+
+	@Test
+	public void utf8MatchesUrlEncoder() throws UnsupportedEncodingException {
+		for (String value : VALUES) {
+			assertEquals(value, "k=" + URLEncoder.encode(value, "UTF-8"),
+					QueryEncoder.buildQuery(Collections.singletonMap("k", value), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void gbkMatchesUrlEncoder() throws UnsupportedEncodingException {
+		for (String value : VALUES) {
+			if (!GBK.newEncoder().canEncode(value)) {
+				continue;
+			}
+			assertEquals(value, "k=" + URLEncoder.encode(value, "GBK"),
+					QueryEncoder.buildQuery(Collections.singletonMap("k", value), GBK));
+		}
+		assertEquals("k=" + URLEncoder.encode("中文 值", "GBK"), QueryEncoder.buildQuery(params("k", "中文 值"), GBK));
+	}
+
+	@Test
+	public void multipleParamsSkipEmpty() throws UnsupportedEncodingException {
+		Map<String, String> params = params("a", "1", "empty", "", "nothing", null, "b", "中 文", "__VIEWSTATE", "%2F+");
+		assertEquals("a=1&b=" + URLEncoder.encode("中 文", "UTF-8") + "&__VIEWSTATE=%2F+",
+				QueryEncoder.buildQuery(params, StandardCharsets.UTF_8));
+		assertNull(QueryEncoder.buildQuery(null, StandardCharsets.UTF_8));
+		assertNull(QueryEncoder.buildQuery(Collections.<String, String> emptyMap(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void appendQuery() throws UnsupportedEncodingException {
+		String encoded = URLEncoder.encode("a&b 中", "UTF-8");
+		assertEquals("http://h/p?q=" + encoded, QueryEncoder.appendQuery("http://h/p", params("q", "a&b 中")));
+		assertEquals("http://h/p?x=1&q=" + encoded,
+				QueryEncoder.appendQuery("http://h/p?x=1", params("q", "a&b 中")));
+		assertEquals("http://h/p", QueryEncoder.appendQuery("http://h/p", null));
+	}
+
+	@Test
+	public void longValuesBeyondPooledBuffer() throws UnsupportedEncodingException {
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			value.append("值&😀");
+		}
+		assertEquals("k=" + URLEncoder.encode(value.toString(), "UTF-8"),
+				QueryEncoder.buildQuery(params("k", value.toString()), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void templateQueryVariableMatchesUrlEncoder() throws UnsupportedEncodingException {
+		QueryEncoder.Template template = QueryEncoder.compile("http://h/users/{id}?name={name}");
+		assertEquals("http://h/users/a%2Fb?name=" + URLEncoder.encode("张 三&", "UTF-8") + "&x=1",
+				template.expand(params("id", "a/b", "name", "张 三&"), params("x", "1")));
+	}
+
+	private static Map<String, String> params(String... keyValues) {
+		Map<String, String> params = new LinkedHashMap<>();
+		for (int i = 0; i < keyValues.length; i += 2) {
+			params.put(keyValues[i], keyValues[i + 1]);
+		}
+		return params;
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.cs.mobile.common.utils.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.InputStreamEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 重试与对冲：对冲获胜后原请求可以继续重试，请求体不能重复读取时不重试
+ *
+ * @author songjian
+ * @date 2026年10月17日
+ */
+public class RetryPolicyTest {
+	private final AtomicInteger hedgedRequests = new AtomicInteger();
+	private final AtomicInteger putRequests = new AtomicInteger();
+	private HttpServer server;
+	private String host;
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/fast", exchange -> respond(exchange, 200));
+		// 第一次请求迟迟不返回，对冲副本返回503，重试返回200
+		server.createContext("/hedged", exchange -> {
+			int n = hedgedRequests.incrementAndGet();
+			if (n == 1) {
+				sleep(3000);
+			}
+			respond(exchange, n == 2 ? 503 : 200);
+		});
+		server.createContext("/put", exchange -> {
+			putRequests.incrementAndGet();
+			drain(exchange.getRequestBody());
+			respond(exchange, 503);
+		});
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		host = "127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void tearDown() {
+		HttpUtil.setRetryPolicy(null);
+		server.stop(0);
+	}
+
+	@Test
+	public void retryAfterHedgeWin() {
+		// 积累足够的耗时样本后才会对冲
+		for (int i = 0; i < 200; i++) {
+			assertEquals("ok", HttpUtil.doGet("http://" + host + "/fast", null, 3000, 5000));
+		}
+		HttpUtil.setRetryPolicy(new RetryPolicy(2, 0, 0).setHedging(95, 50).setBudget(1, 100));
+
+		assertEquals("ok", HttpUtil.doGet("http://" + host + "/hedged", null, 3000, 5000));
+		assertEquals(3, hedgedRequests.get());
+		assertTrue(HttpMetrics.getUpstreamMetrics(host).getHedgeWins() >= 1);
+	}
+
+	@Test
+	public void nonRepeatableEntityIsNotRetried() throws IOException {
+		HttpUtil.setRetryPolicy(new RetryPolicy(3, 0, 0).setBudget(1, 100));
+		HttpPut put = new HttpPut("http://" + host + "/put");
+		put.setEntity(new InputStreamEntity(new ByteArrayInputStream("body".getBytes(StandardCharsets.UTF_8))));
+		try {
+			HttpUtil.execute(put, null);
+			fail("503 expected");
+		} catch (IOException e) {
+			assertEquals(1, putRequests.get());
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status) throws IOException {
+		byte[] body = (status == 200 ? "ok" : "").getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static void drain(InputStream in) throws IOException {
+		byte[] buffer = new byte[1024];
+		while (in.read(buffer) >= 0) {
+			// 丢弃请求体
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}